@@ -43,6 +43,7 @@ import java.util.stream.StreamSupport;
 public class FullCalendarScheduler extends FullCalendar implements Scheduler {
 
     private final Map<String, Resource> resources = new HashMap<>();
+    private String resourceRenderCallback;
 
     /**
      * Creates a new instance without any settings beside the default locale ({@link CalendarLocale#getDefault()}).
@@ -121,7 +122,7 @@ public class FullCalendarScheduler extends FullCalendar implements Scheduler {
             registerResourcesInternally(resource.getChildren());
         });
 
-        getElement().callJsFunction("addResources", array);
+        callJsFunction("addResources", array);
     }
 
     /**
@@ -153,7 +154,7 @@ public class FullCalendarScheduler extends FullCalendar implements Scheduler {
             }
         });
 
-        getElement().callJsFunction("removeResources", array);
+        callJsFunction("removeResources", array);
 
     }
 
@@ -181,13 +182,34 @@ public class FullCalendarScheduler extends FullCalendar implements Scheduler {
     public void removeAllResources() {
         removeFromEntries(resources.values());
     	resources.clear();
-        getElement().callJsFunction("removeAllResources");
+        callJsFunction("removeAllResources");
     }
     
 
     @Override
     public void setResourceRenderCallback(String s) {
-        getElement().callJsFunction("setResourceRenderCallback", s);
+        resourceRenderCallback = s;
+        callJsFunction("setResourceRenderCallback", s);
+    }
+
+    /**
+     * Sends the resources and the resource render callback again, since the client does not cache them.
+     *
+     * @param clientVersion version of the state restored by the client or -1, if everything has to be sent
+     */
+    @Override
+    protected void resyncClientState(int clientVersion) {
+        JsonArray array = Json.createArray();
+        resources.values().stream()
+                .filter(resource -> !resource.getParent().isPresent())
+                .forEach(resource -> array.set(array.length(), resource.toJson()));
+        callJsFunction("addResources", array);
+
+        if (resourceRenderCallback != null) {
+            callJsFunction("setResourceRenderCallback", resourceRenderCallback);
+        }
+
+        super.resyncClientState(clientVersion);
     }
 
 
@@ -154,6 +154,8 @@ public class ResourceEntry extends Entry {
                 this.resources.clear();
             }
             this.resources.add(resource);
+            markAsChanged("resourceIds");
+            notifyChanged();
         }
     }
 
@@ -220,6 +222,8 @@ public class ResourceEntry extends Entry {
         } else {
             this.resources.addAll(resources);
         }
+        markAsChanged("resourceIds");
+        notifyChanged();
     }
 
     /**
@@ -261,6 +265,8 @@ public class ResourceEntry extends Entry {
     public void unassignResources(@NotNull Collection<Resource> resources) {
         if (this.resources != null) {
             this.resources.removeAll(resources);
+            markAsChanged("resourceIds");
+            notifyChanged();
         }
     }
 
@@ -294,6 +300,8 @@ public class ResourceEntry extends Entry {
         if (this.resources != null) {
             this.resources.clear();
             this.resources = null;
+            markAsChanged("resourceIds");
+            notifyChanged();
         }
     }
 
@@ -309,11 +317,6 @@ public class ResourceEntry extends Entry {
             }
 
             jsonObject.put("resourceIds", array);
-
-            if (getColor() == null && !resources.isEmpty()) {
-                jsonObject.put("_hardReset", true);  // currently needed to make sure, that the color is
-                // set correctly. Might change in future, if not performant
-            }
         }
 
 
@@ -322,6 +325,30 @@ public class ResourceEntry extends Entry {
         return jsonObject;
     }
 
+    /**
+     * Allows caching the json for instances of this class, since the resource related setters inform about
+     * their changes. Subclasses are not cached, see {@link Entry#isJsonCacheable()}.
+     *
+     * @return json may be cached
+     */
+    @Override
+    protected boolean isJsonCacheable() {
+        return getClass() == ResourceEntry.class;
+    }
+
+    /**
+     * Adds the resource editable flag to the properties, that require a full update, since the client cannot
+     * set it on an existing entry.
+     *
+     * @return json keys of properties requiring a full update
+     */
+    @Override
+    protected Set<String> getFullUpdateProperties() {
+        Set<String> properties = new HashSet<>(super.getFullUpdateProperties());
+        properties.add("resourceEditable");
+        return properties;
+    }
+
     @Override
     protected void update(JsonObject object) {
         super.update(object);
@@ -343,6 +370,11 @@ public class ResourceEntry extends Entry {
                     .ifPresent(this::assignResources);
 
         });
+
+        // resource changes coming from the client do not need to be sent back
+        if (object.get("oldResource") instanceof JsonString || object.get("newResource") instanceof JsonString) {
+            markAsSynchronized("resourceIds");
+        }
     }
 
     /**
@@ -366,6 +398,10 @@ public class ResourceEntry extends Entry {
      * @param resourceEditableOnClientSide resource editable on client side
      */
     public void setResourceEditableOnClientSide(boolean resourceEditableOnClientSide) {
-        this.resourceEditableOnClientSide = resourceEditableOnClientSide;
+        if (this.resourceEditableOnClientSide != resourceEditableOnClientSide) {
+            markAsChanged("resourceEditable");
+            this.resourceEditableOnClientSide = resourceEditableOnClientSide;
+            notifyChanged();
+        }
     }
 }
@@ -233,4 +233,29 @@ public class FullCalendarSchedulerTest {
         Assertions.assertFalse(entries.contains(entry2));
         Assertions.assertTrue(entries.contains(entry3));
     }
+
+    @Test
+    void testResourceEntryIndex() {
+        Resource resource1 = new Resource();
+        Resource resource2 = new Resource();
+        calendar.addResources(resource1, resource2);
+
+        ResourceEntry entry1 = new ResourceEntry();
+        ResourceEntry entry2 = new ResourceEntry();
+        entry1.assignResources(resource1, resource2);
+        entry2.assignResource(resource2);
+        calendar.addEntries(entry1, entry2);
+
+        EntryIndex<Resource> index = calendar.addMultiKeyEntryIndex(e -> ((ResourceEntry) e).getResources());
+        Assertions.assertEquals(Arrays.asList(entry1), index.getEntries(resource1));
+        Assertions.assertEquals(2, index.countEntries(resource2));
+
+        entry1.unassignResource(resource1);
+        entry2.assignResource(resource1);
+        Assertions.assertEquals(Arrays.asList(entry2), index.getEntries(resource1));
+
+        entry2.unassignAllResources();
+        Assertions.assertEquals(0, index.countEntries(resource1));
+        Assertions.assertEquals(Arrays.asList(entry1), index.getEntries(resource2));
+    }
 }
@@ -2,6 +2,7 @@ package org.vaadin.stefan.fullcalendar;
 
 import elemental.json.Json;
 import elemental.json.JsonArray;
+import elemental.json.JsonNull;
 import elemental.json.JsonObject;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeAll;
@@ -132,6 +133,26 @@ public class ResourceEntryTest {
         Assertions.assertEquals(resources.stream().map(Resource::getId).collect(Collectors.toSet()), jsonResourceIds);
     }
 
+    @Test
+    void testToJsonChangesOfResources() {
+        ResourceEntry entry = new ResourceEntry();
+        entry.assignResource(new Resource());
+        entry.clearChangedProperties(); // entry has been sent to the client
+
+        // entries without an own color are updated in place
+        Resource resource = new Resource();
+        entry.assignResource(resource);
+        JsonObject changes = entry.toJsonChanges();
+        Assertions.assertEquals(2, changes.keys().length);
+        Assertions.assertEquals(2, changes.getArray("resourceIds").length());
+        Assertions.assertEquals(resource.getId(), changes.getArray("resourceIds").getString(1));
+        Assertions.assertFalse(entry.toJson().hasKey("_hardReset"));
+
+        entry.clearChangedProperties();
+        entry.unassignAllResources();
+        Assertions.assertTrue(entry.toJsonChanges().get("resourceIds") instanceof JsonNull);
+    }
+
     @Test
     void testUpdateResourceEntryBasicsFromJson() {
         FullCalendarScheduler calendar = new FullCalendarScheduler();
@@ -231,4 +252,66 @@ public class ResourceEntryTest {
         Assertions.assertEquals(new LinkedHashSet<>(Arrays.asList(resource1, resource3)), entry.getResources());
     }
 
+    @Test
+    void testResourceChangesFromClientAreNotSentBack() {
+        FullCalendarScheduler calendar = new FullCalendarScheduler();
+        Resource resource1 = new Resource("1", "1", null);
+        Resource resource2 = new Resource("2", "2", null);
+        calendar.addResources(resource1, resource2);
+
+        ResourceEntry entry = new ResourceEntry();
+        entry.setCalendar(calendar);
+        entry.assignResource(resource1);
+        entry.clearChangedProperties();
+
+        JsonObject jsonObject = Json.createObject();
+        jsonObject.put("id", entry.getId());
+        jsonObject.put("oldResource", "1");
+        jsonObject.put("newResource", "2");
+        entry.update(jsonObject);
+
+        Assertions.assertEquals(Collections.singleton(resource2), entry.getResources());
+        Assertions.assertFalse(entry.getChangedProperties().contains("resourceIds"));
+        Assertions.assertEquals(1, entry.toCachedJson().getArray("resourceIds").length());
+    }
+
+    @Test
+    void testResourceEditableChangeSendsFullJson() {
+        ResourceEntry entry = new ResourceEntry();
+        entry.setTitle(DEFAULT_TITLE);
+        entry.setStart(DEFAULT_START.toInstant(ZoneOffset.UTC));
+        entry.setEnd(DEFAULT_END.toInstant(ZoneOffset.UTC));
+        entry.clearChangedProperties();
+
+        // the client has to add the entry again, which needs all of its properties
+        entry.setResourceEditableOnClientSide(true);
+        JsonObject changes = entry.toJsonChanges();
+        Assertions.assertEquals(entry.toJson().toJson(), changes.toJson());
+        Assertions.assertTrue(changes.getBoolean("resourceEditable"));
+        Assertions.assertEquals(DEFAULT_TITLE, changes.getString("title"));
+        Assertions.assertTrue(changes.hasKey("start"));
+        Assertions.assertTrue(changes.hasKey("end"));
+
+        // other properties are still updated in place
+        entry.clearChangedProperties();
+        entry.setTitle(DEFAULT_DESCRIPTION);
+        Assertions.assertEquals(2, entry.toJsonChanges().keys().length);
+    }
+
+    @Test
+    void testUnchangedResourceEditableKeepsCachedJson() {
+        ResourceEntry entry = new ResourceEntry();
+        entry.setResourceEditableOnClientSide(true);
+        entry.clearChangedProperties();
+
+        JsonObject json = entry.toCachedJson();
+        entry.setResourceEditableOnClientSide(true);
+        Assertions.assertTrue(entry.getChangedProperties().isEmpty());
+        Assertions.assertSame(json, entry.toCachedJson());
+
+        entry.setResourceEditableOnClientSide(false);
+        Assertions.assertEquals(Collections.singleton("resourceEditable"), entry.getChangedProperties());
+        Assertions.assertNotSame(json, entry.toCachedJson());
+    }
+
 }
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2018, Stefan Uebe
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions
+ * of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.vaadin.stefan.fullcalendar;
+
+import javax.validation.constraints.NotNull;
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.stream.Stream;
+
+/**
+ * Provides entries for a calendar on demand. When a data provider is set via
+ * {@link FullCalendar#setDataProvider(CalendarDataProvider)}, the client side requests the entries for the
+ * currently visible timespan each time it changes (e.g. on {@link FullCalendar#next()}). Only the returned entries
+ * are kept on the server side, so that the memory consumption does not depend on the size of the backend.
+ * <br><br>
+ * The returned entries are registered in the calendar like entries added with {@link FullCalendar#addEntries(Iterable)}
+ * until the next fetch. This means, that {@link FullCalendar#getEntryById(String)} and the entry based events
+ * (e.g. {@link EntryDroppedEvent}) work with them as usual. Entries may also be subclasses of {@link Entry}, e.g.
+ * resource entries when using the scheduler extension.
+ */
+@FunctionalInterface
+public interface CalendarDataProvider extends Serializable {
+
+    /**
+     * Returns the entries, which timespan crosses the given timespan. As with
+     * {@link FullCalendar#getEntries(Instant, Instant)} both limits are exclusive. Returning additional entries
+     * outside of the timespan is allowed, they are simply shown, if they are in the visible area. The ids of
+     * the returned entries have to be unique, duplicates are ignored.
+     *
+     * @param start start of the requested timespan (UTC based)
+     * @param end   end of the requested timespan (UTC based)
+     * @return entries of the timespan
+     */
+    Stream<? extends Entry> fetch(@NotNull Instant start, @NotNull Instant end);
+}
@@ -0,0 +1,355 @@
+/*
+ * Copyright 2018, Stefan Uebe
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions
+ * of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.vaadin.stefan.fullcalendar;
+
+import javax.validation.constraints.NotNull;
+import java.time.Instant;
+import java.util.*;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * A memory efficient, read only store of entries, that can be used as data provider for a calendar. Instead of
+ * keeping entry instances, the store keeps the entry values in primitive arrays (columns) sorted by start. Start
+ * and end are stored as epoch milliseconds, colors are shared via a palette table. {@link Entry} instances are
+ * only created on demand, when they are fetched by the calendar or requested via {@link #getEntryById(String)}.
+ * <br><br>
+ * Only the basic entry properties are supported (id, title, start, end, all day, editable, color, description).
+ * Recurring entries or entry subclasses are not supported. Start and end are truncated to milliseconds.
+ * <br><br>
+ * The store cannot be modified after it has been created. Changes of materialized entries are not reflected in
+ * the store. Use {@link #builder()} or {@link #of(Iterable)} to create a new instance.
+ */
+public class ColumnarEntryStore implements CalendarDataProvider {
+
+    private static final short NO_COLOR = -1;
+
+    /**
+     * Percentage of entries, that may be treated as long entries at most.
+     */
+    private static final int LONG_ENTRIES_PERCENTAGE = 1;
+
+    private final int size;
+    private final String[] ids;
+    private final String[] titles;
+    private final String[] descriptions;
+    private final long[] starts;
+    private final long[] ends;
+    private final short[] colors;
+    private final String[] palette;
+    private final BitSet allDay;
+    private final BitSet editable;
+    private final int[] positionsById;
+    private final long maxShortDuration;
+    private final int[] longPositions;
+
+    private ColumnarEntryStore(Builder builder) {
+        size = builder.size;
+
+        // sort by start, so that timespan queries only have to scan a small part of the arrays
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingLong(i -> builder.starts[i]));
+
+        ids = new String[size];
+        titles = new String[size];
+        descriptions = new String[size];
+        starts = new long[size];
+        ends = new long[size];
+        colors = new short[size];
+        allDay = new BitSet(size);
+        editable = new BitSet(size);
+
+        for (int i = 0; i < size; i++) {
+            int source = order[i];
+            ids[i] = builder.ids[source];
+            titles[i] = builder.titles[source];
+            descriptions[i] = builder.descriptions[source];
+            starts[i] = builder.starts[source];
+            ends[i] = builder.ends[source];
+            colors[i] = builder.colors[source];
+            allDay.set(i, builder.allDay.get(source));
+            editable.set(i, builder.editable.get(source));
+        }
+
+        // the few longest entries are kept separately, so that they do not extend the scanned part of the
+        // arrays for every query
+        long[] durations = new long[size];
+        for (int i = 0; i < size; i++) {
+            durations[i] = ends[i] - starts[i];
+        }
+        Arrays.sort(durations);
+        maxShortDuration = size == 0 ? 0 : durations[size - 1 - size * LONG_ENTRIES_PERCENTAGE / 100];
+        longPositions = IntStream.range(0, size).filter(i -> ends[i] - starts[i] > maxShortDuration).toArray();
+
+        palette = builder.palette.toArray(new String[0]);
+
+        Integer[] byId = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            byId[i] = i;
+        }
+        Arrays.sort(byId, Comparator.comparing(i -> ids[i]));
+        positionsById = new int[size];
+        for (int i = 0; i < size; i++) {
+            positionsById[i] = byId[i];
+        }
+    }
+
+    /**
+     * Creates a new builder.
+     *
+     * @return builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Creates a new store containing the values of the given entries. The entries themselves are not referenced
+     * by the store.
+     *
+     * @param entries entries
+     * @return store
+     * @throws NullPointerException when null is passed or an entry has no start or end
+     * @throws IllegalArgumentException when an entry id is contained multiple times
+     */
+    public static ColumnarEntryStore of(@NotNull Iterable<? extends Entry> entries) {
+        Objects.requireNonNull(entries);
+
+        Builder builder = builder();
+        entries.forEach(builder::add);
+        return builder.build();
+    }
+
+    /**
+     * Returns the amount of entries in this store.
+     *
+     * @return size
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns a new entry instance for the given id or empty, if there is no entry with that id.
+     *
+     * @param id id
+     * @return entry or empty
+     * @throws NullPointerException when null is passed
+     */
+    public Optional<Entry> getEntryById(@NotNull String id) {
+        Objects.requireNonNull(id);
+
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int position = positionsById[mid];
+            int comparison = ids[position].compareTo(id);
+            if (comparison < 0) {
+                low = mid + 1;
+            } else if (comparison > 0) {
+                high = mid - 1;
+            } else {
+                return Optional.of(materialize(position));
+            }
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * Returns new entry instances for all entries, which timespan crosses the given timespan. The entries are
+     * sorted by their start.
+     *
+     * @param start start of the requested timespan (UTC based)
+     * @param end   end of the requested timespan (UTC based)
+     * @return entries
+     * @throws NullPointerException when null is passed
+     */
+    @Override
+    public Stream<Entry> fetch(@NotNull Instant start, @NotNull Instant end) {
+        Objects.requireNonNull(start);
+        Objects.requireNonNull(end);
+
+        long filterStart = start.toEpochMilli();
+        long filterEnd = end.toEpochMilli();
+
+        // no short entry starting before this position can reach the filter start
+        int from = lowerBound(filterStart - maxShortDuration);
+        int to = lowerBound(filterEnd);
+
+        IntStream shortEntries = IntStream.range(from, to)
+                .filter(i -> ends[i] > filterStart && ends[i] - starts[i] <= maxShortDuration);
+        IntStream longEntries = Arrays.stream(longPositions)
+                .filter(i -> i < to && ends[i] > filterStart);
+
+        // positions are ordered by start
+        return IntStream.concat(shortEntries, longEntries)
+                .sorted()
+                .mapToObj(this::materialize);
+    }
+
+    /**
+     * Returns the first position, which start is equal or after the given value.
+     */
+    private int lowerBound(long value) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (starts[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private Entry materialize(int position) {
+        short color = colors[position];
+
+        Entry entry = new Entry(ids[position]);
+        entry.setTitle(titles[position]);
+        entry.setStart(Instant.ofEpochMilli(starts[position]));
+        entry.setEnd(Instant.ofEpochMilli(ends[position]));
+        entry.setAllDay(allDay.get(position));
+        entry.setEditable(editable.get(position));
+        entry.setColor(color == NO_COLOR ? null : palette[color]);
+        entry.setDescription(descriptions[position]);
+        return entry;
+    }
+
+    /**
+     * Builder for {@link ColumnarEntryStore}. Entries can be added either as entry instances or directly by their
+     * values, which avoids the creation of temporary entry instances.
+     */
+    public static class Builder {
+        private static final int INITIAL_CAPACITY = 16;
+
+        private int size;
+        private String[] ids = new String[INITIAL_CAPACITY];
+        private String[] titles = new String[INITIAL_CAPACITY];
+        private String[] descriptions = new String[INITIAL_CAPACITY];
+        private long[] starts = new long[INITIAL_CAPACITY];
+        private long[] ends = new long[INITIAL_CAPACITY];
+        private short[] colors = new short[INITIAL_CAPACITY];
+        private final BitSet allDay = new BitSet();
+        private final BitSet editable = new BitSet();
+
+        private final List<String> palette = new ArrayList<>();
+        private final Map<String, Short> paletteIndexes = new HashMap<>();
+        private final Set<String> knownIds = new HashSet<>();
+
+        private Builder() {
+        }
+
+        /**
+         * Adds the values of the given entry.
+         *
+         * @param entry entry
+         * @return this instance
+         * @throws NullPointerException when null is passed or the entry has no start or end
+         * @throws IllegalArgumentException when the entry id has already been added
+         */
+        public Builder add(@NotNull Entry entry) {
+            Objects.requireNonNull(entry);
+            return add(entry.getId(), entry.getTitle(), entry.getStartUTC(), entry.getEndUTC(), entry.isAllDay(), entry.isEditable(), entry.getColor(), entry.getDescription());
+        }
+
+        /**
+         * Adds an entry with the given values.
+         *
+         * @param id          id
+         * @param title       title
+         * @param start       start (UTC based)
+         * @param end         end (UTC based)
+         * @param allDay      all day entry
+         * @param editable    editable entry
+         * @param color       color or null
+         * @param description description or null
+         * @return this instance
+         * @throws NullPointerException when null is passed for id, start or end
+         * @throws IllegalArgumentException when the id has already been added or there are too many colors
+         */
+        public Builder add(@NotNull String id, String title, @NotNull Instant start, @NotNull Instant end, boolean allDay, boolean editable, String color, String description) {
+            Objects.requireNonNull(id, "id");
+            Objects.requireNonNull(start, "start");
+            Objects.requireNonNull(end, "end");
+
+            if (!knownIds.add(id)) {
+                throw new IllegalArgumentException("Duplicate entry id " + id);
+            }
+
+            ensureCapacity(size + 1);
+
+            ids[size] = id;
+            titles[size] = title;
+            descriptions[size] = description;
+            starts[size] = start.toEpochMilli();
+            ends[size] = end.toEpochMilli();
+            colors[size] = toPaletteIndex(color);
+            this.allDay.set(size, allDay);
+            this.editable.set(size, editable);
+
+            size++;
+            return this;
+        }
+
+        /**
+         * Creates a new store with the added entries.
+         *
+         * @return store
+         */
+        public ColumnarEntryStore build() {
+            return new ColumnarEntryStore(this);
+        }
+
+        private short toPaletteIndex(String color) {
+            if (color == null) {
+                return NO_COLOR;
+            }
+
+            Short index = paletteIndexes.get(color);
+            if (index == null) {
+                if (palette.size() == Short.MAX_VALUE) {
+                    throw new IllegalArgumentException("The store supports only " + Short.MAX_VALUE + " different colors");
+                }
+                index = (short) palette.size();
+                palette.add(color);
+                paletteIndexes.put(color, index);
+            }
+
+            return index;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > ids.length) {
+                int newCapacity = Math.max(capacity, ids.length * 2);
+                ids = Arrays.copyOf(ids, newCapacity);
+                titles = Arrays.copyOf(titles, newCapacity);
+                descriptions = Arrays.copyOf(descriptions, newCapacity);
+                starts = Arrays.copyOf(starts, newCapacity);
+                ends = Arrays.copyOf(ends, newCapacity);
+                colors = Arrays.copyOf(colors, newCapacity);
+            }
+        }
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2018, Stefan Uebe
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions
+ * of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.vaadin.stefan.fullcalendar;
+
+import elemental.json.*;
+
+import javax.validation.constraints.NotNull;
+import java.util.*;
+
+/**
+ * Internal encoder, that converts an array of entry json objects into a compact, column based json object. Instead
+ * of repeating the keys for each entry, each key is sent once together with the values of all entries. Null
+ * values are omitted. String columns with many repeated values (e.g. colors or resource ids) are dictionary
+ * encoded. The client side decodes the object back into an array of entry objects (see {@code _decodeEntries}
+ * in full-calendar.js).
+ * <br><br>
+ * The encoded object has the following structure:
+ * <pre>
+ * {
+ *   "length": amount of entries,
+ *   "dictionary": [strings referenced by dictionary encoded columns],
+ *   "columns": {
+ *     "key": {
+ *       "values": [values of the entries, that have a value for this key, in entry order],
+ *       "rows": [indexes of the entries, that have a value; omitted if all entries have one],
+ *       "dictionary": true, if the values (or array elements) are indexes in the dictionary
+ *     }
+ *   }
+ * }
+ * </pre>
+ * Since null values and missing keys cannot be distinguished after decoding, the encoding is only used
+ * for complete entries (e.g. added entries), not for property updates.
+ */
+final class CompactEntryEncoder {
+
+    private CompactEntryEncoder() {
+    }
+
+    /**
+     * Encodes the given array of entry json objects.
+     *
+     * @param entries entry json objects
+     * @return encoded object
+     * @throws NullPointerException when null is passed
+     */
+    static JsonObject encode(@NotNull JsonArray entries) {
+        Objects.requireNonNull(entries);
+        int length = entries.length();
+
+        // rows with a non null value per key
+        Map<String, List<Integer>> rowsByKey = new LinkedHashMap<>();
+        for (int i = 0; i < length; i++) {
+            JsonObject entry = entries.getObject(i);
+            for (String key : entry.keys()) {
+                if (!isNull(entry.get(key))) {
+                    rowsByKey.computeIfAbsent(key, k -> new ArrayList<>()).add(i);
+                }
+            }
+        }
+
+        List<String> dictionary = new ArrayList<>();
+        Map<String, Integer> dictionaryIndexes = new HashMap<>();
+
+        JsonObject columns = Json.createObject();
+        rowsByKey.forEach((key, rows) -> {
+            boolean dictionaryEncoded = isDictionaryCandidate(entries, key, rows);
+
+            JsonArray values = Json.createArray();
+            for (int row : rows) {
+                JsonValue value = entries.getObject(row).get(key);
+                if (dictionaryEncoded) {
+                    value = toDictionaryIndexes(value, dictionary, dictionaryIndexes);
+                }
+                values.set(values.length(), value);
+            }
+
+            JsonObject column = Json.createObject();
+            column.put("values", values);
+
+            if (rows.size() < length) {
+                JsonArray rowArray = Json.createArray();
+                rows.forEach(row -> rowArray.set(rowArray.length(), row));
+                column.put("rows", rowArray);
+            }
+
+            if (dictionaryEncoded) {
+                column.put("dictionary", true);
+            }
+
+            columns.put(key, column);
+        });
+
+        JsonObject json = Json.createObject();
+        json.put("length", length);
+        if (!dictionary.isEmpty()) {
+            JsonArray dictionaryArray = Json.createArray();
+            dictionary.forEach(s -> dictionaryArray.set(dictionaryArray.length(), s));
+            json.put("dictionary", dictionaryArray);
+        }
+        json.put("columns", columns);
+        return json;
+    }
+
+    /**
+     * Checks, if the column of the given key only contains strings (or arrays of strings) and at most half of
+     * them are distinct, so that a dictionary is smaller than the plain values.
+     */
+    private static boolean isDictionaryCandidate(JsonArray entries, String key, List<Integer> rows) {
+        Set<String> distinct = new HashSet<>();
+        int total = 0;
+
+        for (int row : rows) {
+            JsonValue value = entries.getObject(row).get(key);
+            if (value.getType() == JsonType.STRING) {
+                distinct.add(value.asString());
+                total++;
+            } else if (value.getType() == JsonType.ARRAY) {
+                JsonArray array = (JsonArray) value;
+                for (int i = 0; i < array.length(); i++) {
+                    JsonValue element = array.get(i);
+                    if (element.getType() != JsonType.STRING) {
+                        return false;
+                    }
+                    distinct.add(element.asString());
+                    total++;
+                }
+            } else {
+                return false;
+            }
+        }
+
+        return total > 1 && distinct.size() * 2 <= total;
+    }
+
+    private static JsonValue toDictionaryIndexes(JsonValue value, List<String> dictionary, Map<String, Integer> dictionaryIndexes) {
+        if (value.getType() == JsonType.ARRAY) {
+            JsonArray array = (JsonArray) value;
+            JsonArray indexes = Json.createArray();
+            for (int i = 0; i < array.length(); i++) {
+                indexes.set(i, toDictionaryIndex(array.getString(i), dictionary, dictionaryIndexes));
+            }
+            return indexes;
+        }
+
+        return Json.create(toDictionaryIndex(value.asString(), dictionary, dictionaryIndexes));
+    }
+
+    private static int toDictionaryIndex(String value, List<String> dictionary, Map<String, Integer> dictionaryIndexes) {
+        return dictionaryIndexes.computeIfAbsent(value, v -> {
+            dictionary.add(v);
+            return dictionary.size() - 1;
+        });
+    }
+
+    private static boolean isNull(JsonValue value) {
+        return value == null || value.getType() == JsonType.NULL;
+    }
+}
@@ -18,13 +18,11 @@ package org.vaadin.stefan.fullcalendar;
 
 import elemental.json.Json;
 import elemental.json.JsonObject;
+import elemental.json.JsonValue;
 
 import javax.validation.constraints.NotNull;
 import java.time.*;
-import java.util.Objects;
-import java.util.Optional;
-import java.util.Set;
-import java.util.UUID;
+import java.util.*;
 
 /**
  * Represents a event / item in the full calendar. It is named Entry here to prevent name conflicts with
@@ -36,6 +34,10 @@ import java.util.UUID;
  * <i><b>Note: </b>Creation of an entry might be exported to a builder later.</i>
  */
 public class Entry {
+    // json keys of properties, that the client cannot update on an existing entry
+    private static final Set<String> FULL_UPDATE_PROPERTIES = Collections.unmodifiableSet(new HashSet<>(
+            Arrays.asList("daysOfWeek", "startTime", "endTime", "startRecur", "endRecur")));
+
     private final String id;
     private boolean editable;
     private String title;
@@ -53,6 +55,14 @@ public class Entry {
     private LocalTime recurringStartTime;
     private LocalTime recurringEndTime;
 
+    // json keys of properties, that have been changed since the last sync with the client
+    private final Set<String> changedProperties = new HashSet<>();
+
+    // json of the last toCachedJson call and the client side settings it has been created with
+    private transient JsonObject cachedJson;
+    private transient Timezone cachedJsonTimezone;
+    private transient boolean cachedJsonEpochMillis;
+    private transient Set<DayOfWeek> cachedJsonDaysOfWeek;
 
     // TODO
     // groupId
@@ -177,8 +187,8 @@ public class Entry {
         boolean fullDayEvent = isAllDay();
         jsonObject.put("allDay", JsonUtils.toJsonValue(fullDayEvent));
 
-        jsonObject.put("start", JsonUtils.toJsonValue(getStartUTC() == null ? null : getStartTimezone().formatWithZoneId(getStartUTC())));
-        jsonObject.put("end", JsonUtils.toJsonValue(getEndUTC() == null ? null : getEndTimezone().formatWithZoneId(getEndUTC())));
+        jsonObject.put("start", JsonUtils.toJsonValue(toClientSideDate(getStartUTC(), getStartTimezone())));
+        jsonObject.put("end", JsonUtils.toJsonValue(toClientSideDate(getEndUTC(), getEndTimezone())));
         jsonObject.put("editable", isEditable());
         Optional.ofNullable(getColor()).ifPresent(s -> jsonObject.put("color", s));
         jsonObject.put("rendering", JsonUtils.toJsonValue(getRenderingMode()));
@@ -186,12 +196,208 @@ public class Entry {
         jsonObject.put("daysOfWeek", JsonUtils.toJsonValue(recurringDaysOfWeeks == null || recurringDaysOfWeeks.isEmpty() ? null : recurringDaysOfWeeks.stream().map(dayOfWeek -> dayOfWeek == DayOfWeek.SUNDAY ? 0 : dayOfWeek.getValue())));
         jsonObject.put("startTime", JsonUtils.toJsonValue(recurringStartTime));
         jsonObject.put("endTime", JsonUtils.toJsonValue(recurringEndTime));
-        jsonObject.put("startRecur", JsonUtils.toJsonValue(recurringStartDate == null ? null : getStartTimezone().formatWithZoneId(recurringStartDate)));
-        jsonObject.put("endRecur", JsonUtils.toJsonValue(recurringEndDate == null ? null : getEndTimezone().formatWithZoneId(recurringEndDate)));
+        jsonObject.put("startRecur", JsonUtils.toJsonValue(toClientSideDate(recurringStartDate, getStartTimezone())));
+        jsonObject.put("endRecur", JsonUtils.toJsonValue(toClientSideDate(recurringEndDate, getEndTimezone())));
+
+        return jsonObject;
+    }
+
+    /**
+     * Returns the json of this instance (see {@link #toJson()}). The json is cached and only recreated, when a
+     * property has changed (see {@link #markAsChanged(String)} and {@link #notifyChanged()}) or when the
+     * calendar's timezone or timestamp format differ from the ones the cached json has been created with. Thus
+     * sending an unchanged entry to the client several times does not serialize it again. The json is only
+     * cached, if {@link #isJsonCacheable()} returns true, otherwise it is created each time.
+     * <br><br>
+     * The returned object is shared and must not be modified.
+     *
+     * @return json
+     */
+    JsonObject toCachedJson() {
+        if (!isJsonCacheable()) {
+            return toJson();
+        }
+
+        Timezone timezone = getStartTimezone();
+        boolean epochMillis = calendar != null && calendar.isEntryTimestampsAsEpochMillis();
+        if (cachedJson == null || !timezone.equals(cachedJsonTimezone) || epochMillis != cachedJsonEpochMillis
+                || !Objects.equals(recurringDaysOfWeeks, cachedJsonDaysOfWeek)) {
+            cachedJson = toJson();
+            cachedJsonTimezone = timezone;
+            cachedJsonEpochMillis = epochMillis;
+
+            // the days of week set might be modified directly without informing this instance
+            cachedJsonDaysOfWeek = recurringDaysOfWeeks == null ? null : new HashSet<>(recurringDaysOfWeeks);
+        }
+        return cachedJson;
+    }
+
+    /**
+     * Returns, if the json of this instance may be cached (see {@link #toCachedJson()}). This is only the case for
+     * instances of this class itself, since subclasses might have properties, that are part of their json, but
+     * do not call {@link #markAsChanged(String)} or {@link #notifyChanged()}, when changed. Subclasses, that
+     * inform about all their changes, may override this method to allow caching.
+     *
+     * @return json may be cached
+     */
+    protected boolean isJsonCacheable() {
+        return getClass() == Entry.class;
+    }
+
+    /**
+     * Converts the given instant to the value sent to the client. This is either the epoch milliseconds, if the
+     * calendar sends timestamps that way (see {@link FullCalendar#setEntryTimestampsAsEpochMillis(boolean)}),
+     * or a string formatted with the given timezone.
+     *
+     * @param instant  instant (may be null)
+     * @param timezone timezone to format with
+     * @return client side value or null
+     */
+    private Object toClientSideDate(Instant instant, Timezone timezone) {
+        return toClientSideDate(instant, timezone, calendar != null && calendar.isEntryTimestampsAsEpochMillis());
+    }
+
+    private static Object toClientSideDate(Instant instant, Timezone timezone, boolean epochMillis) {
+        if (instant == null) {
+            return null;
+        }
+
+        if (epochMillis) {
+            return instant.toEpochMilli();
+        }
+
+        return timezone.formatWithZoneId(instant);
+    }
 
+    /**
+     * Converts the content of this instance to json (see {@link #toJson()}), but with the dates converted with the
+     * given timezone and format instead of the ones of the calendar. Used for entries, that are not registered
+     * in a calendar, like the ones of an {@link EntrySet}.
+     *
+     * @param timezone    timezone to format dates with
+     * @param epochMillis send dates as epoch milliseconds
+     * @return json
+     */
+    JsonObject toJson(@NotNull Timezone timezone, boolean epochMillis) {
+        Objects.requireNonNull(timezone);
+
+        JsonObject jsonObject = toJson();
+        jsonObject.put("start", JsonUtils.toJsonValue(toClientSideDate(getStartUTC(), timezone, epochMillis)));
+        jsonObject.put("end", JsonUtils.toJsonValue(toClientSideDate(getEndUTC(), timezone, epochMillis)));
+        jsonObject.put("startRecur", JsonUtils.toJsonValue(toClientSideDate(recurringStartDate, timezone, epochMillis)));
+        jsonObject.put("endRecur", JsonUtils.toJsonValue(toClientSideDate(recurringEndDate, timezone, epochMillis)));
         return jsonObject;
     }
 
+    /**
+     * Converts the properties of this instance, that have been changed since the last sync with the client, to
+     * json. The object always contains the id. Start, end and all day are always sent together, since the client
+     * needs all of them to interpret the dates. Removed values are sent as json null.
+     * <br><br>
+     * Returns the complete json, if no changes have been tracked or if the client cannot update the entry
+     * property-wise (e.g. for a changed recurrence). Without tracked changes the json is created again via
+     * {@link #toJson()}, since the entry might have been changed in an untracked way (e.g. a subclass does not
+     * call {@link #markAsChanged(String)} for its properties). The returned complete json is shared
+     * and must not be modified.
+     *
+     * @return json with changed properties
+     */
+    protected JsonObject toJsonChanges() {
+        if (changedProperties.isEmpty()) {
+            cachedJson = null;
+        }
+
+        JsonObject json = toCachedJson();
+        if (changedProperties.isEmpty() || isFullUpdateRequired(json)) {
+            return json;
+        }
+
+        Set<String> keys = new LinkedHashSet<>(changedProperties);
+        if (keys.contains("start") || keys.contains("end") || keys.contains("allDay")) {
+            keys.addAll(Arrays.asList("start", "end", "allDay"));
+        }
+
+        JsonObject changes = Json.createObject();
+        changes.put("id", json.getString("id"));
+        for (String key : keys) {
+            JsonValue value = json.hasKey(key) ? json.get(key) : Json.createNull();
+            changes.put(key, value);
+        }
+        return changes;
+    }
+
+    /**
+     * Checks, if the client has to replace the entry instead of updating single properties. This is the case
+     * when a property of {@link #getFullUpdateProperties()} or the dates of a recurring entry have changed, since
+     * the client cannot update them in place, or if the json requests a hard reset. Other properties of recurring
+     * entries are updated in place.
+     */
+    private boolean isFullUpdateRequired(JsonObject json) {
+        if (json.hasKey("_hardReset") && json.getBoolean("_hardReset")) {
+            return true;
+        }
+
+        for (String key : getFullUpdateProperties()) {
+            if (changedProperties.contains(key)) {
+                return true;
+            }
+        }
+
+        return RecurrenceExpander.isRecurring(this)
+                && (changedProperties.contains("start") || changedProperties.contains("end") || changedProperties.contains("allDay"));
+    }
+
+    /**
+     * Returns the json keys of the properties, that the client cannot update on an existing entry. When one of
+     * them has changed, {@link #toJsonChanges()} returns the complete json, so that the client can replace the
+     * entry. Subclasses may add the keys of their own properties.
+     *
+     * @return json keys of properties requiring a full update
+     */
+    protected Set<String> getFullUpdateProperties() {
+        return FULL_UPDATE_PROPERTIES;
+    }
+
+    /**
+     * Marks the property with the given json key as changed, so that it is sent to the client with the next update
+     * (see {@link #toJsonChanges()}). Subclasses should call this method in setters of properties, that are
+     * part of their json. Also invalidates the cached json (see {@link #toCachedJson()}).
+     *
+     * @param property json key of the property
+     * @throws NullPointerException when null is passed
+     */
+    protected void markAsChanged(@NotNull String property) {
+        changedProperties.add(Objects.requireNonNull(property));
+        cachedJson = null;
+    }
+
+    /**
+     * Marks the property with the given json key as synchronized with the client, so that it is not sent with the
+     * next update. Subclasses should call this method for properties, which values came from the client.
+     *
+     * @param property json key of the property
+     * @throws NullPointerException when null is passed
+     */
+    protected void markAsSynchronized(@NotNull String property) {
+        changedProperties.remove(Objects.requireNonNull(property));
+    }
+
+    /**
+     * Returns the json keys of the properties, that have been changed since the last sync with the client.
+     *
+     * @return unmodifiable set of json keys
+     */
+    protected Set<String> getChangedProperties() {
+        return Collections.unmodifiableSet(changedProperties);
+    }
+
+    /**
+     * Marks all properties as synchronized with the client.
+     */
+    void clearChangedProperties() {
+        changedProperties.clear();
+    }
+
     /**
      * Updates this instance with the content of the given object. Properties, that are not part of the object or are
      * of an invalid type will be unmodified. Same for the id. Properties in the object, that do not match with this
@@ -212,6 +418,13 @@ public class Entry {
         JsonUtils.updateDateTime(object, "start", this::setStart, getStartTimezone());
         JsonUtils.updateDateTime(object, "end", this::setEnd, getEndTimezone());
         JsonUtils.updateString(object, "color", this::setColor);
+
+        // values coming from the client do not need to be sent back
+        for (String key : new String[]{"title", "editable", "allDay", "start", "end", "color"}) {
+            if (object.hasKey(key)) {
+                markAsSynchronized(key);
+            }
+        }
     }
 
     /**
@@ -232,6 +445,37 @@ public class Entry {
         this.calendar = calendar;
     }
 
+    /**
+     * Informs the calendar (if set) about a changed start or end, so that it can keep its internal indexes
+     * up to date.
+     */
+    private void notifyTimespanChanged() {
+        if (calendar != null) {
+            calendar.onEntryTimespanChanged(this);
+        }
+    }
+
+    /**
+     * Informs the calendar (if set) about a changed recurrence, so that it can invalidate its cached occurrences.
+     */
+    private void notifyRecurrenceChanged() {
+        if (calendar != null) {
+            calendar.onEntryRecurrenceChanged(this);
+        }
+    }
+
+    /**
+     * Informs the calendar (if set) about a changed property, so that it can update its entry indexes. Subclasses
+     * should call this method, when a property, that is not part of this class, has changed. Also invalidates
+     * the cached json (see {@link #toCachedJson()}).
+     */
+    protected void notifyChanged() {
+        cachedJson = null;
+        if (calendar != null) {
+            calendar.onEntryChanged(this);
+        }
+    }
+
     /**
      * Returns the entry's id.
      *
@@ -256,7 +500,11 @@ public class Entry {
      * @param title title
      */
     public void setTitle(String title) {
-        this.title = title;
+        if (!Objects.equals(this.title, title)) {
+            this.title = title;
+            markAsChanged("title");
+            notifyChanged();
+        }
     }
 
     /**
@@ -284,7 +532,11 @@ public class Entry {
      * @param start start
      */
     public void setStart(Instant start) {
-        this.start = start;
+        if (!Objects.equals(this.start, start)) {
+            markAsChanged("start");
+            this.start = start;
+            notifyTimespanChanged();
+        }
     }
 
     /**
@@ -334,7 +586,11 @@ public class Entry {
      * @param end end
      */
     public void setEnd(Instant end) {
-        this.end = end;
+        if (!Objects.equals(this.end, end)) {
+            markAsChanged("end");
+            this.end = end;
+            notifyTimespanChanged();
+        }
     }
 
     /**
@@ -376,7 +632,11 @@ public class Entry {
      * @param allDay all day entry
      */
     public void setAllDay(boolean allDay) {
-        this.allDay = allDay;
+        if (this.allDay != allDay) {
+            this.allDay = allDay;
+            markAsChanged("allDay");
+            notifyChanged();
+        }
     }
 
     /**
@@ -396,7 +656,11 @@ public class Entry {
      * @param editable is editable
      */
     public void setEditable(boolean editable) {
-        this.editable = editable;
+        if (this.editable != editable) {
+            this.editable = editable;
+            markAsChanged("editable");
+            notifyChanged();
+        }
     }
 
     /**
@@ -411,7 +675,7 @@ public class Entry {
     public void setStart(@NotNull LocalDateTime start, @NotNull Timezone timezone) {
         Objects.requireNonNull(start, "start");
         Objects.requireNonNull(timezone, "timezone");
-        this.start = timezone.convertToUTC(start);
+        setStart(timezone.convertToUTC(start));
     }
 
     /**
@@ -426,7 +690,7 @@ public class Entry {
     public void setEnd(@NotNull LocalDateTime end, @NotNull Timezone timezone) {
         Objects.requireNonNull(end, "end");
         Objects.requireNonNull(timezone, "timezone");
-        this.end = timezone.convertToUTC(end);
+        setEnd(timezone.convertToUTC(end));
     }
 
     /**
@@ -444,7 +708,12 @@ public class Entry {
      * @param color color
      */
     public void setColor(String color) {
-        this.color = color == null || color.trim().isEmpty() ? null : color;
+        String newColor = color == null || color.trim().isEmpty() ? null : color;
+        if (!Objects.equals(this.color, newColor)) {
+            this.color = newColor;
+            markAsChanged("color");
+            notifyChanged();
+        }
     }
 
     /**
@@ -464,7 +733,11 @@ public class Entry {
      */
     public void setRenderingMode(@NotNull RenderingMode renderingMode) {
         Objects.requireNonNull(renderingMode);
-        this.renderingMode = renderingMode;
+        if (this.renderingMode != renderingMode) {
+            this.renderingMode = renderingMode;
+            markAsChanged("rendering");
+            notifyChanged();
+        }
     }
 
     /**
@@ -491,7 +764,10 @@ public class Entry {
      * @param description description
      */
     public void setDescription(String description) {
-        this.description = description;
+        if (!Objects.equals(this.description, description)) {
+            this.description = description;
+            notifyChanged();
+        }
     }
 
     /**
@@ -529,7 +805,10 @@ public class Entry {
      * @param recurring is recurring
      */
     public void setRecurring(boolean recurring) {
-        this.recurring = recurring;
+        if (this.recurring != recurring) {
+            this.recurring = recurring;
+            notifyChanged();
+        }
     }
 
     /**
@@ -548,7 +827,12 @@ public class Entry {
      * @param recurringDaysOfWeeks days of week for recurrence
      */
     public void setRecurringDaysOfWeeks(Set<DayOfWeek> recurringDaysOfWeeks) {
-        this.recurringDaysOfWeeks = recurringDaysOfWeeks;
+        // the same set might have been modified before being set again
+        if ((recurringDaysOfWeeks != null && this.recurringDaysOfWeeks == recurringDaysOfWeeks) || !Objects.equals(this.recurringDaysOfWeeks, recurringDaysOfWeeks)) {
+            markAsChanged("daysOfWeek");
+            this.recurringDaysOfWeeks = recurringDaysOfWeeks;
+            notifyRecurrenceChanged();
+        }
     }
 
     /**
@@ -567,7 +851,11 @@ public class Entry {
      * @param recurringStartDate start date or recurrence
      */
     public void setRecurringStartDate(Instant recurringStartDate) {
-        this.recurringStartDate = recurringStartDate;
+        if (!Objects.equals(this.recurringStartDate, recurringStartDate)) {
+            markAsChanged("startRecur");
+            this.recurringStartDate = recurringStartDate;
+            notifyRecurrenceChanged();
+        }
     }
 
     /**
@@ -618,7 +906,11 @@ public class Entry {
      * @param recurringEndDate end date or recurrence
      */
     public void setRecurringEndDate(Instant recurringEndDate) {
-        this.recurringEndDate = recurringEndDate;
+        if (!Objects.equals(this.recurringEndDate, recurringEndDate)) {
+            markAsChanged("endRecur");
+            this.recurringEndDate = recurringEndDate;
+            notifyRecurrenceChanged();
+        }
     }
 
     /**
@@ -668,7 +960,11 @@ public class Entry {
      * @param recurringStartTime start time or recurrence
      */
     public void setRecurringStartTime(LocalTime recurringStartTime) {
-        this.recurringStartTime = recurringStartTime;
+        if (!Objects.equals(this.recurringStartTime, recurringStartTime)) {
+            markAsChanged("startTime");
+            this.recurringStartTime = recurringStartTime;
+            notifyRecurrenceChanged();
+        }
     }
 
     /**
@@ -686,7 +982,11 @@ public class Entry {
      * @param recurringEndTime end time or recurrence
      */
     public void setRecurringEndTime(LocalTime recurringEndTime) {
-        this.recurringEndTime = recurringEndTime;
+        if (!Objects.equals(this.recurringEndTime, recurringEndTime)) {
+            markAsChanged("endTime");
+            this.recurringEndTime = recurringEndTime;
+            notifyRecurrenceChanged();
+        }
     }
 
     @Override
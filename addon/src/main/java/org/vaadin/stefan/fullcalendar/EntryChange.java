@@ -0,0 +1,126 @@
+/*
+ * Copyright 2018, Stefan Uebe
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions
+ * of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.vaadin.stefan.fullcalendar;
+
+import javax.validation.constraints.NotNull;
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A change of an entry, that is submitted to a calendar via {@link FullCalendar#submitChanges(Collection)}.
+ * Instances are immutable.
+ * <br><br>
+ * Adding and updating are both applied as "add or update": an entry with an unknown id is added, the registered
+ * entry with the same id is updated. When the passed entry is another instance than the registered one,
+ * it replaces the registered one. Passing new instances is the recommended way to submit updates from
+ * background threads, since modifying a registered entry outside of the session lock is not thread safe.
+ */
+public final class EntryChange implements Serializable {
+
+    /**
+     * The type of a change.
+     */
+    public enum Type {
+        ADD,
+        UPDATE,
+        REMOVE
+    }
+
+    private final Type type;
+    private final Entry entry;
+
+    private EntryChange(Type type, Entry entry) {
+        this.type = type;
+        this.entry = Objects.requireNonNull(entry);
+    }
+
+    /**
+     * Creates a change, that adds the given entry.
+     *
+     * @param entry entry to add
+     * @return change
+     * @throws NullPointerException when null is passed
+     */
+    public static EntryChange add(@NotNull Entry entry) {
+        return new EntryChange(Type.ADD, entry);
+    }
+
+    /**
+     * Creates a change, that updates the registered entry with the id of the given entry.
+     *
+     * @param entry entry to update
+     * @return change
+     * @throws NullPointerException when null is passed
+     */
+    public static EntryChange update(@NotNull Entry entry) {
+        return new EntryChange(Type.UPDATE, entry);
+    }
+
+    /**
+     * Creates a change, that removes the registered entry with the id of the given entry.
+     *
+     * @param entry entry to remove
+     * @return change
+     * @throws NullPointerException when null is passed
+     */
+    public static EntryChange remove(@NotNull Entry entry) {
+        return new EntryChange(Type.REMOVE, entry);
+    }
+
+    /**
+     * Returns the type of this change.
+     *
+     * @return type
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Returns the changed entry.
+     *
+     * @return entry
+     */
+    public Entry getEntry() {
+        return entry;
+    }
+
+    /**
+     * Collapses the given changes to the last change of each entry id, since adding and updating are applied
+     * the same way and removing makes previous changes obsolete. The order of the first change of each id
+     * is kept.
+     *
+     * @param changes changes in submission order
+     * @return last change of each entry id
+     */
+    static Collection<EntryChange> coalesce(Iterable<EntryChange> changes) {
+        Map<String, EntryChange> coalesced = new LinkedHashMap<>();
+        changes.forEach(change -> coalesced.put(change.getEntry().getId(), change));
+        return coalesced.values();
+    }
+
+    @Override
+    public String toString() {
+        return "EntryChange{" +
+                "type=" + type +
+                ", entry=" + entry +
+                '}';
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright 2018, Stefan Uebe
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions
+ * of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.vaadin.stefan.fullcalendar;
+
+import javax.validation.constraints.NotNull;
+import java.io.Serializable;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * Internal index of entries based on the local days they touch. The days are calculated with the timezone
+ * of this index (normally the calendar's timezone). An entry is registered in the bucket of each day it touches,
+ * which makes queries for a single day independent from the total amount of entries.
+ * <br><br>
+ * Entries spanning more than {@link #MAX_BUCKET_DAYS} days are not put into buckets, but are kept in a separate
+ * collection that is checked on each query. Entries without start or end are not indexed at all, since they can
+ * never match a timespan, that is limited on both sides.
+ * <br><br>
+ * As with the {@link EntryIntervalIndex} an entry has to be re-indexed each time its start or end changes. When
+ * the timezone changes, the index has to be rebuilt.
+ */
+final class EntryDayIndex implements Serializable {
+
+    /**
+     * The maximal amount of days an entry may span to be put into the day buckets.
+     */
+    static final int MAX_BUCKET_DAYS = 62;
+
+    private final Map<LocalDate, Set<Entry>> buckets = new HashMap<>();
+    private final Map<String, IndexedDays> indexedDays = new HashMap<>();
+    private final Map<String, Entry> longEntries = new HashMap<>();
+    private Timezone timezone;
+
+    /**
+     * Creates a new, empty index for the given timezone.
+     *
+     * @param timezone timezone
+     * @throws NullPointerException when null is passed
+     */
+    EntryDayIndex(@NotNull Timezone timezone) {
+        this.timezone = Objects.requireNonNull(timezone);
+    }
+
+    /**
+     * Returns the timezone, that is used to determine the local days of entries.
+     *
+     * @return timezone
+     */
+    Timezone getTimezone() {
+        return timezone;
+    }
+
+    /**
+     * Sets the timezone of this index and re-indexes the given entries with it. Previously indexed entries
+     * are removed.
+     *
+     * @param timezone timezone
+     * @param entries  entries to index
+     * @throws NullPointerException when null is passed
+     */
+    void rebuild(@NotNull Timezone timezone, @NotNull Collection<Entry> entries) {
+        this.timezone = Objects.requireNonNull(timezone);
+        Objects.requireNonNull(entries);
+
+        clear();
+        entries.forEach(this::put);
+    }
+
+    /**
+     * Adds the given entry to the index or updates its registered days, if it is already part of the index.
+     *
+     * @param entry entry
+     * @throws NullPointerException when null is passed
+     */
+    void put(@NotNull Entry entry) {
+        Objects.requireNonNull(entry);
+        remove(entry.getId());
+
+        Instant start = entry.getStartUTC();
+        Instant end = entry.getEndUTC();
+        if (start == null || end == null) {
+            return;
+        }
+
+        Instant first = start.isAfter(end) ? end : start;
+        Instant last = start.isAfter(end) ? start : end;
+
+        LocalDate firstDay = timezone.convertToLocalDate(first);
+        // the end is exclusive, so an entry ending at midnight does not touch the following day
+        LocalDate lastDay = last.isAfter(first) ? timezone.convertToLocalDate(last.minusNanos(1)) : firstDay;
+
+        if (ChronoUnit.DAYS.between(firstDay, lastDay) >= MAX_BUCKET_DAYS) {
+            longEntries.put(entry.getId(), entry);
+            return;
+        }
+
+        for (LocalDate day = firstDay; !day.isAfter(lastDay); day = day.plusDays(1)) {
+            buckets.computeIfAbsent(day, d -> new HashSet<>()).add(entry);
+        }
+
+        indexedDays.put(entry.getId(), new IndexedDays(entry, firstDay, lastDay));
+    }
+
+    /**
+     * Removes the entry with the given id from the index. Noop if there is no such entry.
+     *
+     * @param id entry id
+     * @throws NullPointerException when null is passed
+     */
+    void remove(@NotNull String id) {
+        Objects.requireNonNull(id);
+        if (longEntries.remove(id) != null) {
+            return;
+        }
+
+        IndexedDays days = indexedDays.remove(id);
+        if (days != null) {
+            for (LocalDate day = days.firstDay; !day.isAfter(days.lastDay); day = day.plusDays(1)) {
+                Set<Entry> bucket = buckets.get(day);
+                if (bucket != null) {
+                    bucket.remove(days.entry);
+                    if (bucket.isEmpty()) {
+                        buckets.remove(day);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes all entries from the index.
+     */
+    void clear() {
+        buckets.clear();
+        indexedDays.clear();
+        longEntries.clear();
+    }
+
+    /**
+     * Returns all entries, which timespan crosses the given timespan. Both limits are exclusive, as described
+     * in {@link FullCalendar#getEntries(Instant, Instant)}. The index is intended for short timespans (like a day),
+     * since all buckets of the days between the given limits are checked.
+     *
+     * @param filterStart start point of filter timespan
+     * @param filterEnd   end point of filter timespan
+     * @return entries
+     * @throws NullPointerException when null is passed
+     */
+    List<Entry> getEntries(@NotNull Instant filterStart, @NotNull Instant filterEnd) {
+        Objects.requireNonNull(filterStart);
+        Objects.requireNonNull(filterEnd);
+
+        Set<Entry> candidates = new LinkedHashSet<>();
+
+        if (filterEnd.isAfter(filterStart)) {
+            LocalDate firstDay = timezone.convertToLocalDate(filterStart);
+            LocalDate lastDay = timezone.convertToLocalDate(filterEnd.minusNanos(1));
+            for (LocalDate day = firstDay; !day.isAfter(lastDay); day = day.plusDays(1)) {
+                Set<Entry> bucket = buckets.get(day);
+                if (bucket != null) {
+                    candidates.addAll(bucket);
+                }
+            }
+        }
+
+        candidates.addAll(longEntries.values());
+
+        List<Entry> list = new ArrayList<>();
+        for (Entry entry : candidates) {
+            Instant start = entry.getStartUTC();
+            Instant end = entry.getEndUTC();
+            if (start != null && end != null && end.isAfter(filterStart) && start.isBefore(filterEnd)) {
+                list.add(entry);
+            }
+        }
+        return list;
+    }
+
+    private static final class IndexedDays implements Serializable {
+        private final Entry entry;
+        private final LocalDate firstDay;
+        private final LocalDate lastDay;
+
+        private IndexedDays(Entry entry, LocalDate firstDay, LocalDate lastDay) {
+            this.entry = entry;
+            this.firstDay = firstDay;
+            this.lastDay = lastDay;
+        }
+    }
+}
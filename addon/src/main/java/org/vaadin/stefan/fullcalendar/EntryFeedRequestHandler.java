@@ -0,0 +1,218 @@
+/*
+ * Copyright 2018, Stefan Uebe
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions
+ * of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.vaadin.stefan.fullcalendar;
+
+import com.vaadin.flow.server.SynchronizedRequestHandler;
+import com.vaadin.flow.server.VaadinRequest;
+import com.vaadin.flow.server.VaadinResponse;
+import com.vaadin.flow.server.VaadinSession;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Session scoped request handler, that serves the entries of a calendar's data provider as a json feed. The
+ * client side fetches the entries of the visible timespan via a plain http GET request instead of the UIDL channel.
+ * <br><br>
+ * The response carries an ETag, that is calculated from the served json. A request with a matching
+ * {@code If-None-Match} header is answered with a 304, so a browser revisiting an unchanged timespan takes the entries
+ * from its cache. The entries are serialized only once, the same bytes are hashed and written into the
+ * (gzipped, if accepted) response.
+ * <br><br>
+ * The served entries are not registered in the calendar. The handler remembers the entries of the last request
+ * instead, so that they can be found by their id (see {@link #getServedEntry(String)}).
+ */
+class EntryFeedRequestHandler extends SynchronizedRequestHandler {
+
+    static final String PATH_PREFIX = "fullcalendar-feed/";
+
+    private final FullCalendar calendar;
+    private final String path;
+    private Map<String, Entry> servedEntries = Collections.emptyMap();
+
+    EntryFeedRequestHandler(FullCalendar calendar) {
+        this.calendar = calendar;
+        this.path = PATH_PREFIX + UUID.randomUUID();
+    }
+
+    /**
+     * Returns the url of the feed relative to the application root.
+     *
+     * @return url
+     */
+    String getUrl() {
+        return path;
+    }
+
+    @Override
+    protected boolean canHandleRequest(VaadinRequest request) {
+        String pathInfo = request.getPathInfo();
+        return pathInfo != null && pathInfo.equals("/" + path);
+    }
+
+    @Override
+    public boolean synchronizedHandleRequest(VaadinSession session, VaadinRequest request, VaadinResponse response) throws IOException {
+        String start = request.getParameter("start");
+        String end = request.getParameter("end");
+        if (start == null || end == null) {
+            response.sendError(400, "Parameters start and end are required");
+            return true;
+        }
+
+        byte[] json;
+        try {
+            json = fetchEntries(start, end);
+        } catch (DateTimeParseException e) {
+            response.sendError(400, "Could not parse timespan: " + e.getMessage());
+            return true;
+        }
+
+        String eTag = createETag(json);
+        response.setHeader("ETag", eTag);
+        response.setHeader("Cache-Control", "private, no-cache");
+        response.setHeader("Vary", "Accept-Encoding");
+
+        if (matchesETag(request.getHeader("If-None-Match"), eTag)) {
+            response.setStatus(304);
+            return true;
+        }
+
+        response.setStatus(200);
+        response.setContentType("application/json;charset=UTF-8");
+
+        String acceptEncoding = request.getHeader("Accept-Encoding");
+        if (acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip")) {
+            response.setHeader("Content-Encoding", "gzip");
+            try (OutputStream out = new GZIPOutputStream(response.getOutputStream())) {
+                out.write(json);
+            }
+        } else {
+            try (OutputStream out = response.getOutputStream()) {
+                out.write(json);
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Fetches the entries of the given timespan from the calendar's data provider and serializes them as json
+     * array. The entries are remembered as the served ones, but not registered in the calendar.
+     *
+     * @param start start of the timespan as iso string
+     * @param end   end of the timespan as iso string
+     * @return utf-8 encoded json
+     * @throws IOException when writing fails
+     */
+    byte[] fetchEntries(String start, String end) throws IOException {
+        List<Entry> entries = calendar.queryDataProvider(start, end);
+
+        Map<String, Entry> served = new HashMap<>();
+        entries.forEach(entry -> served.put(entry.getId(), entry));
+        servedEntries = served;
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeEntries(entries, out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Returns the entry with the given id, if it has been served with the last request.
+     *
+     * @param id id
+     * @return entry or empty
+     */
+    Optional<Entry> getServedEntry(String id) {
+        return Optional.ofNullable(servedEntries.get(id));
+    }
+
+    /**
+     * Creates an ETag for the given json. The tag covers the json representation of all served entries and
+     * thus changes with any client side relevant change, e.g. of the calendar's timezone.
+     *
+     * @param json served json
+     * @return quoted ETag
+     */
+    static String createETag(byte[] json) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // every java platform has to support SHA-256
+            throw new IllegalStateException(e);
+        }
+
+        return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(digest.digest(json)) + "\"";
+    }
+
+    /**
+     * Checks, if the given value of an {@code If-None-Match} header matches the ETag. Weak tags are compared
+     * weakly, since proxies may weaken tags of compressed responses.
+     *
+     * @param ifNoneMatch header value or null
+     * @param eTag        quoted ETag
+     * @return header matches
+     */
+    static boolean matchesETag(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+
+            if (candidate.equals("*") || candidate.equals(eTag)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Writes the given entries as a json array into the output stream. Each entry is serialized on its own,
+     * so no json array of all entries is created.
+     *
+     * @param entries entries
+     * @param out     output stream
+     * @throws IOException when writing fails
+     */
+    static void writeEntries(Iterable<Entry> entries, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write('[');
+
+        boolean first = true;
+        for (Entry entry : entries) {
+            if (!first) {
+                writer.write(',');
+            }
+            writer.write(entry.toCachedJson().toJson());
+            first = false;
+        }
+
+        writer.write(']');
+        writer.flush();
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2018, Stefan Uebe
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions
+ * of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.vaadin.stefan.fullcalendar;
+
+import com.vaadin.flow.function.SerializableFunction;
+
+import javax.validation.constraints.NotNull;
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * A secondary index of the entries of a calendar, which groups the entries by keys taken from the entries
+ * themselves (e.g. their color, rendering mode or resources). Instances are created via
+ * {@link FullCalendar#addEntryIndex(SerializableFunction)} or
+ * {@link FullCalendar#addMultiKeyEntryIndex(SerializableFunction)} and are kept up to date by the calendar when
+ * entries are added, updated or removed or when an entry property changes.
+ * <br><br>
+ * Each key has its own timespan index, so that looking up the entries of a key takes O(k) and can be combined
+ * with a timespan filter without scanning other entries. Null is a valid key.
+ * <br><br>
+ * Only entries registered in the calendar are indexed, entries of mounted {@link EntrySet}s are not part of
+ * the index.
+ *
+ * @param <K> key type
+ */
+public final class EntryIndex<K> implements Serializable {
+
+    private final SerializableFunction<Entry, Collection<K>> keysExtractor;
+    private final Map<K, EntryIntervalIndex> entriesByKey = new HashMap<>();
+    private final Map<String, Set<K>> keysById = new HashMap<>();
+
+    EntryIndex(@NotNull SerializableFunction<Entry, Collection<K>> keysExtractor) {
+        this.keysExtractor = Objects.requireNonNull(keysExtractor);
+    }
+
+    /**
+     * Adds the given entry to the index or updates its keys and timespan, if it is already part of the index.
+     *
+     * @param entry entry
+     */
+    void put(Entry entry) {
+        Collection<K> extractedKeys = keysExtractor.apply(entry);
+        Set<K> keys = extractedKeys == null ? Collections.emptySet() : new LinkedHashSet<>(extractedKeys);
+
+        Set<K> oldKeys = keysById.put(entry.getId(), keys);
+        if (oldKeys != null) {
+            for (K oldKey : oldKeys) {
+                if (!keys.contains(oldKey)) {
+                    removeFromKey(oldKey, entry.getId());
+                }
+            }
+        }
+
+        for (K key : keys) {
+            entriesByKey.computeIfAbsent(key, k -> new EntryIntervalIndex()).put(entry);
+        }
+    }
+
+    /**
+     * Removes the entry with the given id from the index. Noop if there is no such entry.
+     *
+     * @param id entry id
+     */
+    void remove(String id) {
+        Set<K> keys = keysById.remove(id);
+        if (keys != null) {
+            for (K key : keys) {
+                removeFromKey(key, id);
+            }
+        }
+    }
+
+    /**
+     * Removes all entries from the index.
+     */
+    void clear() {
+        entriesByKey.clear();
+        keysById.clear();
+    }
+
+    private void removeFromKey(K key, String id) {
+        EntryIntervalIndex index = entriesByKey.get(key);
+        if (index != null) {
+            index.remove(id);
+            if (index.size() == 0) {
+                entriesByKey.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Returns all keys, that at least one indexed entry has.
+     *
+     * @return unmodifiable set of keys
+     */
+    public Set<K> getKeys() {
+        return Collections.unmodifiableSet(entriesByKey.keySet());
+    }
+
+    /**
+     * Returns the keys, under which the given entry is indexed. Returns an empty set, if the entry is not
+     * part of the index.
+     *
+     * @param entry entry
+     * @return unmodifiable set of keys
+     * @throws NullPointerException when null is passed
+     */
+    public Set<K> getKeys(@NotNull Entry entry) {
+        Objects.requireNonNull(entry);
+        Set<K> keys = keysById.get(entry.getId());
+        return keys == null ? Collections.emptySet() : Collections.unmodifiableSet(keys);
+    }
+
+    /**
+     * Returns all entries, that are indexed under the given key, ordered by their start.
+     *
+     * @param key key (may be null)
+     * @return entries
+     */
+    public List<Entry> getEntries(K key) {
+        return getEntries(key, null, null);
+    }
+
+    /**
+     * Returns all entries, that are indexed under the given key and which timespan crosses the given timespan.
+     * Entries are ordered by their start. Filter semantics are the same as for
+     * {@link FullCalendar#getEntries(Instant, Instant)}. Null can be passed for one or both of the limits to have
+     * the search unlimited on that side.
+     *
+     * @param key         key (may be null)
+     * @param filterStart start point of filter timespan or null to have no limit
+     * @param filterEnd   end point of filter timespan or null to have no limit
+     * @return entries
+     */
+    public List<Entry> getEntries(K key, Instant filterStart, Instant filterEnd) {
+        EntryIntervalIndex index = entriesByKey.get(key);
+        return index == null ? Collections.emptyList() : index.getEntries(filterStart, filterEnd);
+    }
+
+    /**
+     * Returns the amount of entries, that are indexed under the given key.
+     *
+     * @param key key (may be null)
+     * @return amount of entries
+     */
+    public int countEntries(K key) {
+        return countEntries(key, null, null);
+    }
+
+    /**
+     * Returns the amount of entries, that are indexed under the given key and which timespan crosses
+     * the given timespan.
+     *
+     * @param key         key (may be null)
+     * @param filterStart start point of filter timespan or null to have no limit
+     * @param filterEnd   end point of filter timespan or null to have no limit
+     * @return amount of entries
+     */
+    public int countEntries(K key, Instant filterStart, Instant filterEnd) {
+        EntryIntervalIndex index = entriesByKey.get(key);
+        return index == null ? 0 : index.count(filterStart, filterEnd);
+    }
+}
@@ -0,0 +1,513 @@
+/*
+ * Copyright 2018, Stefan Uebe
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions
+ * of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.vaadin.stefan.fullcalendar;
+
+import com.vaadin.flow.function.SerializableFunction;
+
+import javax.validation.constraints.NotNull;
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Internal index of entries based on their UTC start and end (or another timespan of the entries, like the
+ * bounds of their recurrence). Entries are kept in a balanced (AVL) tree, ordered
+ * by start and id, where each node knows the latest end of its subtree. This allows timespan queries in
+ * O(log n + k) without copying or scanning all registered entries.
+ * <br><br>
+ * The index stores the start and end, that an entry had, when it has been indexed. Therefore an entry has to be
+ * re-indexed via {@link #put(Entry)} each time its start or end changes.
+ * <br><br>
+ * Matching follows the semantics of {@link FullCalendar#getEntries(Instant, Instant)}: filter and entry times are
+ * exclusive and entries without a start (or end) never match a filter with an end (or start).
+ */
+final class EntryIntervalIndex implements Serializable {
+
+    private static final Comparator<Node> NODE_ORDER = Comparator.<Node, Instant>comparing(n -> n.start)
+            .thenComparing(n -> n.entry.getId());
+
+    private final Map<String, Node> nodesById = new HashMap<>();
+    private final Map<String, Entry> entriesWithoutStart = new LinkedHashMap<>();
+    private final SerializableFunction<Entry, Instant> startGetter;
+    private final SerializableFunction<Entry, Instant> endGetter;
+    private Node root;
+
+    /**
+     * Creates an index over the start and end of entries.
+     */
+    EntryIntervalIndex() {
+        this(Entry::getStartUTC, Entry::getEndUTC);
+    }
+
+    /**
+     * Creates an index over the timespan of entries defined by the given functions.
+     *
+     * @param startGetter returns the start of an entry's timespan (may return null)
+     * @param endGetter   returns the end of an entry's timespan (may return null)
+     * @throws NullPointerException when null is passed
+     */
+    EntryIntervalIndex(@NotNull SerializableFunction<Entry, Instant> startGetter, @NotNull SerializableFunction<Entry, Instant> endGetter) {
+        this.startGetter = Objects.requireNonNull(startGetter);
+        this.endGetter = Objects.requireNonNull(endGetter);
+    }
+
+    /**
+     * Adds the given entry to the index or updates its indexed timespan, if it is already part of the index.
+     *
+     * @param entry entry
+     * @throws NullPointerException when null is passed
+     */
+    void put(@NotNull Entry entry) {
+        Objects.requireNonNull(entry);
+        remove(entry.getId());
+
+        Instant start = startGetter.apply(entry);
+        if (start == null) {
+            entriesWithoutStart.put(entry.getId(), entry);
+        } else {
+            Node node = new Node(entry, start, endGetter.apply(entry));
+            nodesById.put(entry.getId(), node);
+            root = insert(root, node);
+        }
+    }
+
+    /**
+     * Removes the entry with the given id from the index. Noop if there is no such entry.
+     *
+     * @param id entry id
+     * @throws NullPointerException when null is passed
+     */
+    void remove(@NotNull String id) {
+        Objects.requireNonNull(id);
+        if (entriesWithoutStart.remove(id) == null) {
+            Node node = nodesById.remove(id);
+            if (node != null) {
+                root = delete(root, node);
+            }
+        }
+    }
+
+    /**
+     * Removes all entries from the index.
+     */
+    void clear() {
+        nodesById.clear();
+        entriesWithoutStart.clear();
+        root = null;
+    }
+
+    /**
+     * Returns the amount of indexed entries.
+     *
+     * @return size
+     */
+    int size() {
+        return nodesById.size() + entriesWithoutStart.size();
+    }
+
+    /**
+     * Passes all entries, which timespan crosses the given timespan, to the given consumer. Entries are passed
+     * ordered by their start, entries without a start come first. Null can be passed for one or both of the
+     * limits to have the search unlimited on that side.
+     *
+     * @param filterStart start point of filter timespan or null to have no limit
+     * @param filterEnd   end point of filter timespan or null to have no limit
+     * @param consumer    consumer
+     * @throws NullPointerException when null is passed for the consumer
+     */
+    void forEachInRange(Instant filterStart, Instant filterEnd, @NotNull Consumer<Entry> consumer) {
+        Objects.requireNonNull(consumer);
+
+        if (filterEnd == null) {
+            for (Entry entry : entriesWithoutStart.values()) {
+                Instant end = endGetter.apply(entry);
+                if (filterStart == null || (end != null && end.isAfter(filterStart))) {
+                    consumer.accept(entry);
+                }
+            }
+        }
+
+        collect(root, filterStart, filterEnd, consumer);
+    }
+
+    /**
+     * Returns all entries, which timespan crosses the given timespan. See
+     * {@link #forEachInRange(Instant, Instant, Consumer)} for details.
+     *
+     * @param filterStart start point of filter timespan or null to have no limit
+     * @param filterEnd   end point of filter timespan or null to have no limit
+     * @return entries
+     */
+    List<Entry> getEntries(Instant filterStart, Instant filterEnd) {
+        List<Entry> list = new ArrayList<>();
+        forEachInRange(filterStart, filterEnd, list::add);
+        return list;
+    }
+
+    /**
+     * Returns the amount of entries, which timespan crosses the given timespan. See
+     * {@link #forEachInRange(Instant, Instant, Consumer)} for details.
+     *
+     * @param filterStart start point of filter timespan or null to have no limit
+     * @param filterEnd   end point of filter timespan or null to have no limit
+     * @return amount of matching entries
+     */
+    int count(Instant filterStart, Instant filterEnd) {
+        if (filterStart == null && filterEnd == null) {
+            return size();
+        }
+
+        int[] count = {0};
+        forEachInRange(filterStart, filterEnd, e -> count[0]++);
+        return count[0];
+    }
+
+    /**
+     * Returns an iterator over all entries, which timespan crosses the given timespan. The iterator walks the
+     * index lazily in the same order as {@link #forEachInRange(Instant, Instant, Consumer)}, so no entries are
+     * copied. The index must not be modified while iterating.
+     *
+     * @param filterStart start point of filter timespan or null to have no limit
+     * @param filterEnd   end point of filter timespan or null to have no limit
+     * @return iterator
+     */
+    Iterator<Entry> iterator(Instant filterStart, Instant filterEnd) {
+        return new RangeIterator(filterStart, filterEnd);
+    }
+
+    /**
+     * Checks, if the timespan of the given entry crosses the given timespan. Uses the same semantics as the
+     * index queries, e.g. {@link #forEachInRange(Instant, Instant, Consumer)}.
+     *
+     * @param entry       entry
+     * @param filterStart start point of filter timespan or null to have no limit
+     * @param filterEnd   end point of filter timespan or null to have no limit
+     * @return entry matches
+     */
+    static boolean matches(@NotNull Entry entry, Instant filterStart, Instant filterEnd) {
+        Instant start = entry.getStartUTC();
+        Instant end = entry.getEndUTC();
+
+        if (filterEnd != null && (start == null || !start.isBefore(filterEnd))) {
+            return false;
+        }
+
+        return filterStart == null || (end != null && end.isAfter(filterStart));
+    }
+
+    /**
+     * Merges the given iterators, which have to be ordered by entry start (entries without start first), into
+     * one iterator with the same order.
+     *
+     * @param iterators iterators to merge
+     * @return merged iterator
+     */
+    static Iterator<Entry> mergeSorted(@NotNull List<Iterator<Entry>> iterators) {
+        if (iterators.size() == 1) {
+            return iterators.get(0);
+        }
+
+        PriorityQueue<PeekingIterator> queue = new PriorityQueue<>(Math.max(1, iterators.size()),
+                Comparator.comparing(i -> i.peek().getStartUTC(), Comparator.nullsFirst(Comparator.naturalOrder())));
+        for (Iterator<Entry> iterator : iterators) {
+            if (iterator.hasNext()) {
+                queue.add(new PeekingIterator(iterator));
+            }
+        }
+
+        return new Iterator<Entry>() {
+            @Override
+            public boolean hasNext() {
+                return !queue.isEmpty();
+            }
+
+            @Override
+            public Entry next() {
+                PeekingIterator iterator = queue.poll();
+                if (iterator == null) {
+                    throw new NoSuchElementException();
+                }
+
+                Entry entry = iterator.next();
+                if (iterator.hasNext()) {
+                    queue.add(iterator);
+                }
+                return entry;
+            }
+        };
+    }
+
+    private static void collect(Node node, Instant filterStart, Instant filterEnd, Consumer<Entry> consumer) {
+        if (node == null) {
+            return;
+        }
+
+        // no entry in this subtree ends after the filter start
+        if (filterStart != null && (node.maxEnd == null || !node.maxEnd.isAfter(filterStart))) {
+            return;
+        }
+
+        collect(node.left, filterStart, filterEnd, consumer);
+
+        // this node and its right subtree start at or after the filter end
+        if (filterEnd != null && !node.start.isBefore(filterEnd)) {
+            return;
+        }
+
+        if (filterStart == null || (node.end != null && node.end.isAfter(filterStart))) {
+            consumer.accept(node.entry);
+        }
+
+        collect(node.right, filterStart, filterEnd, consumer);
+    }
+
+    private static Node insert(Node node, Node newNode) {
+        if (node == null) {
+            return newNode;
+        }
+
+        if (NODE_ORDER.compare(newNode, node) < 0) {
+            node.left = insert(node.left, newNode);
+        } else {
+            node.right = insert(node.right, newNode);
+        }
+
+        return balance(node);
+    }
+
+    private static Node delete(Node node, Node toDelete) {
+        if (node == null) {
+            return null;
+        }
+
+        if (node != toDelete) {
+            if (NODE_ORDER.compare(toDelete, node) < 0) {
+                node.left = delete(node.left, toDelete);
+            } else {
+                node.right = delete(node.right, toDelete);
+            }
+            return balance(node);
+        }
+
+        if (node.left == null) {
+            return node.right;
+        }
+
+        if (node.right == null) {
+            return node.left;
+        }
+
+        // replace the node with the smallest node of its right subtree
+        Node successor = node.right;
+        while (successor.left != null) {
+            successor = successor.left;
+        }
+
+        successor.right = deleteMin(node.right);
+        successor.left = node.left;
+        return balance(successor);
+    }
+
+    private static Node deleteMin(Node node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        node.left = deleteMin(node.left);
+        return balance(node);
+    }
+
+    private static Node balance(Node node) {
+        update(node);
+        int balance = height(node.left) - height(node.right);
+
+        if (balance > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+
+        if (balance < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+
+        return node;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node left = node.left;
+        node.left = left.right;
+        left.right = node;
+        update(node);
+        update(left);
+        return left;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node right = node.right;
+        node.right = right.left;
+        right.left = node;
+        update(node);
+        update(right);
+        return right;
+    }
+
+    private static void update(Node node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+
+        Instant maxEnd = node.end;
+        if (node.left != null) {
+            maxEnd = later(maxEnd, node.left.maxEnd);
+        }
+        if (node.right != null) {
+            maxEnd = later(maxEnd, node.right.maxEnd);
+        }
+        node.maxEnd = maxEnd;
+    }
+
+    private static Instant later(Instant a, Instant b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        return a.isAfter(b) ? a : b;
+    }
+
+    private static int height(Node node) {
+        return node != null ? node.height : 0;
+    }
+
+    private final class RangeIterator implements Iterator<Entry> {
+        private final Instant filterStart;
+        private final Instant filterEnd;
+        private final Iterator<Entry> withoutStart;
+        private final Deque<Node> stack = new ArrayDeque<>();
+        private Entry next;
+
+        private RangeIterator(Instant filterStart, Instant filterEnd) {
+            this.filterStart = filterStart;
+            this.filterEnd = filterEnd;
+            this.withoutStart = filterEnd == null ? entriesWithoutStart.values().iterator() : Collections.emptyIterator();
+            pushLeft(root);
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Entry next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+
+            Entry entry = next;
+            advance();
+            return entry;
+        }
+
+        private void advance() {
+            next = null;
+
+            while (withoutStart.hasNext()) {
+                Entry entry = withoutStart.next();
+                Instant end = endGetter.apply(entry);
+                if (filterStart == null || (end != null && end.isAfter(filterStart))) {
+                    next = entry;
+                    return;
+                }
+            }
+
+            while (!stack.isEmpty()) {
+                Node node = stack.pop();
+
+                // this node and all following nodes start at or after the filter end
+                if (filterEnd != null && !node.start.isBefore(filterEnd)) {
+                    stack.clear();
+                    return;
+                }
+
+                pushLeft(node.right);
+
+                if (filterStart == null || (node.end != null && node.end.isAfter(filterStart))) {
+                    next = node.entry;
+                    return;
+                }
+            }
+        }
+
+        private void pushLeft(Node node) {
+            // no entry in a subtree ends after the filter start, so the subtree is skipped
+            while (node != null && (filterStart == null || (node.maxEnd != null && node.maxEnd.isAfter(filterStart)))) {
+                stack.push(node);
+                node = node.left;
+            }
+        }
+    }
+
+    private static final class PeekingIterator implements Iterator<Entry> {
+        private final Iterator<Entry> iterator;
+        private Entry peeked;
+
+        private PeekingIterator(Iterator<Entry> iterator) {
+            this.iterator = iterator;
+            this.peeked = iterator.next();
+        }
+
+        private Entry peek() {
+            return peeked;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return peeked != null;
+        }
+
+        @Override
+        public Entry next() {
+            Entry entry = peeked;
+            peeked = iterator.hasNext() ? iterator.next() : null;
+            return entry;
+        }
+    }
+
+    private static final class Node implements Serializable {
+        private final Entry entry;
+        private final Instant start;
+        private final Instant end;
+
+        private Instant maxEnd;
+        private int height = 1;
+        private Node left;
+        private Node right;
+
+        private Node(Entry entry, Instant start, Instant end) {
+            this.entry = entry;
+            this.start = start;
+            this.end = end;
+            this.maxEnd = end;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2018, Stefan Uebe
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions
+ * of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.vaadin.stefan.fullcalendar;
+
+import com.vaadin.flow.component.ComponentEvent;
+
+/**
+ * This event gets fired, when entries are loaded progressively (see
+ * {@link FullCalendar#setProgressiveLoadingChunkSize(int)}) and a chunk of entries has been sent to the client.
+ * It is also fired once, when the progressive loading starts, with no entries loaded.
+ */
+public class EntryLoadingProgressEvent extends ComponentEvent<FullCalendar> {
+
+    private final int loadedEntries;
+    private final int totalEntries;
+
+    /**
+     * Creates a new event using the given source and indicator whether the
+     * event originated from the client side or the server side.
+     *
+     * @param source        the source component
+     * @param fromClient    <code>true</code> if the event originated from the client
+     * @param loadedEntries amount of entries sent to the client
+     * @param totalEntries  amount of entries to be sent in total
+     */
+    public EntryLoadingProgressEvent(FullCalendar source, boolean fromClient, int loadedEntries, int totalEntries) {
+        super(source, fromClient);
+        this.loadedEntries = loadedEntries;
+        this.totalEntries = totalEntries;
+    }
+
+    /**
+     * Returns the amount of entries, that have been sent to the client so far.
+     *
+     * @return loaded entries
+     */
+    public int getLoadedEntries() {
+        return loadedEntries;
+    }
+
+    /**
+     * Returns the amount of entries, that are sent to the client in total. Entries added during the
+     * progressive loading are included.
+     *
+     * @return total entries
+     */
+    public int getTotalEntries() {
+        return totalEntries;
+    }
+
+    /**
+     * Returns, if all entries have been sent to the client.
+     *
+     * @return loading is completed
+     */
+    public boolean isCompleted() {
+        return loadedEntries >= totalEntries;
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2018, Stefan Uebe
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions
+ * of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.vaadin.stefan.fullcalendar;
+
+import javax.validation.constraints.NotNull;
+import java.io.Serializable;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Internal inverted index over the title and description of entries. Both texts are split into lower case
+ * tokens (sequences of letters and digits), each token maps to the ids of the entries containing it.
+ * Tokens are kept sorted, so that prefix queries only touch the tokens starting with the prefix.
+ * <br><br>
+ * The index stores the tokens, that an entry had, when it has been indexed. Therefore an entry has to be
+ * re-indexed via {@link #put(Entry)} each time its title or description changes.
+ */
+final class EntrySearchIndex implements Serializable {
+
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+
+    private final NavigableMap<String, Set<String>> idsByToken = new TreeMap<>();
+    private final Map<String, Set<String>> tokensById = new HashMap<>();
+
+    /**
+     * Adds the given entry to the index or updates its tokens, if it is already part of the index.
+     *
+     * @param entry entry
+     * @throws NullPointerException when null is passed
+     */
+    void put(@NotNull Entry entry) {
+        Objects.requireNonNull(entry);
+        String id = entry.getId();
+
+        Set<String> tokens = new HashSet<>();
+        addTokens(entry.getTitle(), tokens);
+        addTokens(entry.getDescription(), tokens);
+
+        Set<String> oldTokens = tokens.isEmpty() ? tokensById.remove(id) : tokensById.put(id, tokens);
+        if (oldTokens != null) {
+            for (String oldToken : oldTokens) {
+                if (!tokens.contains(oldToken)) {
+                    removeFromToken(oldToken, id);
+                }
+            }
+        }
+
+        for (String token : tokens) {
+            idsByToken.computeIfAbsent(token, t -> new HashSet<>()).add(id);
+        }
+    }
+
+    /**
+     * Removes the entry with the given id from the index. Noop if there is no such entry.
+     *
+     * @param id entry id
+     */
+    void remove(String id) {
+        Set<String> tokens = tokensById.remove(id);
+        if (tokens != null) {
+            for (String token : tokens) {
+                removeFromToken(token, id);
+            }
+        }
+    }
+
+    /**
+     * Removes all entries from the index.
+     */
+    void clear() {
+        idsByToken.clear();
+        tokensById.clear();
+    }
+
+    private void removeFromToken(String token, String id) {
+        Set<String> ids = idsByToken.get(token);
+        if (ids != null) {
+            ids.remove(id);
+            if (ids.isEmpty()) {
+                idsByToken.remove(token);
+            }
+        }
+    }
+
+    /**
+     * Returns the ids of all entries, that match the given query. The query is split into tokens the same way
+     * as the entry texts. An entry matches, if each query token is a prefix of at least one of its tokens.
+     * A query without any tokens matches no entry.
+     *
+     * @param query query
+     * @return ids of matching entries
+     * @throws NullPointerException when null is passed
+     */
+    Set<String> search(@NotNull String query) {
+        Objects.requireNonNull(query);
+
+        Set<String> queryTokens = new HashSet<>();
+        addTokens(query, queryTokens);
+
+        List<Set<String>> matchesPerToken = new ArrayList<>(queryTokens.size());
+        for (String prefix : queryTokens) {
+            Set<String> matches = new HashSet<>();
+            for (Set<String> ids : withPrefix(prefix).values()) {
+                matches.addAll(ids);
+            }
+
+            if (matches.isEmpty()) {
+                return Collections.emptySet();
+            }
+            matchesPerToken.add(matches);
+        }
+
+        if (matchesPerToken.isEmpty()) {
+            return Collections.emptySet();
+        }
+
+        // intersect, starting with the smallest set
+        matchesPerToken.sort(Comparator.comparingInt(Set::size));
+        Set<String> result = matchesPerToken.get(0);
+        for (int i = 1; i < matchesPerToken.size() && !result.isEmpty(); i++) {
+            result.retainAll(matchesPerToken.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Checks, if the given entry matches the given query, without using an index. Uses the same semantics
+     * as {@link #search(String)}.
+     *
+     * @param entry entry
+     * @param query query
+     * @return entry matches
+     * @throws NullPointerException when null is passed
+     */
+    static boolean matches(@NotNull Entry entry, @NotNull String query) {
+        Objects.requireNonNull(entry);
+        Objects.requireNonNull(query);
+
+        Set<String> queryTokens = new HashSet<>();
+        addTokens(query, queryTokens);
+        if (queryTokens.isEmpty()) {
+            return false;
+        }
+
+        Set<String> tokens = new HashSet<>();
+        addTokens(entry.getTitle(), tokens);
+        addTokens(entry.getDescription(), tokens);
+
+        return queryTokens.stream().allMatch(prefix -> tokens.stream().anyMatch(token -> token.startsWith(prefix)));
+    }
+
+    private SortedMap<String, Set<String>> withPrefix(String prefix) {
+        return idsByToken.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+
+    /**
+     * Splits the given text into lower case tokens and adds them to the given set.
+     *
+     * @param text   text (may be null)
+     * @param tokens set to add the tokens to
+     */
+    static void addTokens(String text, Set<String> tokens) {
+        if (text != null && !text.isEmpty()) {
+            for (String token : TOKEN_SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+                if (!token.isEmpty()) {
+                    tokens.add(token);
+                }
+            }
+        }
+    }
+}
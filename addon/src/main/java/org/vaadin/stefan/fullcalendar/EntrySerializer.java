@@ -0,0 +1,150 @@
+/*
+ * Copyright 2018, Stefan Uebe
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions
+ * of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.vaadin.stefan.fullcalendar;
+
+import elemental.json.Json;
+import elemental.json.JsonArray;
+import elemental.json.JsonObject;
+
+import javax.validation.constraints.NotNull;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+/**
+ * Internal helper, that converts entries to a json array. Batches, that reach the parallel threshold, are split into
+ * chunks, which are converted in parallel by the executor. The resulting array keeps the order of the given entries.
+ * <br><br>
+ * The calling thread waits for all chunks to be converted, so the entries must not be modified meanwhile. This is the
+ * case, when the conversion is done while holding the session lock. Conversions (e.g. overridden
+ * {@link Entry#toJson()} methods) must not rely on thread bound information like {@code UI.getCurrent()}, when
+ * parallel conversion is activated.
+ */
+final class EntrySerializer implements Serializable {
+
+    /**
+     * The minimal amount of entries converted by one task.
+     */
+    static final int MIN_CHUNK_SIZE = 256;
+
+    private int parallelThreshold;
+    private transient Executor executor;
+
+    /**
+     * Returns the minimal amount of entries, for which the conversion is done in parallel. 0 means, that entries
+     * are always converted by the calling thread.
+     *
+     * @return threshold
+     */
+    int getParallelThreshold() {
+        return parallelThreshold;
+    }
+
+    /**
+     * Sets the minimal amount of entries, for which the conversion is done in parallel. 0 deactivates the parallel
+     * conversion.
+     *
+     * @param parallelThreshold threshold
+     * @throws IllegalArgumentException when a negative value is passed
+     */
+    void setParallelThreshold(int parallelThreshold) {
+        if (parallelThreshold < 0) {
+            throw new IllegalArgumentException("Parallel threshold must not be negative, but was " + parallelThreshold);
+        }
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    /**
+     * Sets the executor to convert the chunks with. By default the common fork join pool is used.
+     *
+     * @param executor executor
+     * @throws NullPointerException when null is passed
+     */
+    void setExecutor(@NotNull Executor executor) {
+        this.executor = Objects.requireNonNull(executor);
+    }
+
+    /**
+     * Converts the given entries to a json array, where the order of the entries is kept.
+     *
+     * @param entries entries
+     * @param toJson  conversion of a single entry
+     * @return json array
+     */
+    JsonArray serialize(@NotNull Collection<Entry> entries, @NotNull Function<Entry, JsonObject> toJson) {
+        JsonArray array = Json.createArray();
+
+        int size = entries.size();
+        if (parallelThreshold == 0 || size < parallelThreshold || size <= MIN_CHUNK_SIZE) {
+            for (Entry entry : entries) {
+                array.set(array.length(), toJson.apply(entry));
+            }
+            return array;
+        }
+
+        Entry[] source = entries.toArray(new Entry[0]);
+        JsonObject[] converted = new JsonObject[source.length];
+
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        int chunkSize = Math.max(MIN_CHUNK_SIZE, (source.length + parallelism * 4 - 1) / (parallelism * 4));
+
+        // each task writes a separate range of the result array
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int chunkStart = 0; chunkStart < source.length; chunkStart += chunkSize) {
+            int from = chunkStart;
+            int to = Math.min(source.length, chunkStart + chunkSize);
+            futures.add(CompletableFuture.runAsync(() -> {
+                for (int i = from; i < to; i++) {
+                    converted[i] = toJson.apply(source[i]);
+                }
+            }, getExecutor()));
+        }
+
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+
+        for (JsonObject json : converted) {
+            array.set(array.length(), json);
+        }
+        return array;
+    }
+
+    private Executor getExecutor() {
+        if (executor == null) {
+            // transient field is not restored after deserialization
+            executor = ForkJoinPool.commonPool();
+        }
+        return executor;
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2018, Stefan Uebe
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions
+ * of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.vaadin.stefan.fullcalendar;
+
+import elemental.json.Json;
+import elemental.json.JsonArray;
+import elemental.json.JsonObject;
+
+import javax.validation.constraints.NotNull;
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An immutable set of entries, that can be shared between several calendar instances (e.g. public holidays or
+ * company wide events, that are shown in every user's calendar). A set is mounted by reference via
+ * {@link FullCalendar#mountEntrySet(EntrySet)}, so that the server keeps only one copy of the entries, while each
+ * calendar keeps only its private entries.
+ * <br><br>
+ * Entries of a set are not registered in any calendar (their {@link Entry#getCalendar()} is empty) and are shown
+ * as not editable on the client side. They must not be modified after the set has been created, since
+ * the set is read concurrently by several sessions. Instances are thread safe.
+ */
+public final class EntrySet implements Serializable {
+
+    private final String id;
+    private final Map<String, Entry> entries;
+    private final EntryIntervalIndex index = new EntryIntervalIndex();
+    private final List<Entry> recurringEntries = new ArrayList<>();
+    private final Map<String, JsonArray> jsonByFormat = new ConcurrentHashMap<>();
+
+    private EntrySet(Collection<? extends Entry> entries) {
+        this.id = UUID.randomUUID().toString();
+
+        Map<String, Entry> map = new LinkedHashMap<>();
+        for (Entry entry : entries) {
+            Objects.requireNonNull(entry);
+            if (map.putIfAbsent(entry.getId(), entry) != null) {
+                throw new IllegalArgumentException("Duplicate entry id " + entry.getId());
+            }
+            index.put(entry);
+
+            if (RecurrenceExpander.isRecurring(entry)) {
+                recurringEntries.add(entry);
+            }
+        }
+
+        this.entries = Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * Creates a new set containing the given entries.
+     *
+     * @param entries entries
+     * @return entry set
+     * @throws NullPointerException when null is passed
+     * @throws IllegalArgumentException when an entry id is contained multiple times
+     */
+    public static EntrySet of(@NotNull Collection<? extends Entry> entries) {
+        Objects.requireNonNull(entries);
+        return new EntrySet(entries);
+    }
+
+    /**
+     * Creates a new set containing the given entries.
+     *
+     * @param entries entries
+     * @return entry set
+     * @throws NullPointerException when null is passed
+     * @throws IllegalArgumentException when an entry id is contained multiple times
+     */
+    public static EntrySet of(@NotNull Entry... entries) {
+        return of(Arrays.asList(entries));
+    }
+
+    /**
+     * Returns the unique id of this set.
+     *
+     * @return id
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Returns the amount of entries in this set.
+     *
+     * @return size
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the entry with the given id. Is empty when the id is not part of this set.
+     *
+     * @param id id
+     * @return entry or empty
+     * @throws NullPointerException when null is passed
+     */
+    public Optional<Entry> getEntryById(@NotNull String id) {
+        Objects.requireNonNull(id);
+        return Optional.ofNullable(entries.get(id));
+    }
+
+    /**
+     * Returns all entries of this set as an unmodifiable collection.
+     *
+     * @return entries
+     */
+    public Collection<Entry> getEntries() {
+        return entries.values();
+    }
+
+    /**
+     * Returns all entries of this set, which timespan crosses the given timespan. See
+     * {@link FullCalendar#getEntries(Instant, Instant)} for details.
+     *
+     * @param filterStart start point of filter timespan or null to have no limit
+     * @param filterEnd   end point of filter timespan or null to have no limit
+     * @return entries
+     */
+    public List<Entry> getEntries(Instant filterStart, Instant filterEnd) {
+        return index.getEntries(filterStart, filterEnd);
+    }
+
+    /**
+     * Returns an iterator over all entries of this set, which timespan crosses the given timespan, ordered
+     * by their start.
+     *
+     * @param filterStart start point of filter timespan or null to have no limit
+     * @param filterEnd   end point of filter timespan or null to have no limit
+     * @return iterator
+     */
+    Iterator<Entry> iterator(Instant filterStart, Instant filterEnd) {
+        return index.iterator(filterStart, filterEnd);
+    }
+
+    /**
+     * Returns the entries of this set, that have recurrence information.
+     *
+     * @return recurring entries
+     */
+    List<Entry> getRecurringEntries() {
+        return Collections.unmodifiableList(recurringEntries);
+    }
+
+    /**
+     * Returns the json of all entries of this set to be sent to the client. The entries are marked as not editable
+     * and their dates are converted with the given timezone or as epoch milliseconds. The json is created only
+     * once per format and shared by all calendars, that mount this set. The returned array must not be modified.
+     *
+     * @param timezone    timezone to format dates with
+     * @param epochMillis send dates as epoch milliseconds
+     * @return json array of entries
+     */
+    JsonArray toJson(@NotNull Timezone timezone, boolean epochMillis) {
+        Objects.requireNonNull(timezone);
+
+        // epoch millis do not depend on the timezone
+        String format = epochMillis ? "" : timezone.getZoneId().getId();
+        return jsonByFormat.computeIfAbsent(format, f -> {
+            JsonArray array = Json.createArray();
+            for (Entry entry : entries.values()) {
+                JsonObject json = entry.toJson(timezone, epochMillis);
+                json.put("editable", false);
+                array.set(array.length(), json);
+            }
+            return array;
+        });
+    }
+}
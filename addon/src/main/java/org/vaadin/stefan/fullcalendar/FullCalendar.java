@@ -19,6 +19,7 @@ package org.vaadin.stefan.fullcalendar;
 import com.vaadin.flow.component.*;
 import com.vaadin.flow.component.dependency.JsModule;
 import com.vaadin.flow.component.dependency.NpmPackage;
+import com.vaadin.flow.function.SerializableFunction;
 import com.vaadin.flow.shared.Registration;
 import elemental.json.Json;
 import elemental.json.JsonArray;
@@ -30,8 +31,15 @@ import java.io.Serializable;
 import java.time.*;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Flow implementation for the FullCalendar.
@@ -62,9 +70,57 @@ public class FullCalendar extends Component implements HasStyle, HasSize {
      */
     public static final int DEFAULT_DAY_EVENT_DURATION = 1;
 
+    /**
+     * Maximal amount of entry removals tracked for the resync of a cached client side state. When exceeded,
+     * clients with an older cached state get the complete state.
+     */
+    static final int MAX_TRACKED_ENTRY_REMOVALS = 10000;
+
+    /**
+     * Default value for {@link #getSubmittedChangesFlushInterval()} in milliseconds.
+     */
+    public static final int DEFAULT_SUBMITTED_CHANGES_FLUSH_INTERVAL = 100;
+
     private Map<String, Entry> entries = new HashMap<>();
+    private EntryIntervalIndex entryIndex = new EntryIntervalIndex();
+    private EntryDayIndex entryDayIndex = new EntryDayIndex(Timezone.UTC);
+    private RecurrenceExpander recurrenceExpander = new RecurrenceExpander();
+    private EntrySearchIndex searchIndex;
     private Map<String, Serializable> options = new HashMap<>();
     private Map<String, Object> serverSideOptions = new HashMap<>();
+    private final Map<String, Serializable> pendingOptions = new LinkedHashMap<>();
+    private boolean optionsFlushScheduled;
+    private volatile CalendarDataProvider dataProvider;
+    private final List<EntrySet> mountedEntrySets = new ArrayList<>();
+    private final EntriesView entriesView = new EntriesView();
+    private final List<EntryIndex<?>> entryIndexes = new ArrayList<>();
+    private final EntrySerializer entrySerializer = new EntrySerializer();
+    private final PendingEntryChanges pendingEntryChanges = new PendingEntryChanges(entrySerializer);
+    private boolean entryChangesFlushScheduled;
+    private boolean compactEntryEncoding;
+    private boolean entryTimestampsAsEpochMillis;
+    private int progressiveLoadingChunkSize;
+    private boolean entryFeedEnabled;
+    private EntryFeedRequestHandler entryFeedHandler;
+    private Instant visibleStart;
+    private Instant visibleEnd;
+    private Registration datesRenderedRegistration;
+    private String entryRenderCallback;
+
+    private boolean clientStateCacheEnabled;
+    private int stateVersion;
+    private int fullResyncVersion;
+    private final Map<String, Integer> entryVersions = new HashMap<>();
+    private final Map<String, Integer> removedEntryVersions = new HashMap<>();
+    private final Map<String, Integer> optionVersions = new HashMap<>();
+    private boolean resyncRequested;
+
+    private final Queue<EntryChange> submittedChanges = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean submittedChangesFlushScheduled = new AtomicBoolean();
+    private volatile int submittedChangesFlushInterval = DEFAULT_SUBMITTED_CHANGES_FLUSH_INTERVAL;
+    private volatile UI attachedUI;
+    private transient volatile ScheduledExecutorService submittedChangesScheduler;
+    private transient volatile Future<?> submittedChangesFlush;
 
     // used to keep the amount of timeslot selected listeners. when 0, then selectable option is auto removed
     private int timeslotsSelectedListenerCount;
@@ -141,298 +197,1501 @@ public class FullCalendar extends Component implements HasStyle, HasSize {
         getElement().setProperty("noDatesRenderEventOnOptionSetting", !allow);
     }
 
+    /**
+     * Sets a timeout in milliseconds to debounce dates rendering on the client side. When set, a dates rendered
+     * event and the fetch of entries from the data provider are only sent to the server, when the calendar has not
+     * rendered other dates within the timeout. This way a burst of renderings (e.g. by clicking "next"
+     * repeatedly or by setting several options) results in only one server call for the last shown timespan.
+     * <br><br>
+     * 0 deactivates the debouncing, which is the default.
+     *
+     * @param timeoutInMillis timeout in milliseconds or 0
+     * @throws IllegalArgumentException when a negative value is passed
+     */
+    public void setDatesRenderDebounce(int timeoutInMillis) {
+        if (timeoutInMillis < 0) {
+            throw new IllegalArgumentException("Debounce timeout must not be negative, but was " + timeoutInMillis);
+        }
+        getElement().setProperty("datesRenderDebounce", timeoutInMillis);
+    }
+
+    /**
+     * Returns the timeout in milliseconds to debounce dates rendering on the client side. 0 means, that there
+     * is no debouncing.
+     *
+     * @return timeout in milliseconds or 0
+     * @see #setDatesRenderDebounce(int)
+     */
+    public int getDatesRenderDebounce() {
+        return getElement().getProperty("datesRenderDebounce", 0);
+    }
+
     /**
      * Moves to the next interval (e. g. next month if current view is monthly based).
      */
     public void next() {
-        getElement().callJsFunction("next");
+        callJsFunction("next");
     }
 
     /**
      * Moves to the previous interval (e. g. previous month if current view is monthly based).
      */
     public void previous() {
-        getElement().callJsFunction("previous");
+        callJsFunction("previous");
     }
 
     /**
      * Moves to the current interval (e. g. current month if current view is monthly based).
      */
     public void today() {
-        getElement().callJsFunction("today");
+        callJsFunction("today");
+    }
+
+    /**
+     * Returns the entry with the given id. Is empty when the id is not registered. Entries of mounted entry sets
+     * are taken into account, but entries registered in this instance have precedence. When the entry feed is
+     * enabled, the entries served with its last response are taken into account, too (also with precedence
+     * over the entry sets).
+     *
+     * @param id id
+     * @return entry or empty
+     * @throws NullPointerException when null is passed
+     */
+    public Optional<Entry> getEntryById(@NotNull String id) {
+        Objects.requireNonNull(id);
+        Entry entry = entries.get(id);
+        if (entry == null && entryFeedEnabled && entryFeedHandler != null) {
+            entry = entryFeedHandler.getServedEntry(id).orElse(null);
+        }
+
+        if (entry == null) {
+            for (EntrySet entrySet : mountedEntrySets) {
+                Optional<Entry> optional = entrySet.getEntryById(id);
+                if (optional.isPresent()) {
+                    return optional;
+                }
+            }
+        }
+        return Optional.ofNullable(entry);
+    }
+
+    /**
+     * Returns all entries registered in this instance including the entries of mounted entry sets.
+     * Changes in an entry instance is reflected in the
+     * calendar instance on server side, but not client side. If you change an entry make sure to call
+     * {@link #updateEntry(Entry)} afterwards.
+     * <br><br>
+     * Changes in the list are not reflected to the calendar's list instance. Also please note, that the content
+     * of the list is <b>unsorted</b> and may vary with each call. The return of a list is due to presenting
+     * a convenient way of using the returned values without the need to encapsulate them yourselves.
+     * <br>
+     * <b>This behavior may change in future.</b>
+     *
+     * @return entries entries
+     */
+    public List<Entry> getEntries() {
+        // TODO this should be an unmodifiable list, as most api in the addon does it that way.
+        return withMountedEntries(new ArrayList<>(entries.values()), EntrySet::getEntries);
+    }
+
+    /**
+     * Returns all entries registered in this instance which timespan crosses the given time span. You may
+     * pass null for the parameters to have the timespan search only on one side. Passing null for both
+     * parameters return all entries.
+     * <br><br>
+     * Changes in an entry instance is reflected in the
+     * calendar instance on server side, but not client side. If you change an entry make sure to call
+     * {@link #updateEntry(Entry)} afterwards.
+     * <br><br>
+     * Please be aware that the filter and entry times are exclusive due to the nature of the FC entries
+     * to range from e.g. 07:00-08:00 or "day 1, 0:00" to "day 2, 0:00" where the end is a marker but somehow
+     * exclusive to the date.
+     * That means, that search for 06:00-07:00 or 08:00-09:00 will NOT include the given time example.
+     * Searching for anything between these two timespans (like 06:00-07:01, 07:30-10:00, 07:59-09:00, etc.) will
+     * include it.
+     * <br><br>
+     * The search is done on an internal index, so that only the matching entries are touched.
+     *
+     * @param filterStart start point of filter timespan or null to have no limit
+     * @param filterEnd   end point of filter timespan or null to have no limit
+     * @return entries
+     */
+    public List<Entry> getEntries(Instant filterStart, Instant filterEnd) {
+        if (filterStart == null && filterEnd == null) {
+            return getEntries();
+        }
+
+        return withMountedEntries(entryIndex.getEntries(filterStart, filterEnd), set -> set.getEntries(filterStart, filterEnd));
+    }
+
+    /**
+     * Adds the entries of the mounted entry sets to the given list, which are not overridden by an entry
+     * of this instance.
+     */
+    private List<Entry> withMountedEntries(List<Entry> list, Function<EntrySet, Collection<Entry>> entrySetEntries) {
+        for (EntrySet entrySet : mountedEntrySets) {
+            for (Entry entry : entrySetEntries.apply(entrySet)) {
+                if (!entries.containsKey(entry.getId())) {
+                    list.add(entry);
+                }
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Returns a stream of all entries of this instance (including the entries of mounted entry sets), which
+     * timespan crosses the given timespan. The matching semantics are the same as for
+     * {@link #getEntries(Instant, Instant)}. In contrast to that method, the entries are <b>sorted by their
+     * start</b> (entries without start come first) and are read lazily from the internal index without creating
+     * any intermediate copies.
+     * <br><br>
+     * The entries of this calendar must not be added, updated or removed while the stream is consumed.
+     *
+     * @param filterStart start point of filter timespan or null to have no limit
+     * @param filterEnd   end point of filter timespan or null to have no limit
+     * @return sorted stream of entries
+     */
+    public Stream<Entry> streamEntries(Instant filterStart, Instant filterEnd) {
+        Iterator<Entry> iterator = entryIndex.iterator(filterStart, filterEnd);
+
+        if (mountedEntrySets.isEmpty()) {
+            return toStream(iterator);
+        }
+
+        List<Iterator<Entry>> iterators = new ArrayList<>();
+        iterators.add(iterator);
+        mountedEntrySets.forEach(set -> iterators.add(toStream(set.iterator(filterStart, filterEnd))
+                .filter(this::isNotOverridden)
+                .iterator()));
+
+        return toStream(EntryIntervalIndex.mergeSorted(iterators));
+    }
+
+    /**
+     * Returns a stream of all entries of this instance (including the entries of mounted entry sets) sorted
+     * by their start. See {@link #streamEntries(Instant, Instant)} for details.
+     *
+     * @return sorted stream of entries
+     */
+    public Stream<Entry> streamEntries() {
+        return streamEntries(null, null);
+    }
+
+    /**
+     * Returns the amount of entries (including the entries of mounted entry sets), which timespan crosses the
+     * given timespan. The matching semantics are the same as for {@link #getEntries(Instant, Instant)}, but
+     * no entry lists are created.
+     *
+     * @param filterStart start point of filter timespan or null to have no limit
+     * @param filterEnd   end point of filter timespan or null to have no limit
+     * @return amount of entries
+     */
+    public int countEntries(Instant filterStart, Instant filterEnd) {
+        if (mountedEntrySets.isEmpty()) {
+            return entryIndex.count(filterStart, filterEnd);
+        }
+
+        return (int) streamEntries(filterStart, filterEnd).count();
+    }
+
+    /**
+     * Returns the amount of entries of this instance (including the entries of mounted entry sets).
+     *
+     * @return amount of entries
+     */
+    public int countEntries() {
+        return countEntries(null, null);
+    }
+
+    /**
+     * Enables or disables the full text search index over the title and description of the entries registered
+     * in this calendar. When enabled, the index is built from the current entries and kept up to date, when
+     * entries are added, updated or removed or their title or description changes. Disabled by default.
+     * <br><br>
+     * {@link #searchEntries(String, Instant, Instant)} can be used with or without the index, but without
+     * it every search scans all entries. Entries of mounted entry sets are not part of the index.
+     *
+     * @param enabled enable index
+     */
+    public void setEntrySearchEnabled(boolean enabled) {
+        if (!enabled) {
+            searchIndex = null;
+        } else if (searchIndex == null) {
+            searchIndex = new EntrySearchIndex();
+            entries.values().forEach(searchIndex::put);
+        }
+    }
+
+    /**
+     * Returns, if the full text search index is enabled.
+     *
+     * @return search index is enabled
+     */
+    public boolean isEntrySearchEnabled() {
+        return searchIndex != null;
+    }
+
+    /**
+     * Searches the title and description of the entries (including the entries of mounted entry sets). See
+     * {@link #searchEntries(String, Instant, Instant)} for details.
+     *
+     * @param query query
+     * @return matching entries
+     * @throws NullPointerException when null is passed
+     */
+    public List<Entry> searchEntries(@NotNull String query) {
+        return searchEntries(query, null, null);
+    }
+
+    /**
+     * Searches the title and description of the entries (including the entries of mounted entry sets), which
+     * timespan crosses the given timespan. Texts and query are split into case insensitive words (letters and
+     * digits). An entry matches, if each word of the query is the beginning of a word in its title or description,
+     * e.g. "meet ber" matches "Meeting in Berlin". A query without any words matches no entries.
+     * <br><br>
+     * The timespan matching semantics are the same as for {@link #getEntries(Instant, Instant)}. Entries of
+     * mounted entry sets are searched, too. The result is sorted by the entries' start (entries without start
+     * come first).
+     * <br><br>
+     * When the search index is enabled (see {@link #setEntrySearchEnabled(boolean)}) only the matching registered
+     * entries are touched, otherwise all registered entries in the timespan are scanned. Entries of mounted
+     * entry sets are always scanned.
+     *
+     * @param query       query
+     * @param filterStart start point of filter timespan or null to have no limit
+     * @param filterEnd   end point of filter timespan or null to have no limit
+     * @return matching entries
+     * @throws NullPointerException when null is passed for the query
+     */
+    public List<Entry> searchEntries(@NotNull String query, Instant filterStart, Instant filterEnd) {
+        Objects.requireNonNull(query);
+
+        List<Entry> result = new ArrayList<>();
+        if (searchIndex != null) {
+            for (String id : searchIndex.search(query)) {
+                Entry entry = entries.get(id);
+                if (entry != null && EntryIntervalIndex.matches(entry, filterStart, filterEnd)) {
+                    result.add(entry);
+                }
+            }
+        } else {
+            entryIndex.forEachInRange(filterStart, filterEnd, entry -> {
+                if (EntrySearchIndex.matches(entry, query)) {
+                    result.add(entry);
+                }
+            });
+        }
+
+        for (EntrySet entrySet : mountedEntrySets) {
+            entrySet.iterator(filterStart, filterEnd).forEachRemaining(entry -> {
+                if (isNotOverridden(entry) && EntrySearchIndex.matches(entry, query)) {
+                    result.add(entry);
+                }
+            });
+        }
+
+        if (searchIndex != null || !mountedEntrySets.isEmpty()) {
+            result.sort(Comparator.comparing(Entry::getStartUTC, Comparator.nullsFirst(Comparator.naturalOrder())));
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns all occurrences of entries (including the entries of mounted entry sets) in the given timespan,
+     * ordered by their start. For recurring entries (entries with any recurrence information) each
+     * recurrence in the timespan is returned as a separate occurrence, calculated with the calendar's timezone.
+     * Normal entries are returned as a single occurrence with their start and end. The matching semantics are the
+     * same as for {@link #getEntries(Instant, Instant)}.
+     * <br><br>
+     * The occurrences of recurring entries are cached for the last requested timespans, so repeated requests
+     * for the same timespan (e.g. the visible one) do not expand the recurrences again. The cache is invalidated,
+     * when the recurrence of an entry changes.
+     *
+     * @param filterStart start point of filter timespan
+     * @param filterEnd   end point of filter timespan
+     * @return occurrences
+     * @throws NullPointerException when null is passed
+     */
+    public List<Occurrence> getOccurrences(@NotNull Instant filterStart, @NotNull Instant filterEnd) {
+        Objects.requireNonNull(filterStart);
+        Objects.requireNonNull(filterEnd);
+
+        Timezone timezone = getTimezone();
+        List<Occurrence> occurrences = new ArrayList<>();
+
+        streamEntries(filterStart, filterEnd)
+                .filter(entry -> !RecurrenceExpander.isRecurring(entry))
+                .forEach(entry -> occurrences.add(new Occurrence(entry, entry.getStartUTC(), entry.getEndUTC(), entry.isAllDay())));
+
+        occurrences.addAll(recurrenceExpander.getOccurrences(timezone, filterStart, filterEnd));
+
+        for (EntrySet entrySet : mountedEntrySets) {
+            for (Entry entry : entrySet.getRecurringEntries()) {
+                if (isNotOverridden(entry)) {
+                    RecurrenceExpander.expand(entry, timezone, filterStart, filterEnd, occurrences::add);
+                }
+            }
+        }
+
+        occurrences.sort(Comparator.comparing(Occurrence::getStartUTC));
+        return occurrences;
+    }
+
+    /**
+     * Returns an unmodifiable, live view of all entries of this instance (including the entries of mounted
+     * entry sets). In contrast to {@link #getEntries()} no copy is created, changes of this calendar's entries
+     * are directly reflected in the view. The entries are not sorted.
+     * <br><br>
+     * The entries of this calendar must not be added, updated or removed while iterating over the view.
+     *
+     * @return unmodifiable view of entries
+     */
+    public Collection<Entry> getEntriesView() {
+        return entriesView;
+    }
+
+    /**
+     * Checks, if the given entry of a mounted entry set is not overridden by an entry of this instance.
+     */
+    private boolean isNotOverridden(Entry entrySetEntry) {
+        return !entries.containsKey(entrySetEntry.getId());
+    }
+
+    private static Stream<Entry> toStream(Iterator<Entry> iterator) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Unmodifiable live view on the entries of this calendar and the mounted entry sets.
+     */
+    private class EntriesView extends AbstractCollection<Entry> implements Serializable {
+        @Override
+        public Iterator<Entry> iterator() {
+            Iterator<Entry> iterator = Collections.unmodifiableCollection(entries.values()).iterator();
+            if (mountedEntrySets.isEmpty()) {
+                return iterator;
+            }
+
+            return Stream.concat(toStream(iterator), mountedEntrySets.stream()
+                    .flatMap(set -> set.getEntries().stream())
+                    .filter(FullCalendar.this::isNotOverridden))
+                    .iterator();
+        }
+
+        @Override
+        public int size() {
+            int size = entries.size();
+            for (EntrySet set : mountedEntrySets) {
+                for (Entry entry : set.getEntries()) {
+                    if (isNotOverridden(entry)) {
+                        size++;
+                    }
+                }
+            }
+            return size;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof Entry && getEntryById(((Entry) o).getId()).orElse(null) == o;
+        }
+    }
+
+    /**
+     * Returns all entries registered in this instance which timespan crosses the given time span. You may
+     * pass null for the parameters to have the timespan search only on one side. Passing null for both
+     * parameters return all entries. The times are converted
+     * to UTC before searching. The conversion is done with the calendars timezone.
+     * <br><br>
+     * Changes in an entry instance is reflected in the
+     * calendar instance on server side, but not client side. If you change an entry make sure to call
+     * {@link #updateEntry(Entry)} afterwards.
+     * <br><br>
+     * Please be aware that the filter and entry times are exclusive due to the nature of the FC entries
+     * to range from e.g. 07:00-08:00 or "day 1, 0:00" to "day 2, 0:00" where the end is a marker but somehow
+     * exclusive to the date.
+     * That means, that search for 06:00-07:00 or 08:00-09:00 will NOT include the given time example.
+     * Searching for anything between these two timespans (like 06:00-07:01, 07:30-10:00, 07:59-09:00, etc.) will
+     * include it.
+     *
+     * @param filterStart start point of filter timespan or null to have no limit
+     * @param filterEnd   end point of filter timespan or null to have no limit
+     * @return entries
+     */
+    public List<Entry> getEntries(LocalDateTime filterStart, LocalDateTime filterEnd) {
+        Timezone timezone = getTimezone();
+        return getEntries(filterStart == null ? null : timezone.convertToUTC(filterStart), filterEnd == null ? null : timezone.convertToUTC(filterEnd));
+    }
+
+    /**
+     * Returns all entries registered in this instance which timespan crosses the given date.
+     * <br><br>
+     * The search is done on an internal index of days, so that only entries touching the given day are checked.
+     * <br><br>
+     * Changes in an entry instance is reflected in the
+     * calendar instance on server side, but not client side. If you change an entry make sure to call
+     * {@link #updateEntry(Entry)} afterwards.
+     *
+     * @param date end point of filter timespan
+     * @return entries
+     * @throws NullPointerException when null is passed
+     */
+    public List<Entry> getEntries(@NotNull Instant date) {
+        Objects.requireNonNull(date);
+        Instant filterEnd = date.plus(1, ChronoUnit.DAYS);
+        return withMountedEntries(getDayIndex().getEntries(date, filterEnd), set -> set.getEntries(date, filterEnd));
+    }
+
+    /**
+     * Returns all entries registered in this instance which timespan crosses the given date. The date is converted
+     * to UTC before searching. The conversion is done with the calendars timezone.
+     * <br><br>
+     * The search is done on an internal index of days, so that only entries touching the given day are checked.
+     * <br><br>
+     * Changes in an entry instance is reflected in the
+     * calendar instance on server side, but not client side. If you change an entry make sure to call
+     * {@link #updateEntry(Entry)} afterwards.
+     *
+     * @param date end point of filter timespan
+     * @return entries
+     * @throws NullPointerException when null is passed
+     */
+    public List<Entry> getEntries(@NotNull LocalDate date) {
+        Objects.requireNonNull(date);
+        return getEntries(getTimezone().convertToUTC(date));
+    }
+
+    /**
+     * Adds an entry to this calendar. Noop if the entry id is already registered.
+     *
+     * @param entry entry
+     * @throws NullPointerException when null is passed
+     * @throws IllegalStateException when a data provider is set
+     */
+    public void addEntry(@NotNull Entry entry) {
+        Objects.requireNonNull(entry);
+        addEntries(Collections.singletonList(entry));
+    }
+
+    /**
+     * Adds an array of entries to the calendar. Noop for the entry id is already registered.
+     *
+     * @param arrayOfEntries array of entries
+     * @throws NullPointerException when null is passed
+     * @throws IllegalStateException when a data provider is set
+     */
+    public void addEntries(@NotNull Entry... arrayOfEntries) {
+        addEntries(Arrays.asList(arrayOfEntries));
+    }
+
+    /**
+     * Adds a list of entries to the calendar. Noop for the entry id is already registered.
+     * <br><br>
+     * Like updates and removals, the new entries are not sent to the client immediately. All entry changes of
+     * the current request are collected and sent together before the response, so that the client renders
+     * them at once. Changes of the same entry are collapsed.
+     *
+     * @param iterableEntries list of entries
+     * @throws NullPointerException when null is passed
+     * @throws IllegalStateException when a data provider is set
+     */
+    public void addEntries(@NotNull Iterable<Entry> iterableEntries) {
+        Objects.requireNonNull(iterableEntries);
+        if (dataProvider != null) {
+            throw new IllegalStateException("Entries cannot be added manually, when a data provider is set. Use refreshAll() instead.");
+        }
+
+        iterableEntries.forEach(entry -> {
+            String id = entry.getId();
+
+            if (!entries.containsKey(id)) {
+                entry.setCalendar(this);
+                entries.put(id, entry);
+                indexEntry(entry);
+                trackEntryChange(entry);
+                pendingEntryChanges.add(entry);
+                scheduleEntryChangesFlush();
+            }
+        });
+    }
+
+
+    /**
+     * Updates the given entry on the client side. Will check if the id is already registered, otherwise a noop.
+     * The registered entry with the id of the given one is sent to the client.
+     *
+     * @param entry entry to update
+     * @throws NullPointerException when null is passed
+     */
+    public void updateEntry(@NotNull Entry entry) {
+        Objects.requireNonNull(entry);
+        updateEntries(Collections.singletonList(entry));
+    }
+
+    /**
+     * Updates the given entries on the client side. Ignores non-registered entries.
+     *
+     * @param arrayOfEntries entries to update
+     * @throws NullPointerException when null is passed
+     */
+    public void updateEntries(@NotNull Entry... arrayOfEntries) {
+        updateEntries(Arrays.asList(arrayOfEntries));
+    }
+
+
+    /**
+     * Updates the given entries on the client side. Ignores non-registered entries. For each given entry the
+     * registered entry with the same id is sent to the client.
+     * <br><br>
+     * Only the properties, that have been changed since the entry has been sent to the client the last time,
+     * are sent (see {@link Entry#toJsonChanges()}).
+     *
+     * @param iterableEntries entries to update
+     * @throws NullPointerException when null is passed
+     */
+    public void updateEntries(@NotNull Iterable<Entry> iterableEntries) {
+        updateEntries(iterableEntries, false);
+    }
+
+    /**
+     * Updates the given entries on the client side. Ignores non-registered entries. Sends either the changed
+     * properties or, when a full update is requested, the complete json of each entry.
+     */
+    private void updateEntries(Iterable<Entry> iterableEntries, boolean fullUpdate) {
+        Objects.requireNonNull(iterableEntries);
+
+        iterableEntries.forEach(entry -> {
+            Entry registered = entries.get(entry.getId());
+            if (registered != null) {
+                // client and indexes get the registered instance, even if another one with the same id is passed
+                indexEntry(registered);
+                trackEntryChange(registered);
+                pendingEntryChanges.update(registered, fullUpdate);
+                scheduleEntryChangesFlush();
+            }
+        });
+    }
+
+    /**
+     * Removes the given entry. Noop if the id is not registered.
+     *
+     * @param entry entry
+     * @throws NullPointerException when null is passed
+     */
+    public void removeEntry(@NotNull Entry entry) {
+        Objects.requireNonNull(entry);
+        removeEntries(Collections.singletonList(entry));
+    }
+
+    /**
+     * Removes the given entries. Noop for not registered entries.
+     *
+     * @param arrayOfEntries entries to remove
+     * @throws NullPointerException when null is passed
+     */
+    public void removeEntries(@NotNull Entry... arrayOfEntries) {
+        removeEntries(Arrays.asList(arrayOfEntries));
+    }
+
+    /**
+     * Removes the given entries. Noop for not registered entries.
+     *
+     * @param iterableEntries entries to remove
+     * @throws NullPointerException when null is passed
+     */
+    public void removeEntries(@NotNull Iterable<Entry> iterableEntries) {
+        Objects.requireNonNull(iterableEntries);
+
+        iterableEntries.forEach(entry -> {
+            String id = entry.getId();
+
+            if (entries.containsKey(id)) {
+                entry.setCalendar(null);
+                entries.remove(id);
+                unindexEntry(id);
+                trackEntryRemoval(id);
+                pendingEntryChanges.remove(entry);
+                scheduleEntryChangesFlush();
+            }
+        });
+    }
+
+    /**
+     * Remove all entries.
+     */
+    public void removeAllEntries() {
+        clearEntries();
+        resetStateTracking();
+        pendingEntryChanges.removeAll();
+        scheduleEntryChangesFlush();
+    }
+
+    /**
+     * Submits the given entry changes. In contrast to the other entry related methods, this method is thread safe
+     * and intended to be called from background threads, e.g. consumers of a message queue, without locking the
+     * session. The changes are buffered and applied all together inside a single
+     * {@link UI#access(com.vaadin.flow.server.Command)}, so that the session is locked only once and the client
+     * receives them in one message (when server push is enabled). Several changes of the same entry are coalesced
+     * to the last one, see {@link EntryChange} for details.
+     * <br><br>
+     * Without a scheduler, the changes are applied as soon as the session lock is available, which collects the
+     * changes submitted in the meantime. With a scheduler (see
+     * {@link #setSubmittedChangesScheduler(ScheduledExecutorService)}) they are collected for the flush interval.
+     * Changes submitted while this instance is detached are applied, when it is attached again.
+     *
+     * @param changes entry changes
+     * @throws NullPointerException  when null is passed
+     * @throws IllegalStateException when entries shall be added, but a data provider is set
+     * @see #setSubmittedChangesFlushInterval(int)
+     */
+    public void submitChanges(@NotNull Collection<EntryChange> changes) {
+        Objects.requireNonNull(changes);
+        changes.forEach(Objects::requireNonNull);
+        if (dataProvider != null && changes.stream().anyMatch(change -> change.getType() == EntryChange.Type.ADD)) {
+            throw new IllegalStateException("Entries cannot be added manually, when a data provider is set.");
+        }
+
+        submittedChanges.addAll(changes);
+        scheduleSubmittedChangesFlush();
+    }
+
+    /**
+     * Sets the scheduler, that is used to collect submitted changes for the flush interval before they are applied
+     * (see {@link #submitChanges(Collection)}). The scheduler is owned by the application, which is responsible
+     * for shutting it down. It is not used to apply the changes, but only to trigger the
+     * {@link UI#access(com.vaadin.flow.server.Command)}. Passing null applies submitted changes as soon as
+     * the session lock is available (default).
+     *
+     * @param scheduler scheduler or null
+     */
+    public void setSubmittedChangesScheduler(ScheduledExecutorService scheduler) {
+        this.submittedChangesScheduler = scheduler;
+    }
+
+    /**
+     * Returns the scheduler used to collect submitted changes for the flush interval.
+     *
+     * @return scheduler or empty
+     * @see #setSubmittedChangesScheduler(ScheduledExecutorService)
+     */
+    public Optional<ScheduledExecutorService> getSubmittedChangesScheduler() {
+        return Optional.ofNullable(submittedChangesScheduler);
+    }
+
+    /**
+     * Sets the time in milliseconds, that changes submitted via {@link #submitChanges(Collection)} are collected
+     * before they are applied. A higher value leads to fewer, but bigger updates of the client. Only used, when
+     * a scheduler is set (see {@link #setSubmittedChangesScheduler(ScheduledExecutorService)}).
+     * Default is {@link #DEFAULT_SUBMITTED_CHANGES_FLUSH_INTERVAL}.
+     *
+     * @param flushInterval flush interval in milliseconds
+     * @throws IllegalArgumentException when a negative value is passed
+     */
+    public void setSubmittedChangesFlushInterval(int flushInterval) {
+        if (flushInterval < 0) {
+            throw new IllegalArgumentException("Flush interval must not be negative.");
+        }
+        this.submittedChangesFlushInterval = flushInterval;
+    }
+
+    /**
+     * Returns the time in milliseconds, that submitted changes are collected before they are applied.
+     *
+     * @return flush interval in milliseconds
+     * @see #setSubmittedChangesFlushInterval(int)
+     */
+    public int getSubmittedChangesFlushInterval() {
+        return submittedChangesFlushInterval;
+    }
+
+    /**
+     * Schedules applying the submitted changes. Noop if already scheduled, if there are no submitted changes
+     * or if this instance is not attached. May be called from any thread.
+     */
+    private void scheduleSubmittedChangesFlush() {
+        if (attachedUI != null && !submittedChanges.isEmpty() && submittedChangesFlushScheduled.compareAndSet(false, true)) {
+            ScheduledExecutorService scheduler = submittedChangesScheduler;
+            if (scheduler != null) {
+                submittedChangesFlush = scheduler.schedule(this::accessSubmittedChangesFlush, submittedChangesFlushInterval, TimeUnit.MILLISECONDS);
+            } else {
+                accessSubmittedChangesFlush();
+            }
+        }
+    }
+
+    private void accessSubmittedChangesFlush() {
+        UI ui = attachedUI;
+        if (ui != null) {
+            try {
+                // does not wait for the session lock, the changes are applied by the thread holding it
+                ui.access(this::flushSubmittedChanges);
+                return;
+            } catch (UIDetachedException e) {
+                // the ui has been detached in the meantime, the changes are applied on the next attach
+            }
+        }
+
+        submittedChangesFlushScheduled.set(false);
+
+        // this instance might have been attached again in the meantime
+        scheduleSubmittedChangesFlush();
+    }
+
+    /**
+     * Cancels a scheduled flush of the submitted changes. The changes are kept for the next attach.
+     */
+    private void cancelSubmittedChangesFlush() {
+        Future<?> flush = submittedChangesFlush;
+        if (flush != null) {
+            flush.cancel(false);
+            submittedChangesFlush = null;
+        }
+        submittedChangesFlushScheduled.set(false);
+    }
+
+    /**
+     * Applies the submitted changes. Needs to be called with the session locked. Removals and updates are applied
+     * before additions. Additions submitted before a data provider has been set are discarded.
+     */
+    void flushSubmittedChanges() {
+        submittedChangesFlushScheduled.set(false);
+        submittedChangesFlush = null;
+
+        List<EntryChange> changes = new ArrayList<>();
+        for (EntryChange change = submittedChanges.poll(); change != null; change = submittedChanges.poll()) {
+            changes.add(change);
+        }
+
+        List<Entry> entriesToRemove = new ArrayList<>();
+        List<Entry> entriesToAdd = new ArrayList<>();
+        List<Entry> entriesToUpdate = new ArrayList<>();
+        for (EntryChange change : EntryChange.coalesce(changes)) {
+            Entry entry = change.getEntry();
+            Entry registered = entries.get(entry.getId());
+
+            if (change.getType() == EntryChange.Type.REMOVE) {
+                if (registered != null) {
+                    entriesToRemove.add(registered);
+                }
+            } else if (registered == null) {
+                entriesToAdd.add(entry);
+            } else if (registered == entry) {
+                entriesToUpdate.add(entry);
+            } else if (dataProvider == null) {
+                // a new instance replaces the registered one
+                entriesToRemove.add(registered);
+                entriesToAdd.add(entry);
+            }
+        }
+
+        removeEntries(entriesToRemove);
+        updateEntries(entriesToUpdate);
+        if (dataProvider == null) {
+            addEntries(entriesToAdd);
+        }
+    }
+
+    /**
+     * Enables or disables the compact encoding of entries sent to the client. When enabled, added entries and the
+     * entries of mounted entry sets are sent column based: each property name is sent once for all entries,
+     * null values are omitted and repeated strings (like colors or resource ids) are dictionary encoded. The
+     * client decodes them back into normal entries, so this setting has no effect on the server side API.
+     * <br><br>
+     * This reduces the payload size noticeably for large amounts of entries. Updates of existing entries are
+     * always sent in the normal format. Disabled by default.
+     *
+     * @param compactEntryEncoding use compact encoding
+     */
+    public void setCompactEntryEncoding(boolean compactEntryEncoding) {
+        this.compactEntryEncoding = compactEntryEncoding;
+    }
+
+    /**
+     * Returns, if entries are sent to the client with the compact encoding.
+     *
+     * @return compact encoding is used
+     * @see #setCompactEntryEncoding(boolean)
+     */
+    public boolean isCompactEntryEncoding() {
+        return compactEntryEncoding;
+    }
+
+    /**
+     * Defines, how the dates of entries (start, end and the recurring start and end date) are sent to the client.
+     * By default they are sent as ISO strings formatted with the calendar's timezone, which have to be formatted
+     * on the server and parsed on the client for each entry. When set to true, the dates are sent as epoch
+     * milliseconds instead. The client converts them with the timezone, that is set once for the calendar
+     * (see {@link #setTimezone(Timezone)}), so neither side needs to format or parse date strings.
+     * <br><br>
+     * Since epoch milliseconds do not depend on the timezone, entries do not need to be resent, when the
+     * timezone changes. Disabled by default.
+     *
+     * @param entryTimestampsAsEpochMillis send dates as epoch milliseconds
+     */
+    public void setEntryTimestampsAsEpochMillis(boolean entryTimestampsAsEpochMillis) {
+        this.entryTimestampsAsEpochMillis = entryTimestampsAsEpochMillis;
+    }
+
+    /**
+     * Returns, if the dates of entries are sent to the client as epoch milliseconds.
+     *
+     * @return dates are sent as epoch milliseconds
+     * @see #setEntryTimestampsAsEpochMillis(boolean)
+     */
+    public boolean isEntryTimestampsAsEpochMillis() {
+        return entryTimestampsAsEpochMillis;
+    }
+
+    /**
+     * Schedules sending the buffered entry changes to the client before the next response. Noop if already
+     * scheduled.
+     */
+    private void scheduleEntryChangesFlush() {
+        if (!entryChangesFlushScheduled) {
+            entryChangesFlushScheduled = true;
+            getElement().getNode().runWhenAttached(ui -> ui.beforeClientResponse(this, context -> flushEntryChanges()));
+        }
+    }
+
+    /**
+     * Sends the buffered entry changes to the client as one batch.
+     */
+    private void flushEntryChanges() {
+        entryChangesFlushScheduled = false;
+        if (!pendingEntryChanges.isEmpty()) {
+            Iterator<Entry> visibleEntries = visibleStart != null
+                    ? entryIndex.iterator(visibleStart, visibleEnd)
+                    : Collections.emptyIterator();
+
+            JsonObject changes = pendingEntryChanges.flush(compactEntryEncoding, visibleEntries);
+            changes.put("version", ++stateVersion);
+            callJsFunction("applyEntryChanges", changes);
+
+            if (changes.hasKey("more")) {
+                getEventBus().fireEvent(new EntryLoadingProgressEvent(this, false, pendingEntryChanges.getLoadedCount(), pendingEntryChanges.getTotalCount()));
+            }
+        }
+    }
+
+    /**
+     * Sets the maximal amount of added entries, that are sent to the client at once. When more entries are added
+     * within one request, they are loaded progressively: the client requests the entries chunk by chunk, each
+     * after it has rendered the previous one, and the entries of the currently visible timespan are sent first.
+     * This way the first entries are shown quickly regardless of the total amount and the browser stays
+     * responsive. Progress is reported via {@link #addEntryLoadingProgressListener(ComponentEventListener)}.
+     * <br><br>
+     * Entries, that are removed or updated while they are waiting to be sent, are handled accordingly.
+     * 0 disables the progressive loading (default), waiting entries are then sent at once.
+     *
+     * @param chunkSize chunk size or 0
+     * @throws IllegalArgumentException when a negative value is passed
+     */
+    public void setProgressiveLoadingChunkSize(int chunkSize) {
+        if (chunkSize < 0) {
+            throw new IllegalArgumentException("Chunk size must not be negative.");
+        }
+
+        this.progressiveLoadingChunkSize = chunkSize;
+        pendingEntryChanges.setChunkSize(chunkSize);
+        scheduleEntryChangesFlush();
+    }
+
+    /**
+     * Returns the maximal amount of added entries, that are sent to the client at once. 0 means, that progressive
+     * loading is disabled.
+     *
+     * @return chunk size
+     * @see #setProgressiveLoadingChunkSize(int)
+     */
+    public int getProgressiveLoadingChunkSize() {
+        return progressiveLoadingChunkSize;
+    }
+
+    /**
+     * Sets the minimal amount of entries sent at once, for which the entries are converted to json in parallel.
+     * Large batches are split into chunks, which are converted by the executor set via
+     * {@link #setEntrySerializationExecutor(Executor)} (by default the common fork join pool). The entries
+     * are sent in their original order. 0 deactivates the parallel conversion, which is the default.
+     * <br><br>
+     * Please note, that when activated, {@link Entry#toJson()} (and overriding methods of subclasses) is called from
+     * other threads and thus must not rely on thread bound information like {@code UI.getCurrent()}.
+     *
+     * @param threshold minimal amount of entries for parallel conversion or 0
+     * @throws IllegalArgumentException when a negative value is passed
+     */
+    public void setParallelEntrySerializationThreshold(int threshold) {
+        entrySerializer.setParallelThreshold(threshold);
+    }
+
+    /**
+     * Returns the minimal amount of entries sent at once, for which the entries are converted to json in parallel.
+     * 0 means, that the parallel conversion is deactivated.
+     *
+     * @return threshold or 0
+     * @see #setParallelEntrySerializationThreshold(int)
+     */
+    public int getParallelEntrySerializationThreshold() {
+        return entrySerializer.getParallelThreshold();
+    }
+
+    /**
+     * Sets the executor, that converts entries to json in parallel. Since the executor is not serialized with
+     * this instance, the common fork join pool is used after deserialization.
+     *
+     * @param executor executor
+     * @throws NullPointerException when null is passed
+     * @see #setParallelEntrySerializationThreshold(int)
+     */
+    public void setEntrySerializationExecutor(@NotNull Executor executor) {
+        entrySerializer.setExecutor(executor);
+    }
+
+    /**
+     * Called by the client to request the next chunk of entries, when entries are loaded progressively.
+     * The given timespan is the currently visible one, its entries are sent first.
+     *
+     * @param start start of the visible timespan
+     * @param end   end of the visible timespan
+     */
+    @ClientCallable
+    protected void loadNextEntryChunk(String start, String end) {
+        Timezone timezone = getTimezone();
+        setVisibleRange(JsonUtils.parseDateTimeString(start, timezone), JsonUtils.parseDateTimeString(end, timezone));
+
+        pendingEntryChanges.requestNextChunk();
+        scheduleEntryChangesFlush();
+    }
+
+    /**
+     * Activates or deactivates the range aware entry synchronization. When activated, added or updated entries,
+     * which are outside of the timespan shown by the client, are not sent immediately, but held back on the server
+     * side until navigation brings them into view. Entries moved out of view by an update are removed on the
+     * client side and sent again, when they become visible. Removals, recurring entries and
+     * entries without a start are always sent immediately. Deactivated by default.
+     * <br><br>
+     * The shown timespan is taken from the dates rendered events (see {@link DatesRenderedEvent}). Until the
+     * first event has been received, all entries are sent. Please note, that renderings caused by option
+     * changes only fire this event, when allowed via {@link #allowDatesRenderEventOnOptionChange(boolean)}.
+     * <br><br>
+     * Has no effect on entries provided by a data provider, since they are always fetched for the shown timespan.
+     *
+     * @param rangeAwareEntrySync hold back entries outside of the shown timespan
+     */
+    public void setRangeAwareEntrySync(boolean rangeAwareEntrySync) {
+        if (rangeAwareEntrySync && datesRenderedRegistration == null) {
+            datesRenderedRegistration = addDatesRenderedListener(event -> {
+                Timezone timezone = getTimezone();
+                setVisibleRange(timezone.convertToUTC(event.getStart()), timezone.convertToUTC(event.getEnd()));
+            });
+        } else if (!rangeAwareEntrySync && datesRenderedRegistration != null) {
+            datesRenderedRegistration.remove();
+            datesRenderedRegistration = null;
+        }
+
+        pendingEntryChanges.setDeferOutOfRange(rangeAwareEntrySync);
+        scheduleEntryChangesFlush();
+    }
+
+    /**
+     * Returns, if entries outside of the shown timespan are held back.
+     *
+     * @return range aware entry synchronization is active
+     * @see #setRangeAwareEntrySync(boolean)
+     */
+    public boolean isRangeAwareEntrySync() {
+        return datesRenderedRegistration != null;
+    }
+
+    /**
+     * Enables or disables caching the client side state in the browser's session storage. When this instance is
+     * detached and attached again (or the page is reloaded with a preserved view), a new client side element is
+     * created, which has lost the entries and options sent before. Without the cache, they are sent again
+     * completely. With the cache, the client stores its entries, options and the version of its state, when the
+     * element is removed, and restores them, when it is created again. The server then only sends the changes
+     * since the restored version.
+     * <br><br>
+     * The cache is only used by client side elements, that are created while it is enabled. Disabled by default.
+     *
+     * @param clientStateCacheEnabled cache the client side state
+     */
+    public void setClientStateCacheEnabled(boolean clientStateCacheEnabled) {
+        if (this.clientStateCacheEnabled != clientStateCacheEnabled) {
+            this.clientStateCacheEnabled = clientStateCacheEnabled;
+            resetStateTracking();
+            optionVersions.clear();
+            if (clientStateCacheEnabled) {
+                getElement().setProperty("stateCacheKey", "fullcalendar-state-" + UUID.randomUUID());
+            } else {
+                getElement().removeProperty("stateCacheKey");
+            }
+        }
+    }
+
+    /**
+     * Returns, if the client side state is cached in the browser's session storage.
+     *
+     * @return client side state cache enabled
+     * @see #setClientStateCacheEnabled(boolean)
+     */
+    public boolean isClientStateCacheEnabled() {
+        return clientStateCacheEnabled;
+    }
+
+    /**
+     * Called by the client side element, that has been created after a reattach, with the version of the
+     * state, that it has restored from its cache, or -1, if it has not restored anything.
+     *
+     * @param clientVersion version of the restored state or -1
+     */
+    @ClientCallable
+    protected void resync(int clientVersion) {
+        if (resyncRequested) {
+            resyncRequested = false;
+            boolean usable = clientStateCacheEnabled && clientVersion >= fullResyncVersion && clientVersion <= stateVersion;
+            resyncClientState(usable ? clientVersion : -1);
+        }
+    }
+
+    /**
+     * Sends the state, that is not part of the element's properties, to a client side element, that has been
+     * created after a reattach. The client side might have restored the state of a given version from its
+     * cache, in that case only the changes since then are sent. Subclasses, that send additional state to the
+     * client, may override this method to send it again.
+     *
+     * @param clientVersion version of the state restored by the client or -1, if everything has to be sent
+     */
+    protected void resyncClientState(int clientVersion) {
+        if (dataProvider != null) {
+            updateFetchFromServer();
+        } else if (clientVersion < 0) {
+            pendingEntryChanges.removeAll();
+            entries.values().forEach(pendingEntryChanges::add);
+        } else {
+            entryVersions.forEach((id, version) -> {
+                if (version > clientVersion) {
+                    pendingEntryChanges.replace(entries.get(id));
+                }
+            });
+            removedEntryVersions.forEach((id, version) -> {
+                if (version > clientVersion) {
+                    pendingEntryChanges.removeById(id);
+                }
+            });
+        }
+
+        if (pendingEntryChanges.isChunkedLoadingInProgress()) {
+            // the previous element will not request the next chunk anymore
+            pendingEntryChanges.requestNextChunk();
+        }
+        scheduleEntryChangesFlush();
+
+        Set<String> resyncedOptions = new HashSet<>(optionVersions.keySet());
+        if (clientVersion < 0) {
+            resyncedOptions.addAll(options.keySet());
+        } else {
+            resyncedOptions.removeIf(option -> optionVersions.get(option) <= clientVersion);
+        }
+        resyncedOptions.removeAll(pendingOptions.keySet());
+        resyncedOptions.forEach(option -> pendingOptions.put(option, options.get(option)));
+        scheduleOptionsFlush();
+
+        mountedEntrySets.forEach(this::sendEntrySet);
+        if (entryRenderCallback != null) {
+            callJsFunction("setEventRenderCallback", entryRenderCallback);
+        }
+    }
+
+    /**
+     * Sets the timespan shown by the client and sends held back entries, that are now visible.
+     */
+    private void setVisibleRange(Instant start, Instant end) {
+        visibleStart = start;
+        visibleEnd = end;
+        pendingEntryChanges.setVisibleRange(start, end);
+
+        if (pendingEntryChanges.getDeferredCount() > 0 && pendingEntryChanges.undefer(entryIndex.iterator(start, end))) {
+            scheduleEntryChangesFlush();
+        }
+    }
+
+    /**
+     * Sets a data provider, that provides the entries of the visible timespan on demand. Previously registered
+     * entries are removed. When set, entries are no longer pushed to the client side via
+     * {@link #addEntries(Iterable)}, but fetched by the client each time the visible timespan changes. The server
+     * side only keeps the entries of the last fetch.
+     * <br><br>
+     * Passing null removes the data provider and switches back to the manual entry handling.
+     *
+     * @param dataProvider data provider or null
+     */
+    public void setDataProvider(CalendarDataProvider dataProvider) {
+        clearEntries();
+        resetStateTracking();
+
+        // the client removes all manually added entries itself
+        pendingEntryChanges.clear();
+        this.dataProvider = dataProvider;
+        updateFetchFromServer();
+    }
+
+    /**
+     * Returns the data provider of this instance or empty, if the entries are handled manually.
+     *
+     * @return data provider or empty
+     */
+    public Optional<CalendarDataProvider> getDataProvider() {
+        return Optional.ofNullable(dataProvider);
+    }
+
+    /**
+     * Lets the client side fetch the entries of the current visible timespan again from the data provider. Should
+     * be called after the backend data has changed. Noop, if there is no data provider set.
+     */
+    public void refreshAll() {
+        if (dataProvider != null) {
+            callJsFunction("refetchEvents");
+        }
     }
 
     /**
-     * Returns the entry with the given id. Is empty when the id is not registered.
+     * Called by the client side to obtain the entries of the given timespan from the data provider. Replaces the
+     * entries of the previous fetch with the fetched ones.
      *
-     * @param id id
-     * @return entry or empty
-     * @throws NullPointerException when null is passed
+     * @param start start of the timespan as iso string
+     * @param end   end of the timespan as iso string
+     * @return fetched entries as json
      */
-    public Optional<Entry> getEntryById(@NotNull String id) {
-        Objects.requireNonNull(id);
-        return Optional.ofNullable(entries.get(id));
+    @ClientCallable
+    protected JsonArray fetchEntries(String start, String end) {
+        return entrySerializer.serialize(fetchEntriesFromDataProvider(start, end), Entry::toCachedJson);
     }
 
     /**
-     * Returns all entries registered in this instance. Changes in an entry instance is reflected in the
-     * calendar instance on server side, but not client side. If you change an entry make sure to call
-     * {@link #updateEntry(Entry)} afterwards.
-     * <br><br>
-     * Changes in the list are not reflected to the calendar's list instance. Also please note, that the content
-     * of the list is <b>unsorted</b> and may vary with each call. The return of a list is due to presenting
-     * a convenient way of using the returned values without the need to encapsulate them yourselves.
-     * <br>
-     * <b>This behavior may change in future.</b>
+     * Fetches the entries of the given timespan from the data provider and replaces the entries of the previous
+     * fetch with them. Returns an empty list, if there is no data provider set.
      *
-     * @return entries entries
-     */
-    public List<Entry> getEntries() {
-        // TODO this should be an unmodifiable list, as most api in the addon does it that way.
-        return new ArrayList<>(entries.values());
+     * @param start start of the timespan as iso string
+     * @param end   end of the timespan as iso string
+     * @return fetched entries
+     */
+    List<Entry> fetchEntriesFromDataProvider(String start, String end) {
+        List<Entry> fetched = queryDataProvider(start, end);
+        if (dataProvider != null) {
+            clearEntries();
+            fetched.forEach(entry -> {
+                entries.put(entry.getId(), entry);
+                indexEntry(entry);
+                entry.clearChangedProperties();
+            });
+        }
+
+        return fetched;
     }
 
     /**
-     * Returns all entries registered in this instance which timespan crosses the given time span. You may
-     * pass null for the parameters to have the timespan search only on one side. Passing null for both
-     * parameters return all entries.
-     * <br><br>
-     * Changes in an entry instance is reflected in the
-     * calendar instance on server side, but not client side. If you change an entry make sure to call
-     * {@link #updateEntry(Entry)} afterwards.
-     * <br><br>
-     * Please be aware that the filter and entry times are exclusive due to the nature of the FC entries
-     * to range from e.g. 07:00-08:00 or "day 1, 0:00" to "day 2, 0:00" where the end is a marker but somehow
-     * exclusive to the date.
-     * That means, that search for 06:00-07:00 or 08:00-09:00 will NOT include the given time example.
-     * Searching for anything between these two timespans (like 06:00-07:01, 07:30-10:00, 07:59-09:00, etc.) will
-     * include it.
+     * Fetches the entries of the given timespan from the data provider without registering them in this instance.
+     * The entries get this instance as calendar, so that they are converted with its timezone. Duplicate ids
+     * are ignored. Returns an empty list, if there is no data provider set.
      *
-     * @param filterStart start point of filter timespan or null to have no limit
-     * @param filterEnd   end point of filter timespan or null to have no limit
-     * @return entries
-     */
-    public List<Entry> getEntries(Instant filterStart, Instant filterEnd) {
-        if (filterStart == null && filterEnd == null) {
-            return getEntries();
+     * @param start start of the timespan as iso string
+     * @param end   end of the timespan as iso string
+     * @return fetched entries
+     */
+    List<Entry> queryDataProvider(String start, String end) {
+        CalendarDataProvider dataProvider = this.dataProvider;
+        if (dataProvider == null) {
+            return Collections.emptyList();
         }
 
-        Stream<Entry> stream = getEntries().stream();
-
-        if (filterStart != null) {
-            stream = stream.filter(e -> e.getEndUTC() != null && e.getEndUTC().isAfter(filterStart));
-        }
+        Timezone timezone = getTimezone();
+        Instant filterStart = JsonUtils.parseDateTimeString(start, timezone);
+        Instant filterEnd = JsonUtils.parseDateTimeString(end, timezone);
 
-        if (filterEnd != null) {
-            stream = stream.filter(e -> e.getStartUTC() != null && e.getStartUTC().isBefore(filterEnd));
-        }
+        Map<String, Entry> fetched = new LinkedHashMap<>();
+        dataProvider.fetch(filterStart, filterEnd).forEach(entry -> {
+            if (fetched.putIfAbsent(entry.getId(), entry) == null) {
+                entry.setCalendar(this);
+            }
+        });
 
-        return stream.collect(Collectors.toList());
+        return new ArrayList<>(fetched.values());
     }
 
     /**
-     * Returns all entries registered in this instance which timespan crosses the given time span. You may
-     * pass null for the parameters to have the timespan search only on one side. Passing null for both
-     * parameters return all entries. The times are converted
-     * to UTC before searching. The conversion is done with the calendars timezone.
+     * Activates or deactivates the http entry feed. When activated, the client side fetches the entries of a
+     * data provider via plain http GET requests from a session scoped endpoint instead of the UIDL channel.
+     * The responses are gzipped (if the browser accepts it) and carry an ETag, so that revisiting an
+     * unchanged timespan is answered with a 304 and taken from the browser cache.
      * <br><br>
-     * Changes in an entry instance is reflected in the
-     * calendar instance on server side, but not client side. If you change an entry make sure to call
-     * {@link #updateEntry(Entry)} afterwards.
+     * The endpoint is registered in the session while this instance is attached. Has no effect without a data
+     * provider.
      * <br><br>
-     * Please be aware that the filter and entry times are exclusive due to the nature of the FC entries
-     * to range from e.g. 07:00-08:00 or "day 1, 0:00" to "day 2, 0:00" where the end is a marker but somehow
-     * exclusive to the date.
-     * That means, that search for 06:00-07:00 or 08:00-09:00 will NOT include the given time example.
-     * Searching for anything between these two timespans (like 06:00-07:01, 07:30-10:00, 07:59-09:00, etc.) will
-     * include it.
+     * Entries served by the feed are not registered in this instance, so they are not returned by
+     * {@link #getEntries()} and similar methods. {@link #getEntryById(String)} and thus the entry based events
+     * find the entries of the last response.
      *
-     * @param filterStart start point of filter timespan or null to have no limit
-     * @param filterEnd   end point of filter timespan or null to have no limit
-     * @return entries
-     */
-    public List<Entry> getEntries(LocalDateTime filterStart, LocalDateTime filterEnd) {
-        Timezone timezone = getTimezone();
-        return getEntries(filterStart == null ? null : timezone.convertToUTC(filterStart), filterEnd == null ? null : timezone.convertToUTC(filterEnd));
+     * @param entryFeedEnabled use the http entry feed
+     * @see #setDataProvider(CalendarDataProvider)
+     */
+    public void setEntryFeedEnabled(boolean entryFeedEnabled) {
+        if (this.entryFeedEnabled != entryFeedEnabled) {
+            this.entryFeedEnabled = entryFeedEnabled;
+            getUI().ifPresent(ui -> {
+                if (entryFeedEnabled) {
+                    ui.getSession().addRequestHandler(getEntryFeedHandler());
+                } else {
+                    ui.getSession().removeRequestHandler(getEntryFeedHandler());
+                }
+            });
+
+            if (dataProvider != null) {
+                updateFetchFromServer();
+            }
+        }
     }
 
     /**
-     * Returns all entries registered in this instance which timespan crosses the given date.
-     * <br><br>
-     * Changes in an entry instance is reflected in the
-     * calendar instance on server side, but not client side. If you change an entry make sure to call
-     * {@link #updateEntry(Entry)} afterwards.
+     * Returns, if the entries of a data provider are fetched via the http entry feed.
      *
-     * @param date end point of filter timespan
-     * @return entries
-     * @throws NullPointerException when null is passed
+     * @return http entry feed is used
+     * @see #setEntryFeedEnabled(boolean)
      */
-    public List<Entry> getEntries(@NotNull Instant date) {
-        Objects.requireNonNull(date);
-        return getEntries(date, date.plus(1, ChronoUnit.DAYS));
+    public boolean isEntryFeedEnabled() {
+        return entryFeedEnabled;
+    }
+
+    private EntryFeedRequestHandler getEntryFeedHandler() {
+        if (entryFeedHandler == null) {
+            entryFeedHandler = new EntryFeedRequestHandler(this);
+        }
+        return entryFeedHandler;
+    }
+
+    private void updateFetchFromServer() {
+        callJsFunction("setFetchFromServer", dataProvider != null, entryFeedEnabled ? getEntryFeedHandler().getUrl() : null);
     }
 
     /**
-     * Returns all entries registered in this instance which timespan crosses the given date. The date is converted
-     * to UTC before searching. The conversion is done with the calendars timezone.
-     * <br><br>
-     * Changes in an entry instance is reflected in the
-     * calendar instance on server side, but not client side. If you change an entry make sure to call
-     * {@link #updateEntry(Entry)} afterwards.
+     * Mounts the given entry set. The entries of the set are shown in this calendar and are taken into account
+     * by the entry related methods (e.g. {@link #getEntryById(String)} or {@link #getEntries(Instant, Instant)}),
+     * but are not registered in this instance. This allows sharing the same entries between several calendars.
+     * Entries of this instance have precedence over entries of a set with the same id. On the client side the
+     * entry of the set is hidden as long as the calendar shows an own entry with that id. Noop if the set is
+     * already mounted.
      *
-     * @param date end point of filter timespan
-     * @return entries
+     * @param entrySet entry set
      * @throws NullPointerException when null is passed
      */
-    public List<Entry> getEntries(@NotNull LocalDate date) {
-        Objects.requireNonNull(date);
-        return getEntries(getTimezone().convertToUTC(date));
+    public void mountEntrySet(@NotNull EntrySet entrySet) {
+        Objects.requireNonNull(entrySet);
+        if (!mountedEntrySets.contains(entrySet)) {
+            mountedEntrySets.add(entrySet);
+            sendEntrySet(entrySet);
+        }
     }
 
     /**
-     * Adds an entry to this calendar. Noop if the entry id is already registered.
+     * Unmounts the given entry set. Noop if the set is not mounted.
      *
-     * @param entry entry
+     * @param entrySet entry set
      * @throws NullPointerException when null is passed
      */
-    public void addEntry(@NotNull Entry entry) {
-        Objects.requireNonNull(entry);
-        addEntries(Collections.singletonList(entry));
+    public void unmountEntrySet(@NotNull EntrySet entrySet) {
+        Objects.requireNonNull(entrySet);
+        if (mountedEntrySets.remove(entrySet)) {
+            callJsFunction("removeEntrySet", entrySet.getId());
+        }
     }
 
     /**
-     * Adds an array of entries to the calendar. Noop for the entry id is already registered.
+     * Returns the mounted entry sets.
      *
-     * @param arrayOfEntries array of entries
-     * @throws NullPointerException when null is passed
+     * @return unmodifiable list of entry sets
      */
-    public void addEntries(@NotNull Entry... arrayOfEntries) {
-        addEntries(Arrays.asList(arrayOfEntries));
+    public List<EntrySet> getMountedEntrySets() {
+        return Collections.unmodifiableList(mountedEntrySets);
     }
 
     /**
-     * Adds a list of entries to the calendar. Noop for the entry id is already registered.
+     * Adds a secondary index of the registered entries, which groups them by the key returned by the given
+     * extractor, e.g. {@code calendar.addEntryIndex(Entry::getColor)}. The index is filled with the current
+     * entries and kept up to date, when entries are added, updated or removed or their properties change.
+     * <br><br>
+     * The extractor should only depend on properties, that inform the calendar about changes (the built in
+     * properties of {@link Entry} and the resources of scheduler entries). Subclasses of entry with additional
+     * properties need to call {@link Entry#notifyChanged()} for them.
      *
-     * @param iterableEntries list of entries
+     * @param keyExtractor key extractor (may return null)
+     * @param <K>          key type
+     * @return entry index
      * @throws NullPointerException when null is passed
      */
-    public void addEntries(@NotNull Iterable<Entry> iterableEntries) {
-        Objects.requireNonNull(iterableEntries);
-
-        JsonArray array = Json.createArray();
-        iterableEntries.forEach(entry -> {
-            String id = entry.getId();
-
-            if (!entries.containsKey(id)) {
-                entry.setCalendar(this);
-                entries.put(id, entry);
-                array.set(array.length(), entry.toJson());
-            }
-        });
-
-        if (array.length() > 0) {
-            getElement().callJsFunction("addEvents", array);
-        }
+    public <K> EntryIndex<K> addEntryIndex(@NotNull SerializableFunction<Entry, K> keyExtractor) {
+        Objects.requireNonNull(keyExtractor);
+        return addMultiKeyEntryIndex(entry -> Collections.singleton(keyExtractor.apply(entry)));
     }
 
-
     /**
-     * Updates the given entry on the client side. Will check if the id is already registered, otherwise a noop.
+     * Adds a secondary index of the registered entries, where each entry may be indexed under several keys,
+     * e.g. the resources of a scheduler entry. An entry, for which the extractor returns an empty collection
+     * or null, is not part of the index. See {@link #addEntryIndex(SerializableFunction)} for details.
      *
-     * @param entry entry to update
+     * @param keysExtractor keys extractor
+     * @param <K>           key type
+     * @return entry index
      * @throws NullPointerException when null is passed
      */
-    public void updateEntry(@NotNull Entry entry) {
-        Objects.requireNonNull(entry);
-        updateEntries(Collections.singletonList(entry));
+    public <K> EntryIndex<K> addMultiKeyEntryIndex(@NotNull SerializableFunction<Entry, Collection<K>> keysExtractor) {
+        EntryIndex<K> index = new EntryIndex<>(keysExtractor);
+        entries.values().forEach(index::put);
+        entryIndexes.add(index);
+        return index;
     }
 
     /**
-     * Updates the given entries on the client side. Ignores non-registered entries.
+     * Removes the given secondary index. The index will not be updated anymore.
      *
-     * @param arrayOfEntries entries to update
+     * @param index index to remove
      * @throws NullPointerException when null is passed
      */
-    public void updateEntries(@NotNull Entry... arrayOfEntries) {
-        updateEntries(Arrays.asList(arrayOfEntries));
+    public void removeEntryIndex(@NotNull EntryIndex<?> index) {
+        Objects.requireNonNull(index);
+        entryIndexes.remove(index);
     }
 
-
     /**
-     * Updates the given entries on the client side. Ignores non-registered entries.
-     *
-     * @param iterableEntries entries to update
-     * @throws NullPointerException when null is passed
+     * Sends the entries of the given set to the client. Since the entries are not registered in this
+     * calendar, they are converted with this calendar's timezone explicitly and are marked as not editable.
      */
-    public void updateEntries(@NotNull Iterable<Entry> iterableEntries) {
-        Objects.requireNonNull(entries);
-
-        JsonArray array = Json.createArray();
-        iterableEntries.forEach(entry -> {
-            String id = entry.getId();
-            if (entries.containsKey(id)) {
-                array.set(array.length(), entry.toJson());
-            }
-        });
+    private void sendEntrySet(EntrySet entrySet) {
+        JsonArray array = entrySet.toJson(getTimezone(), entryTimestampsAsEpochMillis);
+        callJsFunction("addEntrySet", entrySet.getId(), compactEntryEncoding ? CompactEntryEncoder.encode(array) : array);
+    }
 
-        if (array.length() > 0) {
-            getElement().callJsFunction("updateEvents", array);
+    private void clearEntries() {
+        entries.values().forEach(e -> e.setCalendar(null));
+        entries.clear();
+        entryIndex.clear();
+        entryDayIndex.clear();
+        recurrenceExpander.clear();
+        entryIndexes.forEach(EntryIndex::clear);
+        if (searchIndex != null) {
+            searchIndex.clear();
         }
     }
 
     /**
-     * Removes the given entry. Noop if the id is not registered.
+     * Informs this instance, that the start or end of the given entry has changed. Updates the internal
+     * index of entries, if the entry is registered in this calendar. Does not update the client side.
      *
      * @param entry entry
-     * @throws NullPointerException when null is passed
      */
-    public void removeEntry(@NotNull Entry entry) {
-        Objects.requireNonNull(entry);
-        removeEntries(Collections.singletonList(entry));
+    void onEntryTimespanChanged(Entry entry) {
+        if (entries.get(entry.getId()) == entry) {
+            indexEntry(entry);
+            trackEntryChange(entry);
+        }
     }
 
     /**
-     * Removes the given entries. Noop for not registered entries.
+     * Informs this instance, that the recurrence of the given entry has changed. Invalidates the cached
+     * occurrences, if the entry is registered in this calendar. Does not update the client side.
      *
-     * @param arrayOfEntries entries to remove
-     * @throws NullPointerException when null is passed
+     * @param entry entry
      */
-    public void removeEntries(@NotNull Entry... arrayOfEntries) {
-        removeEntries(Arrays.asList(arrayOfEntries));
+    void onEntryRecurrenceChanged(Entry entry) {
+        if (entries.get(entry.getId()) == entry) {
+            recurrenceExpander.put(entry);
+            entryIndexes.forEach(index -> index.put(entry));
+            trackEntryChange(entry);
+        }
     }
 
     /**
-     * Removes the given entries. Noop for not registered entries.
+     * Informs this instance, that a property of the given entry has changed, which is neither its timespan
+     * nor its recurrence. Updates the secondary entry indexes, if the entry is registered in this calendar.
+     * Does not update the client side.
      *
-     * @param iterableEntries entries to remove
-     * @throws NullPointerException when null is passed
+     * @param entry entry
      */
-    public void removeEntries(@NotNull Iterable<Entry> iterableEntries) {
-        Objects.requireNonNull(entries);
+    void onEntryChanged(Entry entry) {
+        if (entries.get(entry.getId()) == entry) {
+            entryIndexes.forEach(index -> index.put(entry));
+            if (searchIndex != null) {
+                searchIndex.put(entry);
+            }
+            trackEntryChange(entry);
+        }
+    }
 
-        JsonArray array = Json.createArray();
-        iterableEntries.forEach(entry -> {
-            String id = entry.getId();
+    /**
+     * Remembers the version of the client side state, with which the given entry will be sent. Noop, if the
+     * client side state cache is disabled.
+     */
+    private void trackEntryChange(Entry entry) {
+        if (clientStateCacheEnabled) {
+            entryVersions.put(entry.getId(), stateVersion + 1);
+        }
+    }
 
-            if (entries.containsKey(id)) {
-                entry.setCalendar(null);
-                entries.remove(id);
-                array.set(array.length(), entry.toJson());
+    /**
+     * Remembers the version of the client side state, with which the removal of the given entry will be sent.
+     * Noop, if the client side state cache is disabled.
+     */
+    private void trackEntryRemoval(String id) {
+        if (clientStateCacheEnabled) {
+            entryVersions.remove(id);
+            removedEntryVersions.put(id, stateVersion + 1);
+            if (removedEntryVersions.size() > MAX_TRACKED_ENTRY_REMOVALS) {
+                resetStateTracking();
             }
-        });
+        }
+    }
 
-        if (array.length() > 0) {
-            getElement().callJsFunction("removeEvents", array);
+    /**
+     * Forgets the tracked entry changes. Clients with a cached state older than the next version get the
+     * complete state on a resync.
+     */
+    private void resetStateTracking() {
+        entryVersions.clear();
+        removedEntryVersions.clear();
+        fullResyncVersion = stateVersion + 1;
+    }
+
+    private void indexEntry(Entry entry) {
+        entryIndex.put(entry);
+        entryDayIndex.put(entry);
+        recurrenceExpander.put(entry);
+        entryIndexes.forEach(index -> index.put(entry));
+        if (searchIndex != null) {
+            searchIndex.put(entry);
+        }
+    }
+
+    private void unindexEntry(String id) {
+        entryIndex.remove(id);
+        entryDayIndex.remove(id);
+        recurrenceExpander.remove(id);
+        entryIndexes.forEach(index -> index.remove(id));
+        if (searchIndex != null) {
+            searchIndex.remove(id);
         }
     }
 
     /**
-     * Remove all entries.
+     * Returns the index of days. The index is rebuilt, if the calendar's timezone has changed since the
+     * last time it has been built (e.g. when the timezone option has been set directly).
+     *
+     * @return day index
      */
-    public void removeAllEntries() {
-        entries.values().forEach(e -> e.setCalendar(null));
-        entries.clear();
-        getElement().callJsFunction("removeAllEvents");
+    private EntryDayIndex getDayIndex() {
+        Timezone timezone = getTimezone();
+        if (!timezone.equals(entryDayIndex.getTimezone())) {
+            entryDayIndex.rebuild(timezone, entries.values());
+        }
+        return entryDayIndex;
     }
 
     /**
@@ -443,7 +1702,7 @@ public class FullCalendar extends Component implements HasStyle, HasSize {
      */
     public void changeView(@NotNull CalendarView view) {
         Objects.requireNonNull(view);
-        getElement().callJsFunction("changeView", view.getClientSideValue());
+        callJsFunction("changeView", view.getClientSideValue());
     }
 
     /**
@@ -454,7 +1713,7 @@ public class FullCalendar extends Component implements HasStyle, HasSize {
      */
     public void gotoDate(@NotNull LocalDate date) {
         Objects.requireNonNull(date);
-        getElement().callJsFunction("gotoDate", date.toString());
+        callJsFunction("gotoDate", date.toString());
     }
 
     /**
@@ -574,6 +1833,7 @@ public class FullCalendar extends Component implements HasStyle, HasSize {
     public void setOption(@NotNull String option, Serializable value, Object valueForServerSide) {
         Objects.requireNonNull(option);
 
+        Serializable oldValue = options.get(option);
         if (value == null) {
             options.remove(option);
             serverSideOptions.remove(option);
@@ -586,7 +1846,101 @@ public class FullCalendar extends Component implements HasStyle, HasSize {
                 serverSideOptions.put(option, valueForServerSide);
             }
         }
-        getElement().callJsFunction("setOption", option, value);
+
+        if (isOptionUnchanged(option, value, oldValue)) {
+            return;
+        }
+
+        if (clientStateCacheEnabled) {
+            optionVersions.put(option, stateVersion + 1);
+        }
+
+        pendingOptions.put(option, value);
+        scheduleOptionsFlush();
+    }
+
+    /**
+     * Schedules sending the buffered option changes to the client before the next response. Noop if already
+     * scheduled.
+     */
+    private void scheduleOptionsFlush() {
+        if (!optionsFlushScheduled) {
+            optionsFlushScheduled = true;
+            getElement().getNode().runWhenAttached(ui -> ui.beforeClientResponse(this, context -> flushOptions()));
+        }
+    }
+
+    /**
+     * Checks, if the client already has the given value for the option (or will get it with the next flush).
+     * Removals of unknown options are always sent, since the option might be part of the initial options.
+     */
+    private boolean isOptionUnchanged(String option, Serializable value, Serializable oldValue) {
+        if (pendingOptions.containsKey(option)) {
+            return isEqualOptionValue(value, pendingOptions.get(option));
+        }
+        return value != null && isEqualOptionValue(value, oldValue);
+    }
+
+    /**
+     * Compares option values. Json objects and arrays as well as arrays are mutable and might have been modified
+     * since they have been set, thus they are always treated as changed.
+     */
+    private static boolean isEqualOptionValue(Serializable value, Serializable otherValue) {
+        if (isMutableOptionValue(value) || isMutableOptionValue(otherValue)) {
+            return false;
+        }
+        if (value instanceof JsonValue && otherValue instanceof JsonValue) {
+            return ((JsonValue) value).jsEquals((JsonValue) otherValue);
+        }
+        return Objects.equals(value, otherValue);
+    }
+
+    private static boolean isMutableOptionValue(Serializable value) {
+        return value instanceof JsonObject || value instanceof JsonArray || (value != null && value.getClass().isArray());
+    }
+
+    /**
+     * Returns the entry changes, that have not been sent to the client yet.
+     *
+     * @return pending entry changes
+     */
+    PendingEntryChanges getPendingEntryChanges() {
+        return pendingEntryChanges;
+    }
+
+    /**
+     * Returns the option changes, that have not been sent to the client yet.
+     *
+     * @return unmodifiable map of pending option changes
+     */
+    Map<String, Serializable> getPendingOptions() {
+        return Collections.unmodifiableMap(pendingOptions);
+    }
+
+    /**
+     * Sends the buffered option changes to the client, which applies them in one rendering batch.
+     */
+    private void flushOptions() {
+        optionsFlushScheduled = false;
+        if (!pendingOptions.isEmpty()) {
+            JsonObject json = Json.createObject();
+            pendingOptions.forEach((key, value) -> json.put(key, JsonUtils.toJsonValue(value)));
+            pendingOptions.clear();
+            getElement().callJsFunction("setOptions", json, ++stateVersion);
+        }
+    }
+
+    /**
+     * Calls the given client side function. Buffered option changes are sent before, so that the client
+     * applies them in the order of the server side calls. Subclasses should use this method instead of
+     * calling the element directly to keep that order.
+     *
+     * @param functionName name of the client side function
+     * @param arguments    arguments
+     */
+    protected void callJsFunction(String functionName, Serializable... arguments) {
+        flushOptions();
+        getElement().callJsFunction(functionName, arguments);
     }
 
     /**
@@ -715,7 +2069,8 @@ public class FullCalendar extends Component implements HasStyle, HasSize {
      * @param s js function to be attached to eventRender callback
      */
     public void setEntryRenderCallback(String s) {
-        getElement().callJsFunction("setEventRenderCallback", s);
+        entryRenderCallback = s;
+        callJsFunction("setEventRenderCallback", s);
     }
 
     /**
@@ -793,7 +2148,15 @@ public class FullCalendar extends Component implements HasStyle, HasSize {
         Timezone oldTimezone = getTimezone();
         if (!timezone.equals(oldTimezone)) {
             setOption("timeZone", timezone.getClientSideValue(), timezone);
-            updateEntries(getEntries());
+            entryDayIndex.rebuild(timezone, entries.values());
+            // all dates have to be formatted with the new timezone, epoch millis are converted by the client
+            if (!entryTimestampsAsEpochMillis) {
+                updateEntries(new ArrayList<>(entries.values()), true);
+                mountedEntrySets.forEach(entrySet -> {
+                    callJsFunction("removeEntrySet", entrySet.getId());
+                    sendEntrySet(entrySet);
+                });
+            }
         }
     }
 
@@ -908,7 +2271,32 @@ public class FullCalendar extends Component implements HasStyle, HasSize {
      * Force the client side instance to re-render it's content.
      */
     public void render() {
-        getElement().callJsFunction("render");
+        callJsFunction("render");
+    }
+
+    @Override
+    protected void onAttach(AttachEvent attachEvent) {
+        super.onAttach(attachEvent);
+        attachedUI = attachEvent.getUI();
+        scheduleSubmittedChangesFlush();
+        if (!attachEvent.isInitialAttach()) {
+            // the client side element is new, let it report, which state it could restore
+            resyncRequested = true;
+            callJsFunction("requestResync");
+        }
+        if (entryFeedEnabled) {
+            attachEvent.getUI().getSession().addRequestHandler(getEntryFeedHandler());
+        }
+    }
+
+    @Override
+    protected void onDetach(DetachEvent detachEvent) {
+        super.onDetach(detachEvent);
+        attachedUI = null;
+        cancelSubmittedChangesFlush();
+        if (entryFeedEnabled) {
+            detachEvent.getUI().getSession().removeRequestHandler(getEntryFeedHandler());
+        }
     }
 
     /**
@@ -1026,6 +2414,19 @@ public class FullCalendar extends Component implements HasStyle, HasSize {
         return addListener(WeekNumberClickedEvent.class, listener);
     }
 
+    /**
+     * Registers a listener to be informed, when a chunk of progressively loaded entries has been sent to the
+     * client (see {@link #setProgressiveLoadingChunkSize(int)}).
+     *
+     * @param listener listener
+     * @return registration to remove the listener
+     * @throws NullPointerException when null is passed
+     */
+    public Registration addEntryLoadingProgressListener(@NotNull ComponentEventListener<EntryLoadingProgressEvent> listener) {
+        Objects.requireNonNull(listener);
+        return addListener(EntryLoadingProgressEvent.class, listener);
+    }
+
     /**
      * Registers a listener to be informed, when the browser's timezone has been obtained by the server.
      *
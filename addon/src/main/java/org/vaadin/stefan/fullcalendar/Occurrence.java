@@ -0,0 +1,134 @@
+/*
+ * Copyright 2018, Stefan Uebe
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions
+ * of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.vaadin.stefan.fullcalendar;
+
+import javax.validation.constraints.NotNull;
+import java.io.Serializable;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * A single occurrence of an entry in a timespan. For a recurring entry, this is one of its recurrences, for
+ * a normal entry it is the entry's own timespan. Instances are immutable.
+ *
+ * @see FullCalendar#getOccurrences(Instant, Instant)
+ */
+public class Occurrence implements Serializable {
+
+    private final Entry entry;
+    private final Instant start;
+    private final Instant end;
+    private final boolean allDay;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param entry  entry
+     * @param start  start of the occurrence (UTC based)
+     * @param end    end of the occurrence (UTC based)
+     * @param allDay is an all day occurrence
+     * @throws NullPointerException when null is passed for the entry
+     */
+    public Occurrence(@NotNull Entry entry, Instant start, Instant end, boolean allDay) {
+        this.entry = Objects.requireNonNull(entry);
+        this.start = start;
+        this.end = end;
+        this.allDay = allDay;
+    }
+
+    /**
+     * Returns the entry of this occurrence.
+     *
+     * @return entry
+     */
+    public Entry getEntry() {
+        return entry;
+    }
+
+    /**
+     * Returns the start of this occurrence.
+     *
+     * @return start
+     */
+    public Instant getStartUTC() {
+        return start;
+    }
+
+    /**
+     * Returns the end of this occurrence.
+     *
+     * @return end
+     */
+    public Instant getEndUTC() {
+        return end;
+    }
+
+    /**
+     * Returns the start of this occurrence converted with the entry's start timezone.
+     *
+     * @return start
+     */
+    public LocalDateTime getStart() {
+        return start != null ? entry.getStartTimezone().convertToLocalDateTime(start) : null;
+    }
+
+    /**
+     * Returns the end of this occurrence converted with the entry's end timezone.
+     *
+     * @return end
+     */
+    public LocalDateTime getEnd() {
+        return end != null ? entry.getEndTimezone().convertToLocalDateTime(end) : null;
+    }
+
+    /**
+     * Returns, if this is an all day occurrence.
+     *
+     * @return all day
+     */
+    public boolean isAllDay() {
+        return allDay;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        Occurrence that = (Occurrence) o;
+        return allDay == that.allDay && entry.equals(that.entry) && Objects.equals(start, that.start) && Objects.equals(end, that.end);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(entry, start, end, allDay);
+    }
+
+    @Override
+    public String toString() {
+        return "Occurrence{" +
+                "entry=" + entry.getId() +
+                ", start=" + start +
+                ", end=" + end +
+                ", allDay=" + allDay +
+                '}';
+    }
+}
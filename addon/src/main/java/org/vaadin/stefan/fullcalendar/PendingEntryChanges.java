@@ -0,0 +1,460 @@
+/*
+ * Copyright 2018, Stefan Uebe
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions
+ * of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.vaadin.stefan.fullcalendar;
+
+import elemental.json.Json;
+import elemental.json.JsonArray;
+import elemental.json.JsonObject;
+
+import javax.validation.constraints.NotNull;
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Internal buffer of entry changes, that have not yet been sent to the client. Changes for the same entry are
+ * collapsed, e.g. an entry, that is added and updated, is only sent once as added, and an entry, that is added
+ * and removed again, is not sent at all. The entries are converted to json, when the changes are flushed,
+ * so that the latest state of each entry is sent.
+ * <br><br>
+ * When a chunk size is set and more entries are added than fit into one chunk, the added entries are queued
+ * and sent chunk by chunk. The client requests each chunk after it has rendered the previous one (see
+ * {@link #requestNextChunk()}), preferred entries (e.g. the visible ones) are sent first.
+ * <br><br>
+ * When deferring is activated and the visible timespan is known, added or updated entries outside of it are held
+ * back until they become visible (see {@link #undefer(Iterator)}). An updated entry, that is held back, is removed
+ * on the client, so that no outdated version remains there. It is added again, when it becomes visible. Recurring
+ * entries and entries without a start are never held back.
+ * <br><br>
+ * The flushed json object contains the following optional keys, which the client applies in this order:
+ * <ul>
+ *     <li>removeAll: true, if all entries have to be removed</li>
+ *     <li>remove: array of the ids of removed entries</li>
+ *     <li>add: array of added entries or, when compact encoding is used, an object created by
+ *     {@link CompactEntryEncoder}</li>
+ *     <li>update: array of updated entries (see {@link Entry#toJsonChanges()})</li>
+ *     <li>more: true, if the client shall request the next chunk of queued entries</li>
+ * </ul>
+ */
+final class PendingEntryChanges implements Serializable {
+
+    private boolean removeAll;
+    private final Set<String> removedIds = new LinkedHashSet<>();
+    private final Map<String, Entry> addedEntries = new LinkedHashMap<>();
+    private final Map<String, Entry> updatedEntries = new LinkedHashMap<>();
+    private final Set<String> fullUpdates = new HashSet<>();
+
+    private int chunkSize;
+    private final Map<String, Entry> queuedEntries = new LinkedHashMap<>();
+    private boolean chunkRequested;
+    private boolean awaitingChunkRequest;
+    private int loadedCount;
+    private int totalCount;
+
+    private boolean deferOutOfRange;
+    private Instant visibleStart;
+    private Instant visibleEnd;
+    private final Map<String, Entry> deferredEntries = new LinkedHashMap<>();
+
+    private final EntrySerializer serializer;
+
+    /**
+     * Creates a new instance, that converts the entries sequentially.
+     */
+    PendingEntryChanges() {
+        this(new EntrySerializer());
+    }
+
+    /**
+     * Creates a new instance, that converts the entries with the given serializer.
+     *
+     * @param serializer serializer
+     */
+    PendingEntryChanges(@NotNull EntrySerializer serializer) {
+        this.serializer = Objects.requireNonNull(serializer);
+    }
+
+    /**
+     * Registers the given entry as added.
+     *
+     * @param entry entry
+     * @throws NullPointerException when null is passed
+     */
+    void add(@NotNull Entry entry) {
+        String id = entry.getId();
+        addedEntries.put(id, entry);
+        updatedEntries.remove(id);
+        fullUpdates.remove(id);
+    }
+
+    /**
+     * Registers the given entry as updated. Noop, if the entry is registered as added or queued, since it will
+     * be sent completely anyway. A held back entry is registered as added again, since the update might have
+     * moved it into the visible timespan.
+     *
+     * @param entry      entry
+     * @param fullUpdate send the complete entry instead of the changed properties
+     * @throws NullPointerException when null is passed
+     */
+    void update(@NotNull Entry entry, boolean fullUpdate) {
+        String id = entry.getId();
+        if (deferredEntries.remove(id) != null) {
+            addedEntries.put(id, entry);
+        } else if (!addedEntries.containsKey(id) && !queuedEntries.containsKey(id)) {
+            updatedEntries.put(id, entry);
+            if (fullUpdate) {
+                fullUpdates.add(id);
+            }
+        }
+    }
+
+    /**
+     * Registers the given entry as removed. If the entry has been registered as added, is queued or is held back,
+     * it is simply dropped, since the client does not know it (anymore).
+     *
+     * @param entry entry
+     * @throws NullPointerException when null is passed
+     */
+    void remove(@NotNull Entry entry) {
+        String id = entry.getId();
+        if (addedEntries.remove(id) != null || deferredEntries.remove(id) != null) {
+            return;
+        }
+
+        if (queuedEntries.remove(id) != null) {
+            totalCount--;
+            return;
+        }
+
+        updatedEntries.remove(id);
+        fullUpdates.remove(id);
+        removedIds.add(id);
+    }
+
+    /**
+     * Registers the given entry as replaced: the client removes its version of the entry, if it has one, and
+     * adds the entry again. Used, when it is unknown, which version of the entry the client has.
+     *
+     * @param entry entry
+     * @throws NullPointerException when null is passed
+     */
+    void replace(@NotNull Entry entry) {
+        String id = entry.getId();
+        discard(id);
+        removedIds.add(id);
+        add(entry);
+    }
+
+    /**
+     * Registers the removal of the entry with the given id regardless of whether the client knows it. Buffered
+     * changes of the entry are discarded.
+     *
+     * @param id entry id
+     * @throws NullPointerException when null is passed
+     */
+    void removeById(@NotNull String id) {
+        discard(Objects.requireNonNull(id));
+        removedIds.add(id);
+    }
+
+    private void discard(String id) {
+        addedEntries.remove(id);
+        updatedEntries.remove(id);
+        fullUpdates.remove(id);
+        deferredEntries.remove(id);
+        if (queuedEntries.remove(id) != null) {
+            totalCount--;
+        }
+    }
+
+    /**
+     * Returns, if a chunked loading is in progress, i.e. there are queued entries, that have not been sent yet.
+     *
+     * @return chunked loading in progress
+     */
+    boolean isChunkedLoadingInProgress() {
+        return !queuedEntries.isEmpty();
+    }
+
+    /**
+     * Registers the removal of all entries. Previously buffered changes and queued entries are discarded.
+     */
+    void removeAll() {
+        clear();
+        removeAll = true;
+    }
+
+    /**
+     * Discards all buffered changes, queued and held back entries.
+     */
+    void clear() {
+        deferredEntries.clear();
+        removeAll = false;
+        removedIds.clear();
+        addedEntries.clear();
+        updatedEntries.clear();
+        fullUpdates.clear();
+
+        queuedEntries.clear();
+        chunkRequested = false;
+        awaitingChunkRequest = false;
+        loadedCount = 0;
+        totalCount = 0;
+    }
+
+    /**
+     * Returns, if there are no buffered changes to be sent.
+     *
+     * @return is empty
+     */
+    boolean isEmpty() {
+        return !removeAll && removedIds.isEmpty() && addedEntries.isEmpty() && updatedEntries.isEmpty()
+                && (queuedEntries.isEmpty() || (!chunkRequested && chunkSize > 0));
+    }
+
+    /**
+     * Sets the maximal amount of added entries sent at once. 0 disables the chunking, queued entries are
+     * then sent with the next flush.
+     *
+     * @param chunkSize chunk size
+     */
+    void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Marks, that the client has requested the next chunk of queued entries.
+     */
+    void requestNextChunk() {
+        chunkRequested = true;
+        awaitingChunkRequest = false;
+    }
+
+    /**
+     * Activates or deactivates holding back entries outside of the visible timespan. When deactivated, held back
+     * entries are registered as added again.
+     *
+     * @param deferOutOfRange hold back entries outside of the visible timespan
+     */
+    void setDeferOutOfRange(boolean deferOutOfRange) {
+        this.deferOutOfRange = deferOutOfRange;
+        if (!deferOutOfRange) {
+            deferredEntries.values().forEach(this::add);
+            deferredEntries.clear();
+        }
+    }
+
+    /**
+     * Sets the timespan currently shown by the client.
+     *
+     * @param visibleStart start of the visible timespan
+     * @param visibleEnd   end of the visible timespan
+     */
+    void setVisibleRange(Instant visibleStart, Instant visibleEnd) {
+        this.visibleStart = visibleStart;
+        this.visibleEnd = visibleEnd;
+    }
+
+    /**
+     * Registers the held back entries among the given ones as added, so that they are sent with the next flush.
+     *
+     * @param entries entries, that became visible
+     * @return true, if any entry has been registered as added
+     */
+    boolean undefer(@NotNull Iterator<Entry> entries) {
+        boolean undeferred = false;
+        while (!deferredEntries.isEmpty() && entries.hasNext()) {
+            Entry entry = deferredEntries.remove(entries.next().getId());
+            if (entry != null) {
+                addedEntries.put(entry.getId(), entry);
+                undeferred = true;
+            }
+        }
+        return undeferred;
+    }
+
+    /**
+     * Returns the amount of entries, that are held back, since they are outside of the visible timespan.
+     *
+     * @return amount of held back entries
+     */
+    int getDeferredCount() {
+        return deferredEntries.size();
+    }
+
+    /**
+     * Returns the amount of entries sent since the current chunked loading has started.
+     *
+     * @return loaded entries
+     */
+    int getLoadedCount() {
+        return loadedCount;
+    }
+
+    /**
+     * Returns the total amount of entries of the current chunked loading.
+     *
+     * @return total entries
+     */
+    int getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * Converts the buffered changes to json and clears the buffer. The changed properties of the sent entries are
+     * marked as synchronized.
+     *
+     * @param compactEncoding  encode added entries with the {@link CompactEntryEncoder}
+     * @param preferredEntries entries, that shall be sent in the first chunks, if they are queued
+     * @return json object with the changes
+     */
+    JsonObject flush(boolean compactEncoding, @NotNull Iterator<Entry> preferredEntries) {
+        deferOutOfRangeEntries();
+
+        JsonObject json = Json.createObject();
+        if (removeAll) {
+            json.put("removeAll", true);
+        }
+
+        if (!removedIds.isEmpty()) {
+            // the client only needs the id to remove an entry
+            JsonArray array = Json.createArray();
+            removedIds.forEach(id -> array.set(array.length(), id));
+            json.put("remove", array);
+        }
+
+        Collection<Entry> entriesToAdd = takeEntriesToAdd(json, preferredEntries);
+        if (!entriesToAdd.isEmpty()) {
+            JsonArray array = serializer.serialize(entriesToAdd, Entry::toCachedJson);
+            entriesToAdd.forEach(Entry::clearChangedProperties);
+            json.put("add", compactEncoding ? CompactEntryEncoder.encode(array) : array);
+        }
+
+        if (!updatedEntries.isEmpty()) {
+            JsonArray array = serializer.serialize(updatedEntries.values(),
+                    entry -> fullUpdates.contains(entry.getId()) ? entry.toCachedJson() : entry.toJsonChanges());
+            updatedEntries.values().forEach(Entry::clearChangedProperties);
+            json.put("update", array);
+        }
+
+        removeAll = false;
+        removedIds.clear();
+        addedEntries.clear();
+        updatedEntries.clear();
+        fullUpdates.clear();
+        return json;
+    }
+
+    /**
+     * Moves the added and updated entries outside of the visible timespan to the held back ones. Updated entries
+     * are removed on the client.
+     */
+    private void deferOutOfRangeEntries() {
+        if (!deferOutOfRange || visibleStart == null || visibleEnd == null) {
+            return;
+        }
+
+        for (Iterator<Entry> iterator = addedEntries.values().iterator(); iterator.hasNext(); ) {
+            Entry entry = iterator.next();
+            if (isDeferrable(entry)) {
+                deferredEntries.put(entry.getId(), entry);
+                iterator.remove();
+            }
+        }
+
+        for (Iterator<Entry> iterator = updatedEntries.values().iterator(); iterator.hasNext(); ) {
+            Entry entry = iterator.next();
+            if (isDeferrable(entry)) {
+                String id = entry.getId();
+                deferredEntries.put(id, entry);
+                fullUpdates.remove(id);
+                removedIds.add(id);
+                iterator.remove();
+            }
+        }
+    }
+
+    private boolean isDeferrable(Entry entry) {
+        return entry.getStartUTC() != null && !RecurrenceExpander.isRecurring(entry)
+                && !EntryIntervalIndex.matches(entry, visibleStart, visibleEnd);
+    }
+
+    /**
+     * Returns the added entries to be sent with this flush. Queues the added entries instead, if they do not fit
+     * into one chunk or a chunked loading is in progress, and then takes the next chunk, if the client has
+     * requested it. Adds the "more" key to the json, when chunks are involved.
+     */
+    private Collection<Entry> takeEntriesToAdd(JsonObject json, Iterator<Entry> preferredEntries) {
+        if (chunkSize <= 0 || (queuedEntries.isEmpty() && !awaitingChunkRequest && addedEntries.size() <= chunkSize)) {
+            // send all at once
+            List<Entry> entries = new ArrayList<>(queuedEntries.values());
+            entries.addAll(addedEntries.values());
+            if (!queuedEntries.isEmpty()) {
+                queuedEntries.clear();
+                loadedCount = totalCount;
+                json.put("more", false);
+            }
+            chunkRequested = false;
+            awaitingChunkRequest = false;
+            return entries;
+        }
+
+        if (loadedCount == totalCount) {
+            // the previous chunked loading has been completed
+            loadedCount = 0;
+            totalCount = 0;
+        }
+        totalCount += addedEntries.size();
+        queuedEntries.putAll(addedEntries);
+
+        if (chunkRequested) {
+            chunkRequested = false;
+            List<Entry> chunk = takeChunk(preferredEntries);
+            loadedCount += chunk.size();
+            awaitingChunkRequest = !queuedEntries.isEmpty();
+            json.put("more", awaitingChunkRequest);
+            return chunk;
+        }
+
+        if (!awaitingChunkRequest && !queuedEntries.isEmpty()) {
+            // let the client request the first chunk, so that it can tell, which entries are visible
+            awaitingChunkRequest = true;
+            json.put("more", true);
+        }
+
+        return Collections.emptyList();
+    }
+
+    private List<Entry> takeChunk(Iterator<Entry> preferredEntries) {
+        List<Entry> chunk = new ArrayList<>(Math.min(chunkSize, queuedEntries.size()));
+
+        while (chunk.size() < chunkSize && preferredEntries.hasNext()) {
+            Entry entry = queuedEntries.remove(preferredEntries.next().getId());
+            if (entry != null) {
+                chunk.add(entry);
+            }
+        }
+
+        Iterator<Entry> iterator = queuedEntries.values().iterator();
+        while (chunk.size() < chunkSize && iterator.hasNext()) {
+            chunk.add(iterator.next());
+            iterator.remove();
+        }
+
+        return chunk;
+    }
+}
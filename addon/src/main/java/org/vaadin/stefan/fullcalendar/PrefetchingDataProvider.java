@@ -0,0 +1,333 @@
+/*
+ * Copyright 2018, Stefan Uebe
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions
+ * of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.vaadin.stefan.fullcalendar;
+
+import javax.validation.constraints.NotNull;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A data provider, that wraps another data provider and caches the fetched entries in a sliding window around the
+ * requested timespan. Each time a timespan is fetched, the previous and the next timespan of the same length are
+ * loaded asynchronously, so that navigating with {@link FullCalendar#previous()} or {@link FullCalendar#next()} can
+ * be answered from the cache.
+ * <br><br>
+ * Cached timespans, that are more than {@link #getMaxRangeDistance()} timespans away from the current one, are evicted.
+ * Prefetches of evicted timespans, that have not yet been started by the executor, are cancelled, so that rapid
+ * navigation does not queue up loads of timespans, that are not needed anymore.
+ * Additionally the amount of cached entries is limited by {@link #getMaxCachedEntries()}, where the timespans farthest
+ * away are evicted first.
+ * <br><br>
+ * Please note, that the wrapped data provider is called from the threads of the given executor and thus must not
+ * rely on thread bound information like {@code UI.getCurrent()} or {@code VaadinSession.getCurrent()}. When the
+ * backend data has changed, call {@link #clearCache()} before {@link FullCalendar#refreshAll()}.
+ */
+public class PrefetchingDataProvider implements CalendarDataProvider {
+
+    /**
+     * Default value for {@link #getMaxRangeDistance()}.
+     */
+    public static final int DEFAULT_MAX_RANGE_DISTANCE = 2;
+
+    /**
+     * Default value for {@link #getMaxCachedEntries()}.
+     */
+    public static final int DEFAULT_MAX_CACHED_ENTRIES = 10000;
+
+    private final CalendarDataProvider delegate;
+    private transient Executor executor;
+    private transient List<CachedRange> cachedRanges;
+
+    private int maxRangeDistance = DEFAULT_MAX_RANGE_DISTANCE;
+    private int maxCachedEntries = DEFAULT_MAX_CACHED_ENTRIES;
+
+    /**
+     * Creates a new instance, that prefetches using the common fork join pool.
+     *
+     * @param delegate data provider to fetch the entries from
+     * @throws NullPointerException when null is passed
+     */
+    public PrefetchingDataProvider(@NotNull CalendarDataProvider delegate) {
+        this(delegate, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a new instance, that prefetches using the given executor.
+     *
+     * @param delegate data provider to fetch the entries from
+     * @param executor executor to run the prefetching
+     * @throws NullPointerException when null is passed
+     */
+    public PrefetchingDataProvider(@NotNull CalendarDataProvider delegate, @NotNull Executor executor) {
+        this.delegate = Objects.requireNonNull(delegate);
+        this.executor = Objects.requireNonNull(executor);
+    }
+
+    /**
+     * Returns the wrapped data provider.
+     *
+     * @return data provider
+     */
+    public CalendarDataProvider getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * Returns the maximal distance (measured in timespans of the last fetch) a cached timespan may have to the
+     * last fetched one before it is evicted.
+     *
+     * @return max distance
+     */
+    public int getMaxRangeDistance() {
+        return maxRangeDistance;
+    }
+
+    /**
+     * Sets the maximal distance (measured in timespans of the last fetch) a cached timespan may have to the
+     * last fetched one before it is evicted. Must be at least 1, since otherwise the prefetched timespans would
+     * be evicted immediately.
+     *
+     * @param maxRangeDistance max distance
+     * @throws IllegalArgumentException when a value lower than 1 is passed
+     */
+    public void setMaxRangeDistance(int maxRangeDistance) {
+        if (maxRangeDistance < 1) {
+            throw new IllegalArgumentException("Max range distance must be at least 1, but was " + maxRangeDistance);
+        }
+        this.maxRangeDistance = maxRangeDistance;
+    }
+
+    /**
+     * Returns the maximal amount of cached entries. The entries of the last fetched timespan are always kept,
+     * even if they exceed this limit.
+     *
+     * @return max entries
+     */
+    public int getMaxCachedEntries() {
+        return maxCachedEntries;
+    }
+
+    /**
+     * Sets the maximal amount of cached entries. The entries of the last fetched timespan are always kept,
+     * even if they exceed this limit.
+     *
+     * @param maxCachedEntries max entries
+     * @throws IllegalArgumentException when a negative value is passed
+     */
+    public void setMaxCachedEntries(int maxCachedEntries) {
+        if (maxCachedEntries < 0) {
+            throw new IllegalArgumentException("Max cached entries must not be negative, but was " + maxCachedEntries);
+        }
+        this.maxCachedEntries = maxCachedEntries;
+    }
+
+    /**
+     * Removes all cached entries. Should be called when the data of the wrapped data provider has changed.
+     */
+    public synchronized void clearCache() {
+        getCachedRanges().forEach(range -> range.future.cancel(false));
+        getCachedRanges().clear();
+    }
+
+    /**
+     * Returns the amount of entries, that are currently cached. Timespans, that are still loading, are not
+     * taken into account.
+     *
+     * @return amount of cached entries
+     */
+    public synchronized int getCachedEntryCount() {
+        return getCachedRanges().stream().mapToInt(CachedRange::getLoadedSize).sum();
+    }
+
+    @Override
+    public synchronized Stream<? extends Entry> fetch(@NotNull Instant start, @NotNull Instant end) {
+        Objects.requireNonNull(start);
+        Objects.requireNonNull(end);
+
+        Duration length = Duration.between(start, end);
+        if (length.isZero() || length.isNegative()) {
+            return delegate.fetch(start, end);
+        }
+
+        Collection<Entry> entries = getFromCache(start, end);
+        if (entries == null) {
+            List<Entry> loaded = load(start, end);
+            getCachedRanges().add(new CachedRange(start, end, CompletableFuture.completedFuture(loaded)));
+            entries = loaded;
+        }
+
+        prefetch(start.minus(length), start);
+        prefetch(end, end.plus(length));
+        evict(start, end, length);
+
+        return entries.stream().filter(e -> isInRange(e, start, end));
+    }
+
+    /**
+     * Returns the entries of the given timespan from the cache or null, if the cached timespans do not cover the
+     * given one completely. Waits for timespans, that are still loading.
+     */
+    private Collection<Entry> getFromCache(Instant start, Instant end) {
+        List<CachedRange> covering = getCovering(start, end);
+        if (covering == null) {
+            return null;
+        }
+
+        Map<String, Entry> entries = new LinkedHashMap<>();
+        for (CachedRange range : covering) {
+            try {
+                range.future.join().forEach(e -> entries.putIfAbsent(e.getId(), e));
+            } catch (CompletionException e) {
+                // the prefetch failed, so we remove it and let the caller load the timespan directly
+                getCachedRanges().remove(range);
+                return null;
+            }
+        }
+
+        return entries.values();
+    }
+
+    /**
+     * Returns the cached timespans, that cover the given timespan or null, if there are gaps.
+     */
+    private List<CachedRange> getCovering(Instant start, Instant end) {
+        List<CachedRange> overlapping = getCachedRanges().stream()
+                .filter(r -> r.end.isAfter(start) && r.start.isBefore(end))
+                .sorted(Comparator.comparing(r -> r.start))
+                .collect(Collectors.toList());
+
+        Instant covered = start;
+        for (CachedRange range : overlapping) {
+            if (range.start.isAfter(covered)) {
+                return null;
+            }
+            if (range.end.isAfter(covered)) {
+                covered = range.end;
+            }
+        }
+
+        return covered.isBefore(end) ? null : overlapping;
+    }
+
+    private void prefetch(Instant start, Instant end) {
+        if (getCovering(start, end) == null) {
+            getCachedRanges().add(new CachedRange(start, end, CompletableFuture.supplyAsync(() -> load(start, end), getExecutor())));
+        }
+    }
+
+    private void evict(Instant start, Instant end, Duration length) {
+        Duration maxDistance = length.multipliedBy(maxRangeDistance);
+        Instant minStart = start.minus(maxDistance);
+        Instant maxEnd = end.plus(maxDistance);
+
+        List<CachedRange> cachedRanges = getCachedRanges();
+        cachedRanges.removeIf(r -> {
+            if (!r.end.isAfter(minStart) || !r.start.isBefore(maxEnd)) {
+                // the timespan is not needed anymore, so a prefetch, that has not yet started, is skipped
+                r.future.cancel(false);
+                return true;
+            }
+            return false;
+        });
+
+        int cachedEntries = getCachedEntryCount();
+        if (cachedEntries > maxCachedEntries) {
+            // evict the farthest timespans first, but keep the ones of the current timespan
+            Instant center = start.plus(length.dividedBy(2));
+            List<CachedRange> candidates = cachedRanges.stream()
+                    .filter(r -> !r.end.isAfter(start) || !r.start.isBefore(end))
+                    .sorted(Comparator.comparing((CachedRange r) -> Duration.between(center, r.getCenter()).abs()).reversed())
+                    .collect(Collectors.toList());
+
+            for (Iterator<CachedRange> iterator = candidates.iterator(); iterator.hasNext() && cachedEntries > maxCachedEntries; ) {
+                CachedRange range = iterator.next();
+                cachedEntries -= range.getLoadedSize();
+                range.future.cancel(false);
+                cachedRanges.remove(range);
+            }
+        }
+    }
+
+    private List<Entry> load(Instant start, Instant end) {
+        return delegate.fetch(start, end).collect(Collectors.toList());
+    }
+
+    /**
+     * Checks, if the given entry, which has been returned by the delegate for a cached timespan, belongs to the
+     * requested one. Entries, that the delegate might return regardless of their own dates (recurring entries,
+     * entries without a start), are always kept. An entry without an end is shown with the default duration on
+     * the client side and is checked with that.
+     */
+    private static boolean isInRange(Entry entry, Instant start, Instant end) {
+        Instant entryStart = entry.getStartUTC();
+        if (entryStart == null || RecurrenceExpander.isRecurring(entry)) {
+            return true;
+        }
+
+        Instant entryEnd = entry.getEndUTC();
+        if (entryEnd == null) {
+            entryEnd = entry.isAllDay()
+                    ? entryStart.plus(FullCalendar.DEFAULT_DAY_EVENT_DURATION, ChronoUnit.DAYS)
+                    : entryStart.plus(FullCalendar.DEFAULT_TIMED_EVENT_DURATION, ChronoUnit.HOURS);
+        }
+
+        return entryEnd.isAfter(start) && entryStart.isBefore(end);
+    }
+
+    private List<CachedRange> getCachedRanges() {
+        if (cachedRanges == null) {
+            cachedRanges = new ArrayList<>();
+        }
+        return cachedRanges;
+    }
+
+    private Executor getExecutor() {
+        if (executor == null) {
+            // transient field is not restored after deserialization
+            executor = ForkJoinPool.commonPool();
+        }
+        return executor;
+    }
+
+    private static final class CachedRange {
+        private final Instant start;
+        private final Instant end;
+        private final CompletableFuture<List<Entry>> future;
+
+        private CachedRange(Instant start, Instant end, CompletableFuture<List<Entry>> future) {
+            this.start = start;
+            this.end = end;
+            this.future = future;
+        }
+
+        private Instant getCenter() {
+            return start.plus(Duration.between(start, end).dividedBy(2));
+        }
+
+        private int getLoadedSize() {
+            return future.isDone() && !future.isCompletedExceptionally() ? future.join().size() : 0;
+        }
+    }
+}
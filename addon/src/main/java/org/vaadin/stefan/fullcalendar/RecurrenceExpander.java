@@ -0,0 +1,261 @@
+/*
+ * Copyright 2018, Stefan Uebe
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions
+ * of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.vaadin.stefan.fullcalendar;
+
+import javax.validation.constraints.NotNull;
+import java.io.Serializable;
+import java.time.*;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Internal expander for the occurrences of recurring entries. An entry counts as recurring, when any of its
+ * recurrence properties is set (which is the same check as the client side does). Recurrences are calculated
+ * the same way as the client does it: for each day (in the given timezone) between the recurring start and end date,
+ * that matches the recurring days of week, an occurrence is created at the recurring start time. Without a start
+ * time, the occurrence is an all day occurrence.
+ * <br><br>
+ * The expander keeps track of the recurring entries of a calendar and caches the occurrences of the last
+ * requested timespans (e.g. the visible ones). The cache is invalidated, when the recurrence of an entry changes.
+ * Entries are indexed by the bounds of their recurrence, so that only entries, which recurrence overlaps a
+ * requested timespan, are expanded.
+ */
+final class RecurrenceExpander implements Serializable {
+
+    /**
+     * Amount of timespans, for which the occurrences are cached.
+     */
+    static final int MAX_CACHED_TIMESPANS = 8;
+
+    /**
+     * Time, that an occurrence may start before its recurring start date (the day in the calendar timezone) or
+     * end after its recurring end date (the occurrence's duration plus a day for dst changes).
+     */
+    private static final Duration RECURRENCE_BOUNDS_MARGIN = Duration.ofDays(FullCalendar.DEFAULT_DAY_EVENT_DURATION + 1);
+
+    private final Map<String, Entry> recurringEntries = new HashMap<>();
+    private final Map<String, List<Object>> recurrences = new HashMap<>();
+    private final EntryIntervalIndex recurrenceBoundsIndex = new EntryIntervalIndex(
+            entry -> Optional.ofNullable(entry.getRecurringStartDate()).orElse(Instant.MIN),
+            entry -> Optional.ofNullable(entry.getRecurringEndDate()).orElse(Instant.MAX));
+    private final Map<List<Instant>, List<Occurrence>> cache = new OccurrenceCache();
+    private Timezone cacheTimezone;
+
+    /**
+     * Checks, if the given entry has any recurrence information.
+     *
+     * @param entry entry
+     * @return is recurring
+     */
+    static boolean isRecurring(@NotNull Entry entry) {
+        Set<DayOfWeek> daysOfWeeks = entry.getRecurringDaysOfWeeks();
+        return (daysOfWeeks != null && !daysOfWeeks.isEmpty())
+                || entry.getRecurringStartTime() != null
+                || entry.getRecurringEndTime() != null
+                || entry.getRecurringStartDate() != null
+                || entry.getRecurringEndDate() != null;
+    }
+
+    /**
+     * Returns the recurrence properties of the given entry, that define its occurrences. Used to detect, if the
+     * recurrence of a registered entry has changed.
+     *
+     * @param entry entry
+     * @return recurrence properties
+     */
+    private static List<Object> getRecurrence(Entry entry) {
+        Set<DayOfWeek> daysOfWeeks = entry.getRecurringDaysOfWeeks();
+        return Arrays.asList(daysOfWeeks == null ? null : new HashSet<>(daysOfWeeks),
+                entry.getRecurringStartDate(), entry.getRecurringEndDate(),
+                entry.getRecurringStartTime(), entry.getRecurringEndTime());
+    }
+
+    /**
+     * Passes all occurrences of the given recurring entry, which timespan crosses the given timespan, to the given
+     * consumer. The occurrences are passed ordered by their start. Only the days matching the recurring days of
+     * week are visited, so the effort depends on the amount of occurrences in the given timespan, not on the
+     * total amount of occurrences.
+     *
+     * @param entry       recurring entry
+     * @param timezone    timezone to calculate the days and times of the recurrence
+     * @param filterStart start of the timespan
+     * @param filterEnd   end of the timespan
+     * @param consumer    consumer
+     */
+    static void expand(@NotNull Entry entry, @NotNull Timezone timezone, @NotNull Instant filterStart, @NotNull Instant filterEnd, @NotNull Consumer<Occurrence> consumer) {
+        ZoneId zoneId = timezone.getZoneId();
+        LocalTime startTime = entry.getRecurringStartTime();
+        LocalTime endTime = entry.getRecurringEndTime();
+        Set<DayOfWeek> daysOfWeeks = entry.getRecurringDaysOfWeeks();
+        Instant recurringStart = entry.getRecurringStartDate();
+        Instant recurringEnd = entry.getRecurringEndDate();
+
+        boolean allDay = startTime == null;
+        Duration duration;
+        if (allDay) {
+            duration = Duration.ofDays(FullCalendar.DEFAULT_DAY_EVENT_DURATION);
+        } else if (endTime != null) {
+            duration = Duration.between(startTime, endTime);
+            if (duration.isNegative() || duration.isZero()) {
+                // ends on the next day
+                duration = duration.plusDays(1);
+            }
+        } else {
+            duration = Duration.ofHours(FullCalendar.DEFAULT_TIMED_EVENT_DURATION);
+        }
+
+        // an occurrence starting on this day might still reach into the timespan (one day extra for dst changes)
+        LocalDate day = timezone.convertToLocalDate(filterStart.minus(duration)).minusDays(1);
+        if (recurringStart != null) {
+            LocalDate firstRecurringDay = timezone.convertToLocalDate(recurringStart);
+            if (firstRecurringDay.isAfter(day)) {
+                day = firstRecurringDay;
+            }
+        }
+
+        LocalDate lastDay = timezone.convertToLocalDate(filterEnd);
+
+        for (day = nextMatchingDay(day, daysOfWeeks); !day.isAfter(lastDay); day = nextMatchingDay(day.plusDays(1), daysOfWeeks)) {
+            Instant dayStart = day.atStartOfDay(zoneId).toInstant();
+            if (recurringEnd != null && !dayStart.isBefore(recurringEnd)) {
+                break;
+            }
+
+            Instant start;
+            Instant end;
+            if (allDay) {
+                start = dayStart;
+                end = day.plusDays(FullCalendar.DEFAULT_DAY_EVENT_DURATION).atStartOfDay(zoneId).toInstant();
+            } else {
+                start = day.atTime(startTime).atZone(zoneId).toInstant();
+                end = start.plus(duration);
+            }
+
+            if (end.isAfter(filterStart) && start.isBefore(filterEnd)) {
+                consumer.accept(new Occurrence(entry, start, end, allDay));
+            }
+        }
+    }
+
+    /**
+     * Returns the given day, if it matches the given days of week, otherwise the next matching day.
+     *
+     * @param day         day
+     * @param daysOfWeeks days of week or null / empty for every day
+     * @return matching day
+     */
+    private static LocalDate nextMatchingDay(LocalDate day, Set<DayOfWeek> daysOfWeeks) {
+        if (daysOfWeeks == null || daysOfWeeks.isEmpty()) {
+            return day;
+        }
+
+        int days = 7;
+        for (DayOfWeek dayOfWeek : daysOfWeeks) {
+            days = Math.min(days, Math.floorMod(dayOfWeek.getValue() - day.getDayOfWeek().getValue(), 7));
+        }
+        return day.plusDays(days);
+    }
+
+    /**
+     * Registers the given entry, if it is recurring, or removes it otherwise. Invalidates the cache, if the
+     * entry is new or its recurrence has changed since it has been registered.
+     *
+     * @param entry entry
+     */
+    void put(@NotNull Entry entry) {
+        Objects.requireNonNull(entry);
+        if (isRecurring(entry)) {
+            String id = entry.getId();
+            List<Object> recurrence = getRecurrence(entry);
+            if (recurringEntries.put(id, entry) != entry || !recurrence.equals(recurrences.put(id, recurrence))) {
+                recurrences.put(id, recurrence);
+                recurrenceBoundsIndex.put(entry);
+                cache.clear();
+            }
+        } else {
+            remove(entry.getId());
+        }
+    }
+
+    /**
+     * Removes the entry with the given id. Invalidates the cache, if the entry was recurring.
+     *
+     * @param id entry id
+     */
+    void remove(@NotNull String id) {
+        Objects.requireNonNull(id);
+        if (recurringEntries.remove(id) != null) {
+            recurrences.remove(id);
+            recurrenceBoundsIndex.remove(id);
+            cache.clear();
+        }
+    }
+
+    /**
+     * Removes all entries and clears the cache.
+     */
+    void clear() {
+        recurringEntries.clear();
+        recurrences.clear();
+        recurrenceBoundsIndex.clear();
+        cache.clear();
+    }
+
+    /**
+     * Checks, if there are any recurring entries registered.
+     *
+     * @return has recurring entries
+     */
+    boolean isEmpty() {
+        return recurringEntries.isEmpty();
+    }
+
+    /**
+     * Returns the occurrences of all registered recurring entries, which timespan crosses the given timespan,
+     * ordered by their start. The result is cached until a recurring entry changes or the timezone differs.
+     *
+     * @param timezone    timezone
+     * @param filterStart start of the timespan
+     * @param filterEnd   end of the timespan
+     * @return unmodifiable list of occurrences
+     */
+    List<Occurrence> getOccurrences(@NotNull Timezone timezone, @NotNull Instant filterStart, @NotNull Instant filterEnd) {
+        if (!timezone.equals(cacheTimezone)) {
+            cache.clear();
+            cacheTimezone = timezone;
+        }
+
+        return cache.computeIfAbsent(Arrays.asList(filterStart, filterEnd), key -> {
+            List<Occurrence> occurrences = new ArrayList<>();
+            recurrenceBoundsIndex.forEachInRange(filterStart.minus(RECURRENCE_BOUNDS_MARGIN), filterEnd.plus(RECURRENCE_BOUNDS_MARGIN),
+                    entry -> expand(entry, timezone, filterStart, filterEnd, occurrences::add));
+            occurrences.sort(Comparator.comparing(Occurrence::getStartUTC));
+            return Collections.unmodifiableList(occurrences);
+        });
+    }
+
+    private static final class OccurrenceCache extends LinkedHashMap<List<Instant>, List<Occurrence>> {
+        private OccurrenceCache() {
+            super(16, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<List<Instant>, List<Occurrence>> eldest) {
+            return size() > MAX_CACHED_TIMESPANS;
+        }
+    }
+}
@@ -86,9 +86,17 @@ export class FullCalendar extends PolymerElement {
                 type: Boolean,
                 value: true
             },
+            datesRenderDebounce: {
+                type: Number,
+                value: 0
+            },
             initialOptions: {
                 type: Object,
                 value: null
+            },
+            stateCacheKey: {
+                type: String,
+                value: null
             }
 
         };
@@ -98,6 +106,26 @@ export class FullCalendar extends PolymerElement {
         this._initCalendar();
     }
 
+    connectedCallback() {
+        super.connectedCallback();
+
+        if (this._pageHideListener === undefined) {
+            this._pageHideListener = () => this._storeStateCache();
+        }
+        window.addEventListener('pagehide', this._pageHideListener);
+
+        if (this.stateCacheKey) {
+            // the element has only been moved, the stored state is not needed
+            this._removeStoredStateCache();
+        }
+    }
+
+    disconnectedCallback() {
+        super.disconnectedCallback();
+        window.removeEventListener('pagehide', this._pageHideListener);
+        this._storeStateCache();
+    }
+
     getCalendar() {
         if (this._calendar === undefined) {
             this._initCalendar();
@@ -121,6 +149,8 @@ export class FullCalendar extends PolymerElement {
 
             this._calendar.render(); // needed for method calls, that somehow access the calendar's internals.
 
+            this._restoreStateCache();
+
             afterNextRender(this, function() {
                 // used to assure correct initial size. It seems, that with V15 (currently 15.0.5) the lifecycle
                 // can not guarantee, that the calendar container provides the correct height, since it might not
@@ -200,12 +230,22 @@ export class FullCalendar extends PolymerElement {
             datesRender: (eventInfo) => {
                 if (!this.noDatesRenderEvent) {
                     let view = eventInfo.view;
-                    return {
+                    let details = {
                         intervalStart: this._formatDate(view.currentStart, true),
                         intervalEnd: this._formatDate(view.currentEnd, true),
                         start: this._formatDate(view.activeStart, true),
                         end: this._formatDate(view.activeEnd, true)
+                    };
+
+                    if (this.datesRenderDebounce > 0) {
+                        // only the last rendering of a burst is sent to the server
+                        this._debounce("_datesRenderTimeout", () => this.dispatchEvent(new CustomEvent("datesRender", {
+                            detail: details
+                        })));
+                        return false;
                     }
+
+                    return details;
                 }
 
                 return false;
@@ -328,6 +368,34 @@ export class FullCalendar extends PolymerElement {
         this.noDatesRenderEvent = false;
     }
 
+    /**
+     * Sets the given options. All options are applied within one rendering batch, so the calendar is
+     * rerendered at most once. A null value removes the respective option.
+     * @param options object of option keys and values
+     * @param version version of the server side state, that is reached with these options (optional)
+     */
+    setOptions(options, version) {
+        let calendar = this.getCalendar();
+        if (options.hasOwnProperty("timezone") && calendar.getOption("timezone") !== options.timezone) {
+            this.dispatchEvent(new CustomEvent("timezone-changed", {
+                detail: {
+                    timezone: options.timezone
+                }
+            }));
+        }
+
+        this.noDatesRenderEvent = this.noDatesRenderEventOnOptionSetting;
+        calendar.batchRendering(() => {
+            Object.keys(options).forEach(key => calendar.setOption(key, options[key]));
+        });
+        this.noDatesRenderEvent = false;
+
+        if (this._stateCache) {
+            Object.assign(this._stateCache.options, options);
+        }
+        this._updateStateVersion(version);
+    }
+
     /**
      * Calls the getOption method of the calendar.
      * @param key key
@@ -385,43 +453,223 @@ export class FullCalendar extends PolymerElement {
         this.getCalendar().gotoDate(date);
     }
 
+    /**
+     * Applies all entry changes of one server round trip inside a single render pass. Removals are applied
+     * before additions, additions before updates.
+     * @param changes object with the optional keys removeAll, remove, add (array or compact encoded object),
+     * update, more (the next chunk of entries shall be requested) and version (version of the server side state,
+     * that is reached with these changes)
+     */
+    applyEntryChanges(changes) {
+        const added = changes.add ? this._decodeEntries(changes.add) : null;
+
+        this.getCalendar().batchRendering(() => {
+            if (changes.removeAll) {
+                this.removeAllEvents();
+            }
+            if (changes.remove) {
+                this.removeEvents(changes.remove);
+            }
+            if (added) {
+                this.addEvents(added);
+            }
+            if (changes.update) {
+                this.updateEvents(changes.update);
+            }
+        });
+
+        if (this._stateCache) {
+            this._cacheEntryChanges(changes, added);
+        }
+        this._updateStateVersion(changes.version);
+
+        if (changes.more) {
+            this._requestNextEntryChunk();
+        }
+    }
+
+    /**
+     * Applies the given entry changes to the state cache.
+     * @param changes entry changes
+     * @param added decoded added entries or null
+     * @private
+     */
+    _cacheEntryChanges(changes, added) {
+        if (changes.removeAll) {
+            this._stateCache.entries = {};
+        }
+        if (changes.remove) {
+            changes.remove.forEach(id => delete this._stateCache.entries[id]);
+        }
+        if (added) {
+            added.forEach(obj => this._stateCache.entries[obj.id] = obj);
+        }
+        if (changes.update) {
+            // updates might only contain the changed properties
+            changes.update.forEach(obj => {
+                const cached = this._stateCache.entries[obj.id];
+                if (cached) {
+                    // the cached object might be the one passed to the calendar, so it is not modified
+                    this._stateCache.entries[obj.id] = Object.assign({}, cached, obj);
+                }
+            });
+        }
+    }
+
+    _updateStateVersion(version) {
+        if (version !== undefined && version !== null) {
+            this._stateVersion = version;
+        }
+    }
+
+    /**
+     * Restores the entries and options, that have been stored by a previous element with the same state cache
+     * key, e.g. before the component has been detached on the server side. Prepares the state cache, if a
+     * state cache key is set.
+     * @private
+     */
+    _restoreStateCache() {
+        this._stateVersion = -1;
+        this._restoredStateVersion = -1;
+        this._stateCache = null;
+
+        if (!this.stateCacheKey) {
+            return;
+        }
+
+        let state = null;
+        try {
+            state = JSON.parse(sessionStorage.getItem(this.stateCacheKey));
+        } catch (e) {
+            console.log("Could not restore the cached calendar state", e);
+        }
+        this._removeStoredStateCache();
+
+        this._stateCache = {entries: {}, options: {}};
+        if (state != null) {
+            this.setOptions(state.options);
+            this.addEvents(Object.values(state.entries));
+            this._stateCache = {entries: state.entries, options: state.options};
+            this._stateVersion = state.version;
+            this._restoredStateVersion = state.version;
+        }
+    }
+
+    /**
+     * Stores the cached entries and options in the session storage, so that an element created later for the
+     * same server side component can restore them. Noop, if no state cache key has been set on creation.
+     * @private
+     */
+    _storeStateCache() {
+        if (this._stateCache && this.stateCacheKey && this._stateVersion >= 0) {
+            try {
+                sessionStorage.setItem(this.stateCacheKey, JSON.stringify({
+                    version: this._stateVersion,
+                    entries: this._stateCache.entries,
+                    options: this._stateCache.options
+                }));
+            } catch (e) {
+                console.log("Could not store the calendar state", e);
+            }
+        }
+    }
+
+    _removeStoredStateCache() {
+        try {
+            sessionStorage.removeItem(this.stateCacheKey);
+        } catch (e) {
+            console.log("Could not remove the stored calendar state", e);
+        }
+    }
+
+    /**
+     * Reports the version of the restored state to the server, which sends the missing state afterwards.
+     * -1 is reported, if nothing has been restored.
+     */
+    requestResync() {
+        this.$server.resync(this._restoredStateVersion);
+        this._restoredStateVersion = -1;
+    }
+
+    /**
+     * Requests the next chunk of progressively loaded entries from the server. The request is sent after the browser
+     * had the chance to render the current chunk. The visible timespan is passed, so that its entries come first.
+     * @private
+     */
+    _requestNextEntryChunk() {
+        setTimeout(() => {
+            const view = this.getCalendar().view;
+            this.$server.loadNextEntryChunk(this._formatDate(view.activeStart), this._formatDate(view.activeEnd));
+        });
+    }
+
     addEvents(obj) {
         this.getCalendar().addEventSource(obj);
+        this._refetchEntrySets(obj.map(event => String(event.id)));
+    }
+
+    /**
+     * Returns the event of this calendar with the given id. Events of mounted entry sets are ignored.
+     * @param id event id
+     * @returns {*} event or null
+     * @private
+     */
+    _getOwnEventById(id) {
+        const calendar = this.getCalendar();
+        const event = calendar.getEventById(id);
+        if (event == null || !this._isEntrySetSource(event.source)) {
+            return event;
+        }
+
+        return calendar.getEvents().find(e => e.id === String(id) && !this._isEntrySetSource(e.source)) || null;
     }
 
     updateEvents(array) {
         const calendar = this.getCalendar();
+        // properties, that are not updated via setProp
+        const notSettable = this._getDateProperties().concat(['id', 'resourceIds', 'resourceEditable', '_hardReset']);
+
         calendar.batchRendering(() => {
 
             for (let i = 0; i < array.length; i++) {
                 let obj = array[i];
 
-                let eventToUpdate = calendar.getEventById(obj.id);
+                let eventToUpdate = this._getOwnEventById(obj.id);
 
                 if (eventToUpdate != null) {
-                    // TODO check for unchanged values and ignore them
+                    // the server sends only changed properties (start, end and allDay are always sent together),
+                    // unchanged properties are not part of the object and stay untouched
 
-                    // since currently recurring events can not be set by updating existing events, we circumcise that
-                    // by simply re-adding the event.
+                    // since currently the recurrence and the dates of recurring events can not be set by updating
+                    // existing events, we circumcise that by simply re-adding the event. Other properties of
+                    // recurring events are updated in place.
                     // https://github.com/fullcalendar/fullcalendar/issues/4393
 
-                    if (obj['_hardReset'] === true || this._isServerSideRecurring(obj) || this._isClientSideRecurring(eventToUpdate)) {
+                    if (this._isReAddRequired(obj, eventToUpdate)) {
                         eventToUpdate.remove();
                         this.addEvents([obj]);
                     } else {
-                        let start = obj['start'] != null ? calendar.formatIso(obj['start'], obj['allDay']) : null;
-                        let end = obj['end'] != null ? calendar.formatIso(obj['end'], obj['allDay']) : null;
+                        if (obj.hasOwnProperty('start')) {
+                            let start = this._toDateInput(obj['start'], obj['allDay']);
+                            let end = this._toDateInput(obj['end'], obj['allDay']);
 
-                        eventToUpdate.setDates(start, end, {allDay: obj['allDay']});
+                            eventToUpdate.setDates(start, end, {allDay: obj['allDay']});
 
-                        // setting all day is not working 100%, we workaround it here
-                        if (obj['allDay']) {
-                            eventToUpdate.moveEnd()
+                            // setting all day is not working 100%, we workaround it here
+                            if (obj['allDay']) {
+                                eventToUpdate.moveEnd()
+                            }
+                        }
+
+                        if (obj.hasOwnProperty('resourceIds') && typeof eventToUpdate.setResources === 'function') {
+                            eventToUpdate.setResources(obj['resourceIds'] != null ? obj['resourceIds'] : []);
                         }
 
                         for (let property in obj) {
-                            if (property !== 'id' && property !== "start" && property !== "end" && property !== "allDay") {
-                                eventToUpdate.setProp(property, obj[property]);
+                            if (obj.hasOwnProperty(property) && !notSettable.includes(property)) {
+                                // an empty value resets the property, so that e.g. the color of the resource or
+                                // the event source is used again
+                                eventToUpdate.setProp(property, obj[property] != null ? obj[property] : '');
                             }
                         }
                     }
@@ -430,6 +678,59 @@ export class FullCalendar extends PolymerElement {
         });
     }
 
+    /**
+     * Returns the properties, that define the timespan of an event or its recurrence.
+     * @returns {string[]}
+     * @private
+     */
+    _getDateProperties() {
+        return ['start', 'end', 'allDay', 'daysOfWeek', 'startTime', 'endTime', 'startRecur', 'endRecur'];
+    }
+
+    /**
+     * Checks, if the given event has to be removed and added again to apply the given changes. This is the case,
+     * when the json requests a hard reset, when the recurrence or the dates of a recurring event have changed
+     * or when the resource editable flag has changed.
+     * @param obj changes sent by the server
+     * @param event event to update
+     * @returns {boolean}
+     * @private
+     */
+    _isReAddRequired(obj, event) {
+        if (obj['_hardReset'] === true) {
+            return true;
+        }
+
+        if ((this._isServerSideRecurring(obj) || this._isClientSideRecurring(event))
+            && this._getDateProperties().some(property => obj.hasOwnProperty(property))) {
+            return true;
+        }
+
+        // not settable via the event api, the server sends the complete entry in this case
+        return obj.hasOwnProperty('resourceEditable') && event._def != null && obj['resourceEditable'] !== event._def.resourceEditable;
+    }
+
+    /**
+     * Converts a date sent by the server for the calendar's date setters. Dates can be sent as iso strings or
+     * as epoch milliseconds. Timed epoch milliseconds are passed as they are, since the calendar converts them
+     * with its time zone itself.
+     * @param date iso string, epoch milliseconds or null
+     * @param allDay date is all day
+     * @returns {*}
+     * @private
+     */
+    _toDateInput(date, allDay) {
+        if (date == null) {
+            return null;
+        }
+
+        if (typeof date === 'number' && !allDay) {
+            return date;
+        }
+
+        return this.getCalendar().formatIso(date, allDay);
+    }
+
     /**
      * Checks entries coming from the server side if they are recurring.
      * @param event
@@ -450,25 +751,250 @@ export class FullCalendar extends PolymerElement {
         return typeof event._def.recurringDef === "object" && event._def.recurringDef != null
     }
 
+    /**
+     * Removes the events with the given ids inside a single render pass.
+     * @param array event ids (for compatibility also event objects with an id are accepted)
+     */
     removeEvents(array) {
-        // TODO use batch rendering?
-        for (var i = 0; i < array.length; i++) {
-            let event = this.getCalendar().getEventById(array[i].id);
-            if (event != null) {
-                event.remove();
+        const calendar = this.getCalendar();
+        const ids = array.map(item => String(typeof item === 'object' ? item.id : item));
+        calendar.batchRendering(() => {
+            for (let i = 0; i < ids.length; i++) {
+                let event = this._getOwnEventById(ids[i]);
+                if (event != null) {
+                    event.remove();
+                }
             }
-        }
+        });
+
+        // entries of mounted sets, that have been overridden by the removed ones, are shown again
+        this._refetchEntrySets(ids);
     }
 
 
     removeAllEvents() {
         //this.getCalendar().getEvents().forEach(e => e.remove());
         var calendar = this.getCalendar();
-        this.getCalendar().batchRendering(function () {
-            calendar.getEvents().forEach(e => e.remove());
+        this.getCalendar().batchRendering(() => {
+            // events of mounted entry sets are not part of the calendar's own entries
+            calendar.getEvents().filter(e => !this._isEntrySetSource(e.source)).forEach(e => e.remove());
+        });
+        this._refetchEntrySets();
+    }
+
+    /**
+     * Adds the events of a mounted entry set as a separate event source. Events of the set, for which this
+     * calendar has an own event with the same id, are not shown, since the calendar's own entries take precedence.
+     * @param id entry set id
+     * @param array events (array or compact encoded object)
+     */
+    addEntrySet(id, array) {
+        const events = this._decodeEntries(array);
+        this._entrySets = this._entrySets || {};
+        this._entrySets[id] = {
+            events: events,
+            ids: new Set(events.map(event => String(event.id)))
+        };
+
+        this.getCalendar().addEventSource({
+            id: this._toEntrySetSourceId(id),
+            events: (fetchInfo, successCallback) => successCallback(this._getVisibleEntrySetEvents(id))
+        });
+    }
+
+    /**
+     * Returns the events of the given entry set, that are not overridden by an own event of this calendar.
+     * @param id entry set id
+     * @returns {Array} events
+     * @private
+     */
+    _getVisibleEntrySetEvents(id) {
+        const entrySet = this._entrySets[id];
+        if (!entrySet) {
+            return [];
+        }
+
+        const ownIds = new Set();
+        this.getCalendar().getEvents().forEach(event => {
+            if (!this._isEntrySetSource(event.source)) {
+                ownIds.add(event.id);
+            }
+        });
+
+        return ownIds.size > 0 ? entrySet.events.filter(event => !ownIds.has(String(event.id))) : entrySet.events;
+    }
+
+    /**
+     * Refetches the event sources of the mounted entry sets, that contain any of the given ids, so that their
+     * events are hidden or shown again, when own events with the same id have been added or removed.
+     * @param ids event ids or undefined to refetch all entry sets
+     * @private
+     */
+    _refetchEntrySets(ids) {
+        if (!this._entrySets) {
+            return;
+        }
+
+        const calendar = this.getCalendar();
+        for (let id in this._entrySets) {
+            const entrySetIds = this._entrySets[id].ids;
+            if (ids === undefined || ids.some(eventId => entrySetIds.has(eventId))) {
+                const source = calendar.getEventSourceById(this._toEntrySetSourceId(id));
+                if (source != null) {
+                    source.refetch();
+                }
+            }
+        }
+    }
+
+    /**
+     * Decodes entries, that have been sent with the compact, column based encoding, into an array of event
+     * objects. Arrays are returned as they are.
+     * @param data array of events or compact encoded object
+     * @returns {Array}
+     * @private
+     */
+    _decodeEntries(data) {
+        if (Array.isArray(data)) {
+            return data;
+        }
+
+        const events = new Array(data.length);
+        for (let i = 0; i < data.length; i++) {
+            events[i] = {};
+        }
+
+        const dictionary = data.dictionary || [];
+        for (let key in data.columns) {
+            const column = data.columns[key];
+            const values = column.values;
+            const rows = column.rows;
+
+            for (let i = 0; i < values.length; i++) {
+                let value = values[i];
+                if (column.dictionary) {
+                    value = Array.isArray(value) ? value.map(index => dictionary[index]) : dictionary[value];
+                }
+                events[rows ? rows[i] : i][key] = value;
+            }
+        }
+
+        return events;
+    }
+
+    /**
+     * Removes the event source of a mounted entry set.
+     * @param id entry set id
+     */
+    removeEntrySet(id) {
+        if (this._entrySets) {
+            delete this._entrySets[id];
+        }
+
+        let source = this.getCalendar().getEventSourceById(this._toEntrySetSourceId(id));
+        if (source != null) {
+            source.remove();
+        }
+    }
+
+    _toEntrySetSourceId(id) {
+        return "entry-set-" + id;
+    }
+
+    _isEntrySetSource(source) {
+        return source != null && typeof source.id === "string" && source.id.startsWith("entry-set-");
+    }
+
+    /**
+     * Activates or deactivates the fetching of events from the server side data provider. Removes all existing
+     * event sources except the ones of mounted entry sets. When activated, an event source is
+     * registered, that requests the events of the currently visible range from the server each time the range changes.
+     * If a feed url is given, the events are fetched as a json feed via http (using the browser cache), otherwise
+     * via a server call. Mounted entry sets are refetched afterwards, since the fetched events take precedence.
+     * @param enabled fetch events from server
+     * @param feedUrl url of the json feed or null
+     */
+    setFetchFromServer(enabled, feedUrl) {
+        const calendar = this.getCalendar();
+        calendar.batchRendering(() => {
+            calendar.getEventSources().filter(source => !this._isEntrySetSource(source)).forEach(source => source.remove());
+
+            if (enabled && feedUrl) {
+                calendar.addEventSource({
+                    events: (fetchInfo, successCallback, failureCallback) => {
+                        this._fetchFromFeed(feedUrl, fetchInfo)
+                            .then(events => this._onServerEventsFetched(events, successCallback))
+                            .catch(failureCallback);
+                    }
+                });
+            } else if (enabled) {
+                calendar.addEventSource({
+                    events: (fetchInfo, successCallback, failureCallback) => {
+                        // the calendar ignores the results of fetches, that have been superseded by a newer one
+                        this._debounce("_fetchEntriesTimeout", () => {
+                            this.$server.fetchEntries(this._formatDate(fetchInfo.start), this._formatDate(fetchInfo.end))
+                                .then(events => this._onServerEventsFetched(events, successCallback))
+                                .catch(failureCallback);
+                        });
+                    }
+                });
+            }
         });
     }
 
+    /**
+     * Fetches the events of the given range from the json feed. The browser revalidates its cached response
+     * via the ETag of the feed.
+     * @param feedUrl url of the json feed
+     * @param fetchInfo range to fetch
+     * @returns {Promise} events
+     * @private
+     */
+    _fetchFromFeed(feedUrl, fetchInfo) {
+        const url = feedUrl + (feedUrl.indexOf('?') < 0 ? '?' : '&')
+            + 'start=' + encodeURIComponent(this._formatDate(fetchInfo.start))
+            + '&end=' + encodeURIComponent(this._formatDate(fetchInfo.end));
+
+        return fetch(url, {credentials: 'same-origin'}).then(response => {
+            if (!response.ok) {
+                throw new Error("Could not fetch entries: " + response.status);
+            }
+            return response.json();
+        });
+    }
+
+    _onServerEventsFetched(events, successCallback) {
+        successCallback(events);
+        this._refetchEntrySets();
+    }
+
+    /**
+     * Runs the given function after the datesRenderDebounce timeout. A previously scheduled function with the
+     * same timeout key is cancelled. Runs the function immediately, if no debounce timeout is set.
+     * @param timeoutKey key of the timeout to store
+     * @param func function to run
+     * @private
+     */
+    _debounce(timeoutKey, func) {
+        if (this[timeoutKey] !== undefined) {
+            clearTimeout(this[timeoutKey]);
+            this[timeoutKey] = undefined;
+        }
+
+        if (this.datesRenderDebounce > 0) {
+            this[timeoutKey] = setTimeout(() => {
+                this[timeoutKey] = undefined;
+                func();
+            }, this.datesRenderDebounce);
+        } else {
+            func();
+        }
+    }
+
+    refetchEvents() {
+        this.getCalendar().refetchEvents();
+    }
+
 
     changeView(viewName) {
         this.getCalendar().changeView(viewName);
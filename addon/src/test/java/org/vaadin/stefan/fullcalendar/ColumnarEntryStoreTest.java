@@ -0,0 +1,120 @@
+package org.vaadin.stefan.fullcalendar;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.stream.Collectors;
+
+public class ColumnarEntryStoreTest {
+
+    @Test
+    void testMaterializedEntriesKeepValues() {
+        Entry entry = new Entry("1", "title", TestUtils.REF, TestUtils.REF.plus(1, ChronoUnit.HOURS), true, false, "red", "description");
+        ColumnarEntryStore store = ColumnarEntryStore.of(Collections.singletonList(entry));
+
+        Assertions.assertEquals(1, store.size());
+
+        Entry materialized = store.getEntryById("1").orElseThrow(AssertionError::new);
+        Assertions.assertNotSame(entry, materialized);
+        Assertions.assertEquals(entry.getId(), materialized.getId());
+        Assertions.assertEquals(entry.getTitle(), materialized.getTitle());
+        Assertions.assertEquals(entry.getStartUTC(), materialized.getStartUTC());
+        Assertions.assertEquals(entry.getEndUTC(), materialized.getEndUTC());
+        Assertions.assertEquals(entry.isAllDay(), materialized.isAllDay());
+        Assertions.assertEquals(entry.isEditable(), materialized.isEditable());
+        Assertions.assertEquals(entry.getColor(), materialized.getColor());
+        Assertions.assertEquals(entry.getDescription(), materialized.getDescription());
+
+        Assertions.assertFalse(store.getEntryById("2").isPresent());
+    }
+
+    @Test
+    void testBuilderValidation() {
+        ColumnarEntryStore.Builder builder = ColumnarEntryStore.builder();
+        builder.add("1", null, TestUtils.REF, TestUtils.REF, false, false, null, null);
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> builder.add("1", null, TestUtils.REF, TestUtils.REF, false, false, null, null));
+        Assertions.assertThrows(NullPointerException.class, () -> builder.add("2", null, null, TestUtils.REF, false, false, null, null));
+        Assertions.assertThrows(NullPointerException.class, () -> builder.add(new Entry()));
+        Assertions.assertThrows(NullPointerException.class, () -> ColumnarEntryStore.of(null));
+
+        Assertions.assertEquals(0, ColumnarEntryStore.builder().build().fetch(TestUtils.REF, TestUtils.REF.plus(1, ChronoUnit.DAYS)).count());
+    }
+
+    @Test
+    void testFetchMatchesLinearFilter() {
+        Random random = new Random(3);
+        List<Entry> entries = new ArrayList<>();
+        String[] colors = {null, "red", "green", "#123456"};
+
+        for (int i = 0; i < 3000; i++) {
+            Instant start = TestUtils.REF.plus(random.nextInt(100000), ChronoUnit.MINUTES);
+            Instant end = start.plus(random.nextInt(random.nextInt(20) == 0 ? 50000 : 600), ChronoUnit.MINUTES);
+            entries.add(new Entry(null, "title " + i, start, end, false, true, colors[random.nextInt(colors.length)], null));
+        }
+
+        ColumnarEntryStore store = ColumnarEntryStore.of(entries);
+
+        for (int i = 0; i < 200; i++) {
+            Instant filterStart = TestUtils.REF.plus(random.nextInt(110000), ChronoUnit.MINUTES);
+            Instant filterEnd = filterStart.plus(random.nextInt(5000), ChronoUnit.MINUTES);
+
+            Set<String> expected = entries.stream()
+                    .filter(e -> e.getEndUTC().isAfter(filterStart) && e.getStartUTC().isBefore(filterEnd))
+                    .map(Entry::getId)
+                    .collect(Collectors.toSet());
+
+            List<Entry> found = store.fetch(filterStart, filterEnd).collect(Collectors.toList());
+            Assertions.assertEquals(expected.size(), found.size());
+            Assertions.assertEquals(expected, found.stream().map(Entry::getId).collect(Collectors.toSet()));
+
+            for (int j = 1; j < found.size(); j++) {
+                Assertions.assertFalse(found.get(j).getStartUTC().isBefore(found.get(j - 1).getStartUTC()));
+            }
+        }
+
+        for (Entry entry : entries) {
+            Entry materialized = store.getEntryById(entry.getId()).orElseThrow(AssertionError::new);
+            Assertions.assertEquals(entry.getStartUTC(), materialized.getStartUTC());
+            Assertions.assertEquals(entry.getColor(), materialized.getColor());
+        }
+    }
+
+    @Test
+    void testLongEntriesAreFound() {
+        ColumnarEntryStore.Builder builder = ColumnarEntryStore.builder();
+        for (int i = 0; i < 1000; i++) {
+            Instant start = TestUtils.REF.plus(i, ChronoUnit.HOURS);
+            builder.add("short" + i, null, start, start.plus(30, ChronoUnit.MINUTES), false, true, null, null);
+        }
+        builder.add("long", null, TestUtils.REF.minus(90, ChronoUnit.DAYS), TestUtils.REF.plus(90, ChronoUnit.DAYS), true, true, null, null);
+        ColumnarEntryStore store = builder.build();
+
+        Instant filterStart = TestUtils.REF.plus(10, ChronoUnit.HOURS);
+        List<String> ids = store.fetch(filterStart, filterStart.plus(2, ChronoUnit.HOURS))
+                .map(Entry::getId)
+                .collect(Collectors.toList());
+        Assertions.assertEquals(Arrays.asList("long", "short10", "short11"), ids);
+
+        ids = store.fetch(TestUtils.REF.minus(30, ChronoUnit.DAYS), TestUtils.REF.minus(29, ChronoUnit.DAYS))
+                .map(Entry::getId)
+                .collect(Collectors.toList());
+        Assertions.assertEquals(Collections.singletonList("long"), ids);
+    }
+
+    @Test
+    void testUsableAsDataProvider() {
+        ColumnarEntryStore store = ColumnarEntryStore.builder()
+                .add("1", "title", TestUtils.REF, TestUtils.REF.plus(1, ChronoUnit.HOURS), false, true, null, null)
+                .build();
+
+        FullCalendar calendar = new FullCalendar();
+        calendar.setDataProvider(store);
+
+        Assertions.assertEquals(1, calendar.fetchEntries("2000-01-01", "2000-01-02").length());
+        Assertions.assertTrue(calendar.getEntryById("1").isPresent());
+    }
+}
@@ -0,0 +1,133 @@
+package org.vaadin.stefan.fullcalendar;
+
+import elemental.json.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+
+public class CompactEntryEncoderTest {
+
+    @Test
+    void testEncoding() {
+        JsonArray entries = Json.createArray();
+        for (int i = 0; i < 10; i++) {
+            Entry entry = new Entry(String.valueOf(i));
+            entry.setTitle("title " + i);
+            entry.setStart(TestUtils.REF.plus(i, ChronoUnit.HOURS));
+            entry.setEnd(TestUtils.REF.plus(i + 1, ChronoUnit.HOURS));
+            entry.setColor(i < 5 ? "red" : i < 9 ? "green" : null);
+            if (i == 0) {
+                entry.setRecurringStartTime(LocalTime.NOON);
+            }
+            entries.set(i, entry.toJson());
+        }
+
+        JsonObject encoded = CompactEntryEncoder.encode(entries);
+        Assertions.assertEquals(10, (int) encoded.getNumber("length"));
+
+        JsonObject columns = encoded.getObject("columns");
+
+        // unique strings are not dictionary encoded
+        JsonObject ids = columns.getObject("id");
+        Assertions.assertFalse(ids.hasKey("dictionary"));
+        Assertions.assertFalse(ids.hasKey("rows"));
+        Assertions.assertEquals("3", ids.getArray("values").getString(3));
+
+        // repeated strings are
+        JsonObject colors = columns.getObject("color");
+        Assertions.assertTrue(colors.getBoolean("dictionary"));
+        Assertions.assertEquals(9, colors.getArray("rows").length());
+        JsonArray dictionary = encoded.getArray("dictionary");
+        Assertions.assertEquals("green", dictionary.getString((int) colors.getArray("values").getNumber(8)));
+
+        // null values are omitted
+        Assertions.assertFalse(columns.hasKey("daysOfWeek"));
+        JsonObject startTimes = columns.getObject("startTime");
+        Assertions.assertEquals(1, startTimes.getArray("values").length());
+        Assertions.assertEquals(0, (int) startTimes.getArray("rows").getNumber(0));
+
+        Assertions.assertEquals(decode(encoded).toJson(), withoutNulls(entries).toJson());
+    }
+
+    @Test
+    void testDictionaryEncodedArrays() {
+        JsonArray entries = Json.createArray();
+        for (int i = 0; i < 4; i++) {
+            JsonObject entry = Json.createObject();
+            entry.put("id", String.valueOf(i));
+            JsonArray resourceIds = Json.createArray();
+            resourceIds.set(0, "a");
+            if (i % 2 == 0) {
+                resourceIds.set(1, "b");
+            }
+            entry.put("resourceIds", resourceIds);
+            entries.set(i, entry);
+        }
+
+        JsonObject encoded = CompactEntryEncoder.encode(entries);
+        Assertions.assertTrue(encoded.getObject("columns").getObject("resourceIds").getBoolean("dictionary"));
+        Assertions.assertEquals(2, encoded.getArray("dictionary").length());
+        Assertions.assertEquals(decode(encoded).toJson(), entries.toJson());
+
+        Assertions.assertEquals(0, (int) CompactEntryEncoder.encode(Json.createArray()).getNumber("length"));
+    }
+
+    /**
+     * Java port of the client side decoder.
+     */
+    private static JsonArray decode(JsonObject encoded) {
+        int length = (int) encoded.getNumber("length");
+        JsonObject[] entries = new JsonObject[length];
+        for (int i = 0; i < length; i++) {
+            entries[i] = Json.createObject();
+        }
+
+        JsonArray dictionary = encoded.hasKey("dictionary") ? encoded.getArray("dictionary") : Json.createArray();
+        JsonObject columns = encoded.getObject("columns");
+        for (String key : columns.keys()) {
+            JsonObject column = columns.getObject(key);
+            JsonArray values = column.getArray("values");
+            JsonArray rows = column.hasKey("rows") ? column.getArray("rows") : null;
+            boolean dictionaryEncoded = column.hasKey("dictionary");
+
+            for (int i = 0; i < values.length(); i++) {
+                JsonValue value = values.get(i);
+                if (dictionaryEncoded) {
+                    if (value.getType() == JsonType.ARRAY) {
+                        JsonArray strings = Json.createArray();
+                        for (int j = 0; j < ((JsonArray) value).length(); j++) {
+                            strings.set(j, dictionary.getString((int) ((JsonArray) value).getNumber(j)));
+                        }
+                        value = strings;
+                    } else {
+                        value = Json.create(dictionary.getString((int) value.asNumber()));
+                    }
+                }
+                entries[rows != null ? (int) rows.getNumber(i) : i].put(key, value);
+            }
+        }
+
+        JsonArray array = Json.createArray();
+        for (JsonObject entry : entries) {
+            array.set(array.length(), entry);
+        }
+        return array;
+    }
+
+    private static JsonArray withoutNulls(JsonArray entries) {
+        JsonArray array = Json.createArray();
+        for (int i = 0; i < entries.length(); i++) {
+            JsonObject entry = entries.getObject(i);
+            JsonObject copy = Json.createObject();
+            for (String key : entry.keys()) {
+                if (entry.get(key).getType() != JsonType.NULL) {
+                    copy.put(key, (JsonValue) entry.get(key));
+                }
+            }
+            array.set(i, copy);
+        }
+        return array;
+    }
+}
@@ -0,0 +1,89 @@
+package org.vaadin.stefan.fullcalendar;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class EntryChangeTest {
+
+    @Test
+    void testCoalesceKeepsLastChangePerEntry() {
+        Entry entry1 = new Entry("1");
+        Entry entry2 = new Entry("2");
+        Entry entry1Replacement = new Entry("1");
+
+        List<EntryChange> coalesced = new ArrayList<>(EntryChange.coalesce(Arrays.asList(
+                EntryChange.add(entry1),
+                EntryChange.add(entry2),
+                EntryChange.remove(entry2),
+                EntryChange.update(entry1Replacement))));
+
+        Assertions.assertEquals(2, coalesced.size());
+        Assertions.assertEquals(EntryChange.Type.UPDATE, coalesced.get(0).getType());
+        Assertions.assertSame(entry1Replacement, coalesced.get(0).getEntry());
+        Assertions.assertEquals(EntryChange.Type.REMOVE, coalesced.get(1).getType());
+
+        Assertions.assertThrows(NullPointerException.class, () -> EntryChange.add(null));
+    }
+
+    @Test
+    void testSubmittedChangesAreAppliedOnFlush() {
+        FullCalendar calendar = new FullCalendar();
+        Entry registered = new Entry("registered");
+        Entry removed = new Entry("removed");
+        Entry replaced = new Entry("replaced");
+        calendar.addEntries(registered, removed, replaced);
+
+        Entry added = new Entry("added");
+        Entry replacement = new Entry("replaced");
+        registered.setTitle("changed");
+
+        calendar.submitChanges(Arrays.asList(
+                EntryChange.add(added),
+                EntryChange.update(registered),
+                EntryChange.remove(removed),
+                EntryChange.update(replacement)));
+
+        // not applied before the flush
+        Assertions.assertFalse(calendar.getEntryById("added").isPresent());
+
+        calendar.flushSubmittedChanges();
+
+        Set<String> ids = calendar.getEntries().stream().map(Entry::getId).collect(Collectors.toSet());
+        Assertions.assertEquals(new HashSet<>(Arrays.asList("registered", "replaced", "added")), ids);
+        Assertions.assertSame(replacement, calendar.getEntryById("replaced").orElse(null));
+        Assertions.assertSame(calendar, replacement.getCalendar().orElse(null));
+        Assertions.assertFalse(replaced.getCalendar().isPresent());
+
+        Assertions.assertThrows(NullPointerException.class, () -> calendar.submitChanges(Collections.singletonList(null)));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> calendar.setSubmittedChangesFlushInterval(-1));
+    }
+
+    @Test
+    void testAddsAreRejectedWithDataProvider() {
+        Entry fetched = new Entry("fetched");
+        fetched.setStart(LocalDate.of(2000, 1, 1).atTime(10, 0).toInstant(ZoneOffset.UTC));
+        fetched.setEnd(fetched.getStartUTC().plus(1, ChronoUnit.HOURS));
+
+        FullCalendar calendar = new FullCalendar();
+        calendar.setDataProvider((start, end) -> Stream.of(fetched));
+        calendar.fetchEntries("2000-01-01", "2000-01-02");
+
+        Assertions.assertThrows(IllegalStateException.class, () -> calendar.submitChanges(Collections.singletonList(EntryChange.add(new Entry()))));
+
+        // updates and removals of fetched entries are still applied
+        calendar.submitChanges(Arrays.asList(EntryChange.update(fetched), EntryChange.remove(new Entry("unknown"))));
+        calendar.flushSubmittedChanges();
+        Assertions.assertSame(fetched, calendar.getEntryById("fetched").orElse(null));
+
+        calendar.submitChanges(Collections.singletonList(EntryChange.remove(fetched)));
+        calendar.flushSubmittedChanges();
+        Assertions.assertFalse(calendar.getEntryById("fetched").isPresent());
+    }
+}
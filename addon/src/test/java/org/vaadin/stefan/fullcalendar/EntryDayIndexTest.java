@@ -0,0 +1,113 @@
+package org.vaadin.stefan.fullcalendar;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.stream.Collectors;
+
+public class EntryDayIndexTest {
+
+    @Test
+    void testMultiDayEntryIsFoundOnEachDay() {
+        EntryDayIndex index = new EntryDayIndex(Timezone.UTC);
+
+        Entry entry = TestUtils.createEntry(null, TestUtils.REF.plus(12, ChronoUnit.HOURS), TestUtils.REF.plus(3, ChronoUnit.DAYS));
+        index.put(entry);
+
+        Assertions.assertEquals(Collections.singletonList(entry), index.getEntries(TestUtils.REF, TestUtils.REF.plus(1, ChronoUnit.DAYS)));
+        Assertions.assertEquals(Collections.singletonList(entry), index.getEntries(TestUtils.REF.plus(1, ChronoUnit.DAYS), TestUtils.REF.plus(2, ChronoUnit.DAYS)));
+        Assertions.assertEquals(Collections.singletonList(entry), index.getEntries(TestUtils.REF.plus(2, ChronoUnit.DAYS), TestUtils.REF.plus(3, ChronoUnit.DAYS)));
+
+        // end is exclusive
+        Assertions.assertTrue(index.getEntries(TestUtils.REF.plus(3, ChronoUnit.DAYS), TestUtils.REF.plus(4, ChronoUnit.DAYS)).isEmpty());
+        Assertions.assertTrue(index.getEntries(TestUtils.REF.minus(1, ChronoUnit.DAYS), TestUtils.REF).isEmpty());
+    }
+
+    @Test
+    void testRemoveAndReindex() {
+        EntryDayIndex index = new EntryDayIndex(Timezone.UTC);
+
+        Entry entry = TestUtils.createEntry(null, TestUtils.REF, TestUtils.REF.plus(1, ChronoUnit.HOURS));
+        index.put(entry);
+
+        entry.setStart(TestUtils.REF.plus(5, ChronoUnit.DAYS));
+        entry.setEnd(TestUtils.REF.plus(5, ChronoUnit.DAYS).plus(1, ChronoUnit.HOURS));
+        index.put(entry);
+
+        Assertions.assertTrue(index.getEntries(TestUtils.REF, TestUtils.REF.plus(1, ChronoUnit.DAYS)).isEmpty());
+        Assertions.assertEquals(Collections.singletonList(entry), index.getEntries(TestUtils.REF.plus(5, ChronoUnit.DAYS), TestUtils.REF.plus(6, ChronoUnit.DAYS)));
+
+        index.remove(entry.getId());
+        Assertions.assertTrue(index.getEntries(TestUtils.REF.plus(5, ChronoUnit.DAYS), TestUtils.REF.plus(6, ChronoUnit.DAYS)).isEmpty());
+    }
+
+    @Test
+    void testLongEntries() {
+        EntryDayIndex index = new EntryDayIndex(Timezone.UTC);
+
+        Entry entry = TestUtils.createEntry(null, TestUtils.REF, TestUtils.REF.plus(EntryDayIndex.MAX_BUCKET_DAYS * 3, ChronoUnit.DAYS));
+        index.put(entry);
+
+        Assertions.assertEquals(Collections.singletonList(entry), index.getEntries(TestUtils.REF.plus(100, ChronoUnit.DAYS), TestUtils.REF.plus(101, ChronoUnit.DAYS)));
+        Assertions.assertTrue(index.getEntries(TestUtils.REF.minus(1, ChronoUnit.DAYS), TestUtils.REF).isEmpty());
+
+        index.remove(entry.getId());
+        Assertions.assertTrue(index.getEntries(TestUtils.REF.plus(100, ChronoUnit.DAYS), TestUtils.REF.plus(101, ChronoUnit.DAYS)).isEmpty());
+    }
+
+    @Test
+    void testRebuildWithOtherTimezone() {
+        EntryDayIndex index = new EntryDayIndex(Timezone.UTC);
+
+        // 23:00 - 23:30 UTC is on the next day in Berlin
+        Entry entry = TestUtils.createEntry(null, TestUtils.REF.minus(1, ChronoUnit.HOURS), TestUtils.REF.minus(30, ChronoUnit.MINUTES));
+        index.put(entry);
+
+        Timezone berlin = new Timezone(ZoneId.of("Europe/Berlin"));
+        index.rebuild(berlin, Collections.singletonList(entry));
+        Assertions.assertEquals(berlin, index.getTimezone());
+
+        Instant berlinStartOfDay = berlin.convertToUTC(LocalDate.of(2000, 1, 1));
+        Assertions.assertEquals(Collections.singletonList(entry), index.getEntries(berlinStartOfDay, berlinStartOfDay.plus(1, ChronoUnit.DAYS)));
+    }
+
+    @Test
+    void testMatchesLinearFilter() {
+        Random random = new Random(7);
+        Timezone timezone = new Timezone(ZoneId.of("America/New_York"));
+        EntryDayIndex index = new EntryDayIndex(timezone);
+        List<Entry> entries = new ArrayList<>();
+
+        for (int i = 0; i < 2000; i++) {
+            Instant start = random.nextInt(20) == 0 ? null : TestUtils.REF.plus(random.nextInt(100000), ChronoUnit.MINUTES);
+            Instant end = random.nextInt(20) == 0 ? null : (start != null ? start : TestUtils.REF).plus(random.nextInt(random.nextInt(10) == 0 ? 200000 : 3000), ChronoUnit.MINUTES);
+            Entry entry = TestUtils.createEntry(null, start, end);
+            entries.add(entry);
+            index.put(entry);
+        }
+
+        for (int i = 0; i < 500; i++) {
+            Entry entry = entries.remove(random.nextInt(entries.size()));
+            index.remove(entry.getId());
+        }
+
+        for (int i = 0; i < 200; i++) {
+            Instant filterStart = TestUtils.REF.plus(random.nextInt(120000), ChronoUnit.MINUTES);
+            Instant filterEnd = filterStart.plus(random.nextInt(3000), ChronoUnit.MINUTES);
+
+            Set<Entry> expected = entries.stream()
+                    .filter(e -> e.getEndUTC() != null && e.getEndUTC().isAfter(filterStart))
+                    .filter(e -> e.getStartUTC() != null && e.getStartUTC().isBefore(filterEnd))
+                    .collect(Collectors.toSet());
+
+            List<Entry> found = index.getEntries(filterStart, filterEnd);
+            Assertions.assertEquals(expected.size(), found.size());
+            Assertions.assertEquals(expected, new HashSet<>(found));
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package org.vaadin.stefan.fullcalendar;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+public class EntryFeedRequestHandlerTest {
+
+    @Test
+    void testWriteEntries() throws IOException {
+        Entry entry1 = TestUtils.createEntry("1", "title 1", TestUtils.REF, TestUtils.REF.plus(1, ChronoUnit.HOURS));
+        Entry entry2 = TestUtils.createEntry("2", "title \u00e4", TestUtils.REF, TestUtils.REF.plus(1, ChronoUnit.HOURS));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        EntryFeedRequestHandler.writeEntries(Arrays.asList(entry1, entry2), out);
+        Assertions.assertEquals("[" + entry1.toJson().toJson() + "," + entry2.toJson().toJson() + "]", new String(out.toByteArray(), StandardCharsets.UTF_8));
+
+        out = new ByteArrayOutputStream();
+        EntryFeedRequestHandler.writeEntries(Collections.emptyList(), out);
+        Assertions.assertEquals("[]", new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testETag() {
+        byte[] json = "[{\"id\":\"1\"}]".getBytes(StandardCharsets.UTF_8);
+
+        String eTag = EntryFeedRequestHandler.createETag(json);
+        Assertions.assertTrue(eTag.startsWith("\"") && eTag.endsWith("\""));
+        Assertions.assertEquals(eTag, EntryFeedRequestHandler.createETag(json.clone()));
+        Assertions.assertNotEquals(eTag, EntryFeedRequestHandler.createETag("[]".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void testMatchesETag() {
+        String eTag = "\"abc\"";
+        Assertions.assertFalse(EntryFeedRequestHandler.matchesETag(null, eTag));
+        Assertions.assertFalse(EntryFeedRequestHandler.matchesETag("\"def\"", eTag));
+        Assertions.assertTrue(EntryFeedRequestHandler.matchesETag("\"abc\"", eTag));
+        Assertions.assertTrue(EntryFeedRequestHandler.matchesETag("W/\"abc\"", eTag));
+        Assertions.assertTrue(EntryFeedRequestHandler.matchesETag("\"def\", \"abc\"", eTag));
+        Assertions.assertTrue(EntryFeedRequestHandler.matchesETag("*", eTag));
+    }
+
+    @Test
+    void testFetchEntriesFromDataProvider() {
+        FullCalendar calendar = new FullCalendar();
+        Assertions.assertTrue(calendar.fetchEntriesFromDataProvider("2000-01-01", "2000-01-02").isEmpty());
+
+        Entry entry = TestUtils.createEntry("1", "title", TestUtils.REF, TestUtils.REF.plus(1, ChronoUnit.HOURS));
+        calendar.setDataProvider((start, end) -> Collections.singletonList(entry).stream());
+        calendar.setEntryFeedEnabled(true);
+        Assertions.assertTrue(calendar.isEntryFeedEnabled());
+
+        Assertions.assertEquals(Collections.singletonList(entry), calendar.fetchEntriesFromDataProvider("2000-01-01", "2000-01-02"));
+        Assertions.assertSame(entry, calendar.getEntryById("1").orElse(null));
+    }
+
+    @Test
+    void testFeedDoesNotRegisterEntries() throws IOException {
+        FullCalendar calendar = new FullCalendar();
+        Entry entry = TestUtils.createEntry("1", "title", TestUtils.REF, TestUtils.REF.plus(1, ChronoUnit.HOURS));
+        Entry duplicate = TestUtils.createEntry("1", "duplicate", TestUtils.REF, TestUtils.REF.plus(1, ChronoUnit.HOURS));
+        calendar.setDataProvider((start, end) -> Arrays.asList(entry, duplicate).stream());
+        calendar.setEntryFeedEnabled(true);
+
+        EntryFeedRequestHandler handler = new EntryFeedRequestHandler(calendar);
+        byte[] json = handler.fetchEntries("2000-01-01", "2000-01-02");
+        Assertions.assertEquals("[" + entry.toCachedJson().toJson() + "]", new String(json, StandardCharsets.UTF_8));
+        Assertions.assertSame(calendar, entry.getCalendar().orElse(null));
+
+        Assertions.assertTrue(calendar.getEntries().isEmpty());
+        Assertions.assertSame(entry, handler.getServedEntry("1").orElse(null));
+        Assertions.assertFalse(handler.getServedEntry("2").isPresent());
+    }
+}
@@ -0,0 +1,114 @@
+package org.vaadin.stefan.fullcalendar;
+
+import elemental.json.Json;
+import elemental.json.JsonObject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.stream.Collectors;
+
+public class EntryIndexTest {
+
+    @Test
+    void testIndexFollowsRegistry() {
+        FullCalendar calendar = new FullCalendar();
+        Entry red = TestUtils.createEntry("1", TestUtils.REF, TestUtils.REF.plus(2, ChronoUnit.HOURS));
+        red.setColor("red");
+        Entry green = TestUtils.createEntry("2", TestUtils.REF.plus(1, ChronoUnit.HOURS), TestUtils.REF.plus(3, ChronoUnit.HOURS));
+        green.setColor("green");
+        Entry noColor = TestUtils.createEntry("3", TestUtils.REF.plus(2, ChronoUnit.HOURS), TestUtils.REF.plus(4, ChronoUnit.HOURS));
+        calendar.addEntries(red, green);
+
+        EntryIndex<String> index = calendar.addEntryIndex(Entry::getColor);
+        Assertions.assertEquals(new HashSet<>(Arrays.asList("red", "green")), index.getKeys());
+        Assertions.assertEquals(Collections.singletonList(red), index.getEntries("red"));
+
+        calendar.addEntry(noColor);
+        Assertions.assertEquals(Collections.singletonList(noColor), index.getEntries(null));
+
+        calendar.removeEntry(green);
+        Assertions.assertTrue(index.getEntries("green").isEmpty());
+        Assertions.assertFalse(index.getKeys().contains("green"));
+
+        calendar.removeAllEntries();
+        Assertions.assertTrue(index.getKeys().isEmpty());
+    }
+
+    @Test
+    void testIndexFollowsEntryChanges() {
+        FullCalendar calendar = new FullCalendar();
+        Entry entry = TestUtils.createEntry("1", TestUtils.REF, TestUtils.REF.plus(2, ChronoUnit.HOURS));
+        entry.setColor("red");
+        calendar.addEntry(entry);
+
+        EntryIndex<String> colors = calendar.addEntryIndex(Entry::getColor);
+        EntryIndex<Entry.RenderingMode> renderingModes = calendar.addEntryIndex(Entry::getRenderingMode);
+        EntryIndex<Boolean> editable = calendar.addEntryIndex(Entry::isEditable);
+
+        entry.setColor("blue");
+        entry.setRenderingMode(Entry.RenderingMode.BACKGROUND);
+        Assertions.assertTrue(colors.getEntries("red").isEmpty());
+        Assertions.assertEquals(Collections.singletonList(entry), colors.getEntries("blue"));
+        Assertions.assertEquals(Collections.singletonList(entry), renderingModes.getEntries(Entry.RenderingMode.BACKGROUND));
+        Assertions.assertEquals(Collections.singleton("blue"), colors.getKeys(entry));
+
+        // client side changes
+        JsonObject json = Json.createObject();
+        json.put("id", entry.getId());
+        json.put("editable", false);
+        entry.update(json);
+        Assertions.assertEquals(Collections.singletonList(entry), editable.getEntries(false));
+        Assertions.assertTrue(editable.getEntries(true).isEmpty());
+
+        // the index is not updated after removing it
+        calendar.removeEntryIndex(colors);
+        entry.setColor("yellow");
+        Assertions.assertEquals(Collections.singletonList(entry), colors.getEntries("blue"));
+
+        // detached entries do not change the index
+        calendar.removeEntry(entry);
+        entry.setRenderingMode(Entry.RenderingMode.NORMAL);
+        Assertions.assertTrue(renderingModes.getKeys().isEmpty());
+    }
+
+    @Test
+    void testCombinationWithTimespan() {
+        FullCalendar calendar = new FullCalendar();
+        Random random = new Random(7);
+        String[] colors = {null, "red", "green", "blue"};
+
+        List<Entry> entries = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            String color = colors[random.nextInt(colors.length)];
+            int offset = random.nextInt(1000);
+            Entry entry = TestUtils.createEntry(String.valueOf(i), TestUtils.REF.plus(offset, ChronoUnit.HOURS), TestUtils.REF.plus(offset + 2, ChronoUnit.HOURS));
+            entry.setColor(color);
+            entries.add(entry);
+        }
+        calendar.addEntries(entries);
+        EntryIndex<String> index = calendar.addEntryIndex(Entry::getColor);
+
+        // move some entries afterwards to check, that timespan changes are applied
+        for (int i = 0; i < 50; i++) {
+            Entry entry = entries.get(random.nextInt(entries.size()));
+            entry.setStart(entry.getStartUTC().plus(random.nextInt(100), ChronoUnit.HOURS));
+            entry.setEnd(entry.getStartUTC().plus(2, ChronoUnit.HOURS));
+        }
+
+        for (int i = 0; i < 50; i++) {
+            String color = colors[random.nextInt(colors.length)];
+            Instant filterStart = TestUtils.REF.plus(random.nextInt(1100), ChronoUnit.HOURS);
+            Instant filterEnd = filterStart.plus(random.nextInt(48), ChronoUnit.HOURS);
+
+            Set<Entry> expected = calendar.getEntries(filterStart, filterEnd).stream()
+                    .filter(e -> Objects.equals(color, e.getColor()))
+                    .collect(Collectors.toSet());
+
+            Assertions.assertEquals(expected, new HashSet<>(index.getEntries(color, filterStart, filterEnd)));
+            Assertions.assertEquals(expected.size(), index.countEntries(color, filterStart, filterEnd));
+        }
+    }
+}
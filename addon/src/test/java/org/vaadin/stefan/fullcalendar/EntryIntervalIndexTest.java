@@ -0,0 +1,134 @@
+package org.vaadin.stefan.fullcalendar;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.stream.Collectors;
+
+public class EntryIntervalIndexTest {
+
+    @Test
+    void testEmptyIndex() {
+        EntryIntervalIndex index = new EntryIntervalIndex();
+
+        Assertions.assertEquals(0, index.size());
+        Assertions.assertTrue(index.getEntries(null, null).isEmpty());
+        Assertions.assertTrue(index.getEntries(TestUtils.REF, TestUtils.REF.plus(1, ChronoUnit.DAYS)).isEmpty());
+    }
+
+    @Test
+    void testPutRemoveAndClear() {
+        EntryIntervalIndex index = new EntryIntervalIndex();
+
+        Entry entry = TestUtils.createEntry(null, TestUtils.REF, TestUtils.REF.plus(1, ChronoUnit.HOURS));
+        index.put(entry);
+        index.put(entry);
+        Assertions.assertEquals(1, index.size());
+
+        index.remove(entry.getId());
+        Assertions.assertEquals(0, index.size());
+        Assertions.assertTrue(index.getEntries(null, null).isEmpty());
+
+        index.put(entry);
+        index.put(TestUtils.createEntry(null, null, null));
+        Assertions.assertEquals(2, index.size());
+
+        index.clear();
+        Assertions.assertEquals(0, index.size());
+    }
+
+    @Test
+    void testReindexAfterTimespanChange() {
+        EntryIntervalIndex index = new EntryIntervalIndex();
+
+        Entry entry = TestUtils.createEntry(null, TestUtils.REF, TestUtils.REF.plus(1, ChronoUnit.HOURS));
+        index.put(entry);
+
+        Instant nextDay = TestUtils.REF.plus(1, ChronoUnit.DAYS);
+        entry.setStart(nextDay);
+        entry.setEnd(nextDay.plus(1, ChronoUnit.HOURS));
+        index.put(entry);
+
+        Assertions.assertTrue(index.getEntries(TestUtils.REF, TestUtils.REF.plus(2, ChronoUnit.HOURS)).isEmpty());
+        Assertions.assertEquals(Collections.singletonList(entry), index.getEntries(nextDay, nextDay.plus(1, ChronoUnit.MINUTES)));
+    }
+
+    @Test
+    void testResultsAreOrderedByStart() {
+        EntryIntervalIndex index = new EntryIntervalIndex();
+
+        List<Entry> entries = new ArrayList<>();
+        for (int i = 10; i > 0; i--) {
+            Entry entry = TestUtils.createEntry(null, TestUtils.REF.plus(i, ChronoUnit.HOURS), TestUtils.REF.plus(i + 1, ChronoUnit.HOURS));
+            entries.add(0, entry);
+            index.put(entry);
+        }
+
+        Assertions.assertEquals(entries, index.getEntries(TestUtils.REF, TestUtils.REF.plus(1, ChronoUnit.DAYS)));
+    }
+
+    @Test
+    void testMatchesLinearFilter() {
+        Random random = new Random(42);
+        EntryIntervalIndex index = new EntryIntervalIndex();
+        List<Entry> entries = new ArrayList<>();
+
+        for (int i = 0; i < 2000; i++) {
+            Instant start = random.nextInt(20) == 0 ? null : TestUtils.REF.plus(random.nextInt(10000), ChronoUnit.MINUTES);
+            Instant end = random.nextInt(20) == 0 ? null : (start != null ? start : TestUtils.REF).plus(random.nextInt(3000), ChronoUnit.MINUTES);
+            Entry entry = TestUtils.createEntry(null, start, end);
+            entries.add(entry);
+            index.put(entry);
+        }
+
+        // remove some entries to check the tree consistency after deletions
+        for (int i = 0; i < 500; i++) {
+            Entry entry = entries.remove(random.nextInt(entries.size()));
+            index.remove(entry.getId());
+        }
+
+        for (int i = 0; i < 200; i++) {
+            Instant filterStart = random.nextInt(10) == 0 ? null : TestUtils.REF.plus(random.nextInt(12000), ChronoUnit.MINUTES);
+            Instant filterEnd = random.nextInt(10) == 0 ? null : (filterStart != null ? filterStart : TestUtils.REF).plus(random.nextInt(5000), ChronoUnit.MINUTES);
+
+            Set<Entry> expected = entries.stream()
+                    .filter(e -> filterStart == null || (e.getEndUTC() != null && e.getEndUTC().isAfter(filterStart)))
+                    .filter(e -> filterEnd == null || (e.getStartUTC() != null && e.getStartUTC().isBefore(filterEnd)))
+                    .collect(Collectors.toSet());
+
+            List<Entry> found = index.getEntries(filterStart, filterEnd);
+            Assertions.assertEquals(expected.size(), found.size());
+            Assertions.assertEquals(expected, new HashSet<>(found));
+            Assertions.assertEquals(expected.size(), index.count(filterStart, filterEnd));
+
+            List<Entry> iterated = new ArrayList<>();
+            index.iterator(filterStart, filterEnd).forEachRemaining(iterated::add);
+            Assertions.assertEquals(found, iterated);
+        }
+    }
+
+    @Test
+    void testMergeSorted() {
+        EntryIntervalIndex index1 = new EntryIntervalIndex();
+        EntryIntervalIndex index2 = new EntryIntervalIndex();
+
+        List<Entry> entries = new ArrayList<>();
+        entries.add(TestUtils.createEntry(null, null, TestUtils.REF));
+        for (int i = 0; i < 10; i++) {
+            entries.add(TestUtils.createEntry(null, TestUtils.REF.plus(i, ChronoUnit.HOURS), TestUtils.REF.plus(i + 1, ChronoUnit.HOURS)));
+        }
+
+        for (int i = 0; i < entries.size(); i++) {
+            (i % 3 == 0 ? index1 : index2).put(entries.get(i));
+        }
+
+        List<Entry> merged = new ArrayList<>();
+        EntryIntervalIndex.mergeSorted(Arrays.asList(index1.iterator(null, null), index2.iterator(null, null), Collections.emptyIterator()))
+                .forEachRemaining(merged::add);
+
+        Assertions.assertEquals(entries, merged);
+    }
+}
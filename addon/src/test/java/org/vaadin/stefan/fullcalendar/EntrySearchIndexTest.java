@@ -0,0 +1,135 @@
+package org.vaadin.stefan.fullcalendar;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+public class EntrySearchIndexTest {
+
+    @Test
+    void testPrefixSearch() {
+        EntrySearchIndex index = new EntrySearchIndex();
+        index.put(TestUtils.createEntry("1", "Meeting in Berlin", TestUtils.REF, TestUtils.REF.plus(2, ChronoUnit.HOURS)));
+        Entry team = TestUtils.createEntry("2", "Team meeting", TestUtils.REF, TestUtils.REF.plus(2, ChronoUnit.HOURS));
+        team.setDescription("Room B-12");
+        index.put(team);
+        Entry lunch = TestUtils.createEntry("3", "Lunch", TestUtils.REF, TestUtils.REF.plus(2, ChronoUnit.HOURS));
+        lunch.setDescription("with the TEAM");
+        index.put(lunch);
+
+        Assertions.assertEquals(set("1", "2"), index.search("meet"));
+        Assertions.assertEquals(set("1"), index.search("MEET ber"));
+        Assertions.assertEquals(set("2", "3"), index.search("team"));
+        Assertions.assertEquals(set("2"), index.search("room 12"));
+        Assertions.assertTrue(index.search("meeting lunch").isEmpty());
+        Assertions.assertTrue(index.search(" - ").isEmpty());
+        Assertions.assertTrue(index.search("x").isEmpty());
+    }
+
+    @Test
+    void testUpdateAndRemove() {
+        EntrySearchIndex index = new EntrySearchIndex();
+        Entry entry = TestUtils.createEntry("1", "Dentist", TestUtils.REF, TestUtils.REF.plus(2, ChronoUnit.HOURS));
+        index.put(entry);
+
+        entry.setTitle("Doctor");
+        index.put(entry);
+        Assertions.assertTrue(index.search("dent").isEmpty());
+        Assertions.assertEquals(set("1"), index.search("doc"));
+
+        index.remove("1");
+        Assertions.assertTrue(index.search("doc").isEmpty());
+    }
+
+    @Test
+    void testCalendarSearch() {
+        FullCalendar calendar = new FullCalendar();
+        Entry meeting1 = TestUtils.createEntry("1", "Meeting", TestUtils.REF, TestUtils.REF.plus(2, ChronoUnit.HOURS));
+        Entry meeting2 = TestUtils.createEntry("2", "Meeting", TestUtils.REF.plus(48, ChronoUnit.HOURS), TestUtils.REF.plus(50, ChronoUnit.HOURS));
+        Entry other = TestUtils.createEntry("3", "Other", TestUtils.REF, TestUtils.REF.plus(2, ChronoUnit.HOURS));
+        calendar.addEntries(meeting2, meeting1, other);
+
+        // works without index
+        Assertions.assertFalse(calendar.isEntrySearchEnabled());
+        Assertions.assertEquals(Arrays.asList(meeting1, meeting2), calendar.searchEntries("meet"));
+
+        calendar.setEntrySearchEnabled(true);
+        Assertions.assertTrue(calendar.isEntrySearchEnabled());
+        Assertions.assertEquals(Arrays.asList(meeting1, meeting2), calendar.searchEntries("meet"));
+        Assertions.assertEquals(Collections.singletonList(meeting2), calendar.searchEntries("meet", TestUtils.REF.plus(1, ChronoUnit.DAYS), null));
+        Assertions.assertEquals(Collections.singletonList(meeting1), calendar.searchEntries("meet", null, TestUtils.REF.plus(1, ChronoUnit.DAYS)));
+
+        other.setDescription("Meet the team");
+        Assertions.assertEquals(Arrays.asList(meeting1, other, meeting2), calendar.searchEntries("meet"));
+
+        calendar.removeEntry(meeting1);
+        Assertions.assertEquals(Arrays.asList(other, meeting2), calendar.searchEntries("meet"));
+
+        calendar.removeAllEntries();
+        Assertions.assertTrue(calendar.searchEntries("meet").isEmpty());
+    }
+
+    @Test
+    void testCalendarSearchIncludesMountedEntrySets() {
+        Entry shared = TestUtils.createEntry("1", "Shared meeting", TestUtils.REF.plus(24, ChronoUnit.HOURS), TestUtils.REF.plus(26, ChronoUnit.HOURS));
+        Entry overridden = TestUtils.createEntry("2", "Meeting", TestUtils.REF, TestUtils.REF.plus(2, ChronoUnit.HOURS));
+        Entry sharedOther = TestUtils.createEntry("3", "Other", TestUtils.REF, TestUtils.REF.plus(2, ChronoUnit.HOURS));
+
+        FullCalendar calendar = new FullCalendar();
+        calendar.mountEntrySet(EntrySet.of(shared, overridden, sharedOther));
+        Entry meeting = TestUtils.createEntry("4", "Meeting", TestUtils.REF.plus(48, ChronoUnit.HOURS), TestUtils.REF.plus(50, ChronoUnit.HOURS));
+        Entry overlay = TestUtils.createEntry("2", "Overlay", TestUtils.REF, TestUtils.REF.plus(2, ChronoUnit.HOURS));
+        calendar.addEntries(meeting, overlay);
+
+        for (boolean enabled : new boolean[]{false, true}) {
+            calendar.setEntrySearchEnabled(enabled);
+            Assertions.assertEquals(Arrays.asList(shared, meeting), calendar.searchEntries("meet"));
+            Assertions.assertEquals(Collections.singletonList(shared), calendar.searchEntries("meet", null, TestUtils.REF.plus(2, ChronoUnit.DAYS)));
+            Assertions.assertEquals(Collections.singletonList(overlay), calendar.searchEntries("overlay"));
+        }
+    }
+
+    @Test
+    void testIndexedAndScannedSearchMatch() {
+        String[] words = {"alpha", "beta", "gamma", "delta", "alphabet", "betamax", "gam"};
+        Random random = new Random(11);
+
+        FullCalendar indexed = new FullCalendar();
+        FullCalendar scanned = new FullCalendar();
+        indexed.setEntrySearchEnabled(true);
+
+        for (int i = 0; i < 1000; i++) {
+            String title = words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)];
+            String description = random.nextBoolean() ? words[random.nextInt(words.length)] : null;
+            int offset = random.nextInt(500);
+            for (FullCalendar calendar : Arrays.asList(indexed, scanned)) {
+                Entry entry = TestUtils.createEntry(String.valueOf(i), title, TestUtils.REF.plus(offset, ChronoUnit.HOURS), TestUtils.REF.plus(offset + 2, ChronoUnit.HOURS));
+                entry.setDescription(description);
+                calendar.addEntry(entry);
+            }
+        }
+
+        String[] queries = {"al", "alpha", "bet gam", "d", "gamma alphab", "x"};
+        for (String query : queries) {
+            Instant filterStart = TestUtils.REF.plus(random.nextInt(400), ChronoUnit.HOURS);
+            Instant filterEnd = filterStart.plus(random.nextInt(100), ChronoUnit.HOURS);
+
+            Assertions.assertEquals(ids(scanned.searchEntries(query)), ids(indexed.searchEntries(query)));
+            Assertions.assertEquals(ids(scanned.searchEntries(query, filterStart, filterEnd)), ids(indexed.searchEntries(query, filterStart, filterEnd)));
+        }
+    }
+
+    private static List<String> ids(List<Entry> entries) {
+        List<String> ids = new ArrayList<>();
+        entries.forEach(e -> ids.add(e.getId()));
+        ids.sort(null);
+        return ids;
+    }
+
+    private static Set<String> set(String... ids) {
+        return new HashSet<>(Arrays.asList(ids));
+    }
+}
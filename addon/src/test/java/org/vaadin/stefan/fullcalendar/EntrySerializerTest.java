@@ -0,0 +1,79 @@
+package org.vaadin.stefan.fullcalendar;
+
+import elemental.json.JsonArray;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class EntrySerializerTest {
+
+    @Test
+    void testSequentialBelowThreshold() {
+        EntrySerializer serializer = new EntrySerializer();
+        serializer.setParallelThreshold(10000);
+        serializer.setExecutor(command -> Assertions.fail("executor must not be used"));
+
+        List<Entry> entries = createEntries(5000);
+        assertSameOrder(entries, serializer.serialize(entries, Entry::toCachedJson));
+
+        serializer.setParallelThreshold(0);
+        assertSameOrder(entries, serializer.serialize(entries, Entry::toCachedJson));
+    }
+
+    @Test
+    void testParallelKeepsOrder() {
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        try {
+            AtomicInteger tasks = new AtomicInteger();
+            EntrySerializer serializer = new EntrySerializer();
+            serializer.setParallelThreshold(1000);
+            serializer.setExecutor(command -> {
+                tasks.incrementAndGet();
+                executorService.execute(command);
+            });
+
+            List<Entry> entries = createEntries(20000);
+            assertSameOrder(entries, serializer.serialize(entries, Entry::toCachedJson));
+            Assertions.assertTrue(tasks.get() > 1);
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    @Test
+    void testParallelPassesExceptions() {
+        EntrySerializer serializer = new EntrySerializer();
+        serializer.setParallelThreshold(1000);
+
+        List<Entry> entries = createEntries(5000);
+        Entry failing = entries.get(4000);
+        Assertions.assertThrows(IllegalStateException.class, () -> serializer.serialize(entries, entry -> {
+            if (entry == failing) {
+                throw new IllegalStateException();
+            }
+            return entry.toCachedJson();
+        }));
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> serializer.setParallelThreshold(-1));
+        Assertions.assertThrows(NullPointerException.class, () -> serializer.setExecutor(null));
+    }
+
+    private static List<Entry> createEntries(int amount) {
+        List<Entry> entries = new ArrayList<>();
+        for (int i = 0; i < amount; i++) {
+            entries.add(new Entry(String.valueOf(i)));
+        }
+        return entries;
+    }
+
+    private static void assertSameOrder(List<Entry> entries, JsonArray array) {
+        Assertions.assertEquals(entries.size(), array.length());
+        for (int i = 0; i < entries.size(); i++) {
+            Assertions.assertEquals(entries.get(i).getId(), array.getObject(i).getString("id"));
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package org.vaadin.stefan.fullcalendar;
+
+import elemental.json.JsonArray;
+import elemental.json.JsonObject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+public class EntrySetTest {
+
+    @Test
+    void testCreation() {
+        Entry entry1 = TestUtils.createEntry("1", TestUtils.REF, TestUtils.REF.plus(1, ChronoUnit.HOURS));
+        Entry entry2 = TestUtils.createEntry("2", TestUtils.REF.plus(1, ChronoUnit.DAYS), TestUtils.REF.plus(2, ChronoUnit.DAYS));
+
+        EntrySet set = EntrySet.of(entry1, entry2);
+        Assertions.assertEquals(2, set.size());
+        Assertions.assertNotNull(set.getId());
+        Assertions.assertNotEquals(set.getId(), EntrySet.of(entry1).getId());
+        Assertions.assertEquals(Arrays.asList(entry1, entry2), new ArrayList<>(set.getEntries()));
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> set.getEntries().clear());
+
+        Assertions.assertSame(entry1, set.getEntryById("1").orElse(null));
+        Assertions.assertFalse(set.getEntryById("3").isPresent());
+
+        Assertions.assertEquals(Collections.singletonList(entry2), set.getEntries(TestUtils.REF.plus(1, ChronoUnit.HOURS), null));
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> EntrySet.of(entry1, TestUtils.createEntry("1", TestUtils.REF, TestUtils.REF)));
+        Assertions.assertThrows(NullPointerException.class, () -> EntrySet.of((Collection<Entry>) null));
+    }
+
+    @Test
+    void testMountInSeveralCalendars() {
+        Entry shared = TestUtils.createEntry("shared", TestUtils.REF, TestUtils.REF.plus(1, ChronoUnit.HOURS));
+        EntrySet set = EntrySet.of(shared);
+
+        FullCalendar calendar1 = new FullCalendar();
+        FullCalendar calendar2 = new FullCalendar();
+        calendar1.mountEntrySet(set);
+        calendar1.mountEntrySet(set);
+        calendar2.mountEntrySet(set);
+
+        Entry private1 = TestUtils.createEntry("private", TestUtils.REF, TestUtils.REF.plus(2, ChronoUnit.HOURS));
+        calendar1.addEntry(private1);
+
+        Assertions.assertEquals(Collections.singletonList(set), calendar1.getMountedEntrySets());
+        Assertions.assertFalse(shared.getCalendar().isPresent());
+
+        Assertions.assertSame(shared, calendar1.getEntryById("shared").orElse(null));
+        Assertions.assertSame(shared, calendar2.getEntryById("shared").orElse(null));
+        Assertions.assertFalse(calendar2.getEntryById("private").isPresent());
+
+        Assertions.assertEquals(new HashSet<>(Arrays.asList(shared, private1)), new HashSet<>(calendar1.getEntries()));
+        Assertions.assertEquals(new HashSet<>(Arrays.asList(shared, private1)), new HashSet<>(calendar1.getEntries(TestUtils.REF, TestUtils.REF.plus(1, ChronoUnit.DAYS))));
+        Assertions.assertEquals(new HashSet<>(Arrays.asList(shared, private1)), new HashSet<>(calendar1.getEntries(LocalDate.of(2000, 1, 1))));
+        Assertions.assertEquals(Collections.singletonList(shared), calendar2.getEntries(LocalDate.of(2000, 1, 1)));
+
+        // removing private entries does not affect the mounted set
+        calendar1.removeAllEntries();
+        Assertions.assertEquals(Collections.singletonList(shared), calendar1.getEntries());
+
+        calendar1.unmountEntrySet(set);
+        Assertions.assertTrue(calendar1.getEntries().isEmpty());
+        Assertions.assertTrue(calendar1.getMountedEntrySets().isEmpty());
+        Assertions.assertEquals(Collections.singletonList(shared), calendar2.getEntries());
+    }
+
+    @Test
+    void testPrivateEntriesHavePrecedence() {
+        Entry shared = TestUtils.createEntry("1", TestUtils.REF, TestUtils.REF.plus(1, ChronoUnit.HOURS));
+        Entry overlay = TestUtils.createEntry("1", TestUtils.REF, TestUtils.REF.plus(1, ChronoUnit.HOURS));
+
+        FullCalendar calendar = new FullCalendar();
+        calendar.mountEntrySet(EntrySet.of(shared));
+        calendar.addEntry(overlay);
+
+        Assertions.assertSame(overlay, calendar.getEntryById("1").orElse(null));
+        Assertions.assertEquals(Collections.singletonList(overlay), calendar.getEntries());
+        Assertions.assertEquals(Collections.singletonList(overlay), calendar.getEntries(TestUtils.REF, TestUtils.REF.plus(1, ChronoUnit.DAYS)));
+    }
+
+    @Test
+    void testToJson() {
+        Entry entry = TestUtils.createEntry("1", TestUtils.REF, TestUtils.REF.plus(1, ChronoUnit.HOURS));
+        entry.setRecurringStartDate(TestUtils.REF);
+        EntrySet set = EntrySet.of(entry);
+        Timezone berlin = new Timezone(ZoneId.of("Europe/Berlin"));
+
+        JsonArray array = set.toJson(berlin, false);
+        Assertions.assertEquals(1, array.length());
+        JsonObject json = array.getObject(0);
+        Assertions.assertEquals("1", json.getString("id"));
+        Assertions.assertEquals(berlin.formatWithZoneId(TestUtils.REF), json.getString("start"));
+        Assertions.assertEquals(berlin.formatWithZoneId(TestUtils.REF.plus(1, ChronoUnit.HOURS)), json.getString("end"));
+        Assertions.assertEquals(berlin.formatWithZoneId(TestUtils.REF), json.getString("startRecur"));
+        Assertions.assertFalse(json.getBoolean("editable"));
+
+        // the json is created once per format
+        Assertions.assertSame(array, set.toJson(new Timezone(ZoneId.of("Europe/Berlin")), false));
+        Assertions.assertEquals(TestUtils.REF.toString(), set.toJson(Timezone.UTC, false).getObject(0).getString("start"));
+
+        JsonObject epochMillis = set.toJson(berlin, true).getObject(0);
+        Assertions.assertEquals(TestUtils.REF.toEpochMilli(), (long) epochMillis.getNumber("start"));
+        Assertions.assertSame(set.toJson(berlin, true), set.toJson(Timezone.UTC, true));
+    }
+}
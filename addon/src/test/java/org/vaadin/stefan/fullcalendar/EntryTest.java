@@ -9,6 +9,8 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
 import java.time.*;
+import java.util.EnumSet;
+import java.util.Set;
 import java.util.UUID;
 
 public class EntryTest {
@@ -262,4 +264,155 @@ public class EntryTest {
         Assertions.assertEquals(Entry.RenderingMode.NORMAL, entry.getRenderingMode()); // should not be affected by json
     }
 
+    @Test
+    void testToJsonChanges() {
+        Entry entry = new Entry(DEFAULT_ID);
+        entry.setTitle(DEFAULT_TITLE);
+        entry.setStart(DEFAULT_START_UTC);
+        entry.setEnd(DEFAULT_END_UTC);
+
+        Assertions.assertFalse(entry.getChangedProperties().isEmpty());
+        entry.clearChangedProperties(); // entry has been sent to the client
+
+        // no tracked changes lead to the full json
+        Assertions.assertEquals(entry.toJson().toJson(), entry.toJsonChanges().toJson());
+
+        entry.setTitle(DEFAULT_TITLE); // unchanged
+        entry.setColor(DEFAULT_COLOR);
+        JsonObject changes = entry.toJsonChanges();
+        Assertions.assertEquals(2, changes.keys().length);
+        Assertions.assertEquals(DEFAULT_ID, changes.getString("id"));
+        Assertions.assertEquals(DEFAULT_COLOR, changes.getString("color"));
+
+        // removed values are sent as null
+        entry.setColor(null);
+        Assertions.assertTrue(entry.toJsonChanges().get("color") instanceof JsonNull);
+
+        // dates are sent together
+        entry.clearChangedProperties();
+        entry.setEnd(DEFAULT_END_UTC.plusSeconds(3600));
+        changes = entry.toJsonChanges();
+        Assertions.assertEquals(4, changes.keys().length);
+        Assertions.assertTrue(changes.hasKey("start"));
+        Assertions.assertTrue(changes.hasKey("allDay"));
+
+        // values from the client are not sent back
+        entry.clearChangedProperties();
+        JsonObject clientChanges = Json.createObject();
+        clientChanges.put("id", DEFAULT_ID);
+        clientChanges.put("title", "client title");
+        entry.update(clientChanges);
+        Assertions.assertTrue(entry.getChangedProperties().isEmpty());
+
+        // a changed recurrence is sent completely
+        entry.setRecurringStartTime(LocalTime.NOON);
+        Assertions.assertEquals(entry.toJson().toJson(), entry.toJsonChanges().toJson());
+
+        // other properties of recurring entries are updated in place, but dates are not
+        entry.clearChangedProperties();
+        entry.setTitle("recurring title");
+        Assertions.assertEquals(2, entry.toJsonChanges().keys().length);
+
+        entry.setStart(DEFAULT_START_UTC.plusSeconds(3600));
+        Assertions.assertEquals(entry.toJson().toJson(), entry.toJsonChanges().toJson());
+    }
+
+    @Test
+    void testToJsonWithEpochMillis() {
+        Entry entry = new Entry(DEFAULT_ID);
+        entry.setStart(DEFAULT_START_UTC);
+        entry.setEnd(DEFAULT_END_UTC);
+        entry.setRecurringEndDate(DEFAULT_END_UTC);
+
+        FullCalendar calendar = new FullCalendar();
+        calendar.setTimezone(CUSTOM_TIMEZONE);
+        calendar.addEntry(entry);
+
+        Assertions.assertEquals(CUSTOM_TIMEZONE.formatWithZoneId(DEFAULT_START_UTC), entry.toJson().getString("start"));
+
+        calendar.setEntryTimestampsAsEpochMillis(true);
+        Assertions.assertTrue(calendar.isEntryTimestampsAsEpochMillis());
+
+        JsonObject json = entry.toJson();
+        Assertions.assertEquals(DEFAULT_START_UTC.toEpochMilli(), (long) json.getNumber("start"));
+        Assertions.assertEquals(DEFAULT_END_UTC.toEpochMilli(), (long) json.getNumber("end"));
+        Assertions.assertEquals(DEFAULT_END_UTC.toEpochMilli(), (long) json.getNumber("endRecur"));
+        Assertions.assertTrue(json.get("startRecur") instanceof JsonNull);
+    }
+
+    @Test
+    void testToCachedJson() {
+        Entry entry = new Entry(DEFAULT_ID);
+        entry.setTitle(DEFAULT_TITLE);
+        entry.setStart(DEFAULT_START_UTC);
+
+        JsonObject json = entry.toCachedJson();
+        Assertions.assertSame(json, entry.toCachedJson());
+        Assertions.assertEquals(entry.toJson().toJson(), json.toJson());
+
+        // unchanged values do not invalidate the cache
+        entry.setTitle(DEFAULT_TITLE);
+        Assertions.assertSame(json, entry.toCachedJson());
+
+        entry.setTitle("changed");
+        JsonObject changed = entry.toCachedJson();
+        Assertions.assertNotSame(json, changed);
+        Assertions.assertEquals("changed", changed.getString("title"));
+
+        JsonObject update = Json.createObject();
+        update.put("id", DEFAULT_ID);
+        update.put("title", "from client");
+        entry.update(update);
+        Assertions.assertEquals("from client", entry.toCachedJson().getString("title"));
+
+        // the client side format depends on the calendar
+        FullCalendar calendar = new FullCalendar();
+        calendar.addEntry(entry);
+        json = entry.toCachedJson();
+
+        calendar.setTimezone(CUSTOM_TIMEZONE);
+        Assertions.assertNotSame(json, entry.toCachedJson());
+        Assertions.assertEquals(CUSTOM_TIMEZONE.formatWithZoneId(DEFAULT_START_UTC), entry.toCachedJson().getString("start"));
+
+        calendar.setEntryTimestampsAsEpochMillis(true);
+        Assertions.assertEquals(DEFAULT_START_UTC.toEpochMilli(), (long) entry.toCachedJson().getNumber("start"));
+    }
+
+    @Test
+    void testUntrackedChangesAreSent() {
+        UntrackedEntry entry = new UntrackedEntry();
+        entry.location = "before";
+        Assertions.assertEquals("before", entry.toCachedJson().getString("location"));
+        entry.clearChangedProperties();
+
+        // subclasses are not cached, an explicit update without tracked changes sends the current state
+        entry.location = "after";
+        Assertions.assertEquals("after", entry.toCachedJson().getString("location"));
+        Assertions.assertEquals("after", entry.toJsonChanges().getString("location"));
+
+        // modifying the days of week set directly
+        Entry recurring = new Entry();
+        Set<DayOfWeek> days = EnumSet.of(DayOfWeek.MONDAY);
+        recurring.setRecurringDaysOfWeeks(days);
+        Assertions.assertEquals(1, recurring.toCachedJson().getArray("daysOfWeek").length());
+        recurring.clearChangedProperties();
+
+        days.add(DayOfWeek.TUESDAY);
+        Assertions.assertEquals(2, recurring.toCachedJson().getArray("daysOfWeek").length());
+
+        days.add(DayOfWeek.FRIDAY);
+        recurring.setRecurringDaysOfWeeks(days);
+        Assertions.assertTrue(recurring.getChangedProperties().contains("daysOfWeek"));
+    }
+
+    private static class UntrackedEntry extends Entry {
+        private String location;
+
+        @Override
+        protected JsonObject toJson() {
+            JsonObject json = super.toJson();
+            json.put("location", location);
+            return json;
+        }
+    }
 }
@@ -3,6 +3,7 @@ package org.vaadin.stefan.fullcalendar;
 import com.vaadin.flow.component.ComponentEventBusUtil;
 import com.vaadin.flow.dom.Element;
 import elemental.json.Json;
+import elemental.json.JsonArray;
 import elemental.json.JsonObject;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeAll;
@@ -18,6 +19,7 @@ import java.util.*;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeoutException;
 import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 @SuppressWarnings("ALL")
 public class FullCalendarTest {
@@ -556,6 +558,193 @@ public class FullCalendarTest {
         Assertions.assertEquals(entriesMatching, new ArrayList<>(entriesFound), () -> buildListBasedErrorString(entriesMatching, entriesFound));
     }
 
+    @Test
+    void testGetEntriesByIntervalAfterEntryTimespanChanged() {
+        FullCalendar calendar = new FullCalendar();
+
+        Instant ref = LocalDate.of(2000, 1, 1).atStartOfDay().toInstant(ZoneOffset.UTC);
+        Entry entry = new Entry(null, "title", ref, ref.plus(1, ChronoUnit.HOURS), false, true, null, null);
+        calendar.addEntry(entry);
+
+        Instant nextDay = ref.plus(1, ChronoUnit.DAYS);
+        entry.setStart(nextDay);
+        entry.setEnd(nextDay.plus(1, ChronoUnit.HOURS));
+
+        Assertions.assertTrue(calendar.getEntries(ref, ref.plus(2, ChronoUnit.HOURS)).isEmpty());
+        Assertions.assertEquals(Collections.singletonList(entry), calendar.getEntries(nextDay, nextDay.plus(2, ChronoUnit.HOURS)));
+
+        calendar.removeEntry(entry);
+        Assertions.assertTrue(calendar.getEntries(nextDay, nextDay.plus(2, ChronoUnit.HOURS)).isEmpty());
+
+        // not registered anymore, so changes must not affect the calendar
+        entry.setStart(ref);
+        Assertions.assertTrue(calendar.getEntries(ref, ref.plus(2, ChronoUnit.HOURS)).isEmpty());
+    }
+
+    @Test
+    void testUpdateWithOtherInstanceUsesRegisteredEntry() {
+        FullCalendar calendar = new FullCalendar();
+
+        Instant ref = LocalDate.of(2000, 1, 1).atStartOfDay().toInstant(ZoneOffset.UTC);
+        Entry entry = new Entry(null, "title", ref, ref.plus(1, ChronoUnit.HOURS), false, true, null, null);
+        calendar.addEntry(entry);
+        calendar.getPendingEntryChanges().flush(false, Collections.emptyIterator());
+
+        Instant nextDay = ref.plus(1, ChronoUnit.DAYS);
+        Entry other = new Entry(entry.getId(), "other title", nextDay, nextDay.plus(1, ChronoUnit.HOURS), false, true, null, null);
+        calendar.updateEntry(other);
+
+        // the client gets the same data as the server side
+        JsonObject update = calendar.getPendingEntryChanges().flush(false, Collections.emptyIterator()).getArray("update").getObject(0);
+        Assertions.assertEquals(entry.getId(), update.getString("id"));
+        Assertions.assertEquals("title", update.getString("title"));
+        Assertions.assertEquals(entry.toJson().getString("start"), update.getString("start"));
+
+        List<Entry> found = calendar.getEntries(ref, ref.plus(2, ChronoUnit.HOURS));
+        Assertions.assertEquals(1, found.size());
+        Assertions.assertSame(entry, found.get(0));
+        Assertions.assertTrue(calendar.getEntries(nextDay, nextDay.plus(2, ChronoUnit.HOURS)).isEmpty());
+
+        // changes of the other instance must not affect the calendar
+        other.setStart(ref);
+        Assertions.assertSame(entry, calendar.getEntries(ref, ref.plus(2, ChronoUnit.HOURS)).get(0));
+    }
+
+    @Test
+    void testGetEntriesByDateAfterTimezoneAndTimespanChanged() {
+        FullCalendar calendar = new FullCalendar();
+
+        // 23:00 - 23:30 UTC on 1999-12-31
+        Instant ref = LocalDate.of(2000, 1, 1).atStartOfDay().toInstant(ZoneOffset.UTC);
+        Entry entry = new Entry(null, "title", ref.minus(1, ChronoUnit.HOURS), ref.minus(30, ChronoUnit.MINUTES), false, true, null, null);
+        calendar.addEntry(entry);
+
+        Assertions.assertEquals(Collections.singletonList(entry), calendar.getEntries(LocalDate.of(1999, 12, 31)));
+        Assertions.assertTrue(calendar.getEntries(LocalDate.of(2000, 1, 1)).isEmpty());
+
+        calendar.setTimezone(new Timezone(ZoneId.of("Europe/Berlin")));
+        Assertions.assertTrue(calendar.getEntries(LocalDate.of(1999, 12, 31)).isEmpty());
+        Assertions.assertEquals(Collections.singletonList(entry), calendar.getEntries(LocalDate.of(2000, 1, 1)));
+
+        entry.setEnd(ref.plus(2, ChronoUnit.DAYS));
+        calendar.updateEntry(entry);
+        Assertions.assertEquals(Collections.singletonList(entry), calendar.getEntries(LocalDate.of(2000, 1, 2)));
+        Assertions.assertEquals(Collections.singletonList(entry), calendar.getEntries(ref.plus(1, ChronoUnit.DAYS)));
+        Assertions.assertEquals(Collections.singletonList(entry), calendar.getEntries(LocalDate.of(2000, 1, 3)));
+        Assertions.assertTrue(calendar.getEntries(LocalDate.of(2000, 1, 4)).isEmpty());
+    }
+
+    @Test
+    void testStreamAndCountEntries() {
+        FullCalendar calendar = new FullCalendar();
+
+        Instant ref = LocalDate.of(2000, 1, 1).atStartOfDay().toInstant(ZoneOffset.UTC);
+        List<Entry> sorted = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Instant start = ref.plus(i, ChronoUnit.HOURS);
+            sorted.add(new Entry(null, "title " + i, start, start.plus(1, ChronoUnit.HOURS), false, true, null, null));
+        }
+
+        List<Entry> shuffled = new ArrayList<>(sorted.subList(0, 15));
+        Collections.shuffle(shuffled, new Random(1));
+        calendar.addEntries(shuffled);
+
+        Entry shared = sorted.get(15);
+        calendar.mountEntrySet(EntrySet.of(sorted.subList(15, 20).toArray(new Entry[0])));
+
+        Assertions.assertEquals(sorted, calendar.streamEntries().collect(Collectors.toList()));
+        Assertions.assertEquals(sorted.subList(2, 5), calendar.streamEntries(ref.plus(2, ChronoUnit.HOURS), ref.plus(5, ChronoUnit.HOURS)).collect(Collectors.toList()));
+        Assertions.assertEquals(20, calendar.countEntries());
+        Assertions.assertEquals(3, calendar.countEntries(ref.plus(2, ChronoUnit.HOURS), ref.plus(5, ChronoUnit.HOURS)));
+        Assertions.assertEquals(5, calendar.countEntries(ref.plus(15, ChronoUnit.HOURS), null));
+
+        Collection<Entry> view = calendar.getEntriesView();
+        Assertions.assertEquals(20, view.size());
+        Assertions.assertEquals(new HashSet<>(sorted), new HashSet<>(view));
+        Assertions.assertTrue(view.contains(shared));
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> view.add(new Entry()));
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> view.clear());
+
+        // the view is live
+        calendar.removeEntry(sorted.get(0));
+        Assertions.assertEquals(19, view.size());
+        Assertions.assertFalse(view.contains(sorted.get(0)));
+        Assertions.assertEquals(19, calendar.countEntries());
+    }
+
+    @Test
+    void testGetOccurrences() {
+        FullCalendar calendar = new FullCalendar();
+
+        Instant ref = LocalDate.of(2000, 1, 3).atStartOfDay().toInstant(ZoneOffset.UTC);
+        Entry single = new Entry(null, "single", ref.plus(12, ChronoUnit.HOURS), ref.plus(13, ChronoUnit.HOURS), false, true, null, null);
+        Entry recurring = new Entry();
+        recurring.setRecurringStartTime(LocalTime.of(10, 0));
+        calendar.addEntries(single, recurring);
+
+        List<Occurrence> occurrences = calendar.getOccurrences(ref, ref.plus(2, ChronoUnit.DAYS));
+        Assertions.assertEquals(3, occurrences.size());
+        Assertions.assertSame(recurring, occurrences.get(0).getEntry());
+        Assertions.assertEquals(ref.plus(10, ChronoUnit.HOURS), occurrences.get(0).getStartUTC());
+        Assertions.assertSame(single, occurrences.get(1).getEntry());
+        Assertions.assertSame(recurring, occurrences.get(2).getEntry());
+
+        // changes of the recurrence invalidate the cached occurrences
+        recurring.setRecurringStartTime(LocalTime.of(14, 0));
+        occurrences = calendar.getOccurrences(ref, ref.plus(2, ChronoUnit.DAYS));
+        Assertions.assertSame(single, occurrences.get(0).getEntry());
+        Assertions.assertEquals(ref.plus(14, ChronoUnit.HOURS), occurrences.get(1).getStartUTC());
+
+        recurring.setRecurringEndDate(ref.plus(1, ChronoUnit.DAYS));
+        Assertions.assertEquals(2, calendar.getOccurrences(ref, ref.plus(2, ChronoUnit.DAYS)).size());
+
+        calendar.removeEntry(recurring);
+        Assertions.assertEquals(1, calendar.getOccurrences(ref, ref.plus(2, ChronoUnit.DAYS)).size());
+
+        // recurring entries of mounted sets are expanded, too
+        calendar.mountEntrySet(EntrySet.of(recurring));
+        Assertions.assertEquals(2, calendar.getOccurrences(ref, ref.plus(2, ChronoUnit.DAYS)).size());
+    }
+
+    @Test
+    void testDataProvider() {
+        FullCalendar calendar = new FullCalendar();
+
+        Instant ref = LocalDate.of(2000, 1, 1).atStartOfDay().toInstant(ZoneOffset.UTC);
+        List<Entry> backend = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            Instant start = ref.plus(i, ChronoUnit.DAYS);
+            backend.add(new Entry(null, "title " + i, start, start.plus(1, ChronoUnit.HOURS), false, true, null, null));
+        }
+
+        calendar.addEntry(new Entry());
+        calendar.setDataProvider((start, end) -> backend.stream()
+                .filter(e -> e.getEndUTC().isAfter(start) && e.getStartUTC().isBefore(end)));
+
+        Assertions.assertTrue(calendar.getDataProvider().isPresent());
+        Assertions.assertTrue(calendar.getEntries().isEmpty());
+        Assertions.assertThrows(IllegalStateException.class, () -> calendar.addEntry(new Entry()));
+
+        JsonArray fetched = calendar.fetchEntries("2000-01-01", "2000-01-08");
+        Assertions.assertEquals(7, fetched.length());
+        Assertions.assertEquals(7, calendar.getEntries().size());
+        Assertions.assertEquals(backend.get(0), calendar.getEntryById(backend.get(0).getId()).orElse(null));
+        Assertions.assertSame(calendar, backend.get(0).getCalendar().orElse(null));
+
+        // the next fetch replaces the entries of the previous one
+        fetched = calendar.fetchEntries("2000-02-01T00:00:00Z", "2000-02-03T00:00:00Z");
+        Assertions.assertEquals(2, fetched.length());
+        Assertions.assertFalse(calendar.getEntryById(backend.get(0).getId()).isPresent());
+        Assertions.assertFalse(backend.get(0).getCalendar().isPresent());
+        Assertions.assertTrue(calendar.getEntryById(backend.get(31).getId()).isPresent());
+
+        calendar.setDataProvider(null);
+        Assertions.assertFalse(calendar.getDataProvider().isPresent());
+        Assertions.assertTrue(calendar.getEntries().isEmpty());
+        Assertions.assertEquals(0, calendar.fetchEntries("2000-01-01", "2000-01-08").length());
+        calendar.addEntry(new Entry());
+    }
+
     private String buildListBasedErrorString(List<Entry> entriesMatching, Collection<Entry> entriesFound) {
         StringBuffer sb = new StringBuffer("Searched for:");
         entriesMatching.stream().map(Entry::getTitle).forEach(s -> sb.append(s).append("\n"));
@@ -931,4 +1120,57 @@ public class FullCalendarTest {
         Assertions.assertFalse(entries.contains(entry2));
         Assertions.assertTrue(entries.contains(entry3));
     }
+
+    @Test
+    void testUnchangedOptionsAreNotSent() {
+        FullCalendar calendar = new FullCalendar();
+        calendar.render();
+        calendar.setOption("weekNumbers", true);
+        calendar.setOption("weekNumbers", true);
+        Assertions.assertEquals(Collections.singletonMap("weekNumbers", true), calendar.getPendingOptions());
+
+        // any client call sends the pending options before
+        calendar.render();
+        Assertions.assertTrue(calendar.getPendingOptions().isEmpty());
+
+        calendar.setOption("weekNumbers", true);
+        Assertions.assertTrue(calendar.getPendingOptions().isEmpty());
+
+        calendar.setOption("weekNumbers", false);
+        Assertions.assertEquals(Collections.singletonMap("weekNumbers", false), calendar.getPendingOptions());
+    }
+
+    @Test
+    void testRemovalOfUnknownOptionsIsSent() {
+        FullCalendar calendar = new FullCalendar();
+
+        // the option might be part of the initial options
+        calendar.setOption("unknown", (Serializable) null);
+        Assertions.assertTrue(calendar.getPendingOptions().containsKey("unknown"));
+        Assertions.assertNull(calendar.getPendingOptions().get("unknown"));
+    }
+
+    @Test
+    void testModifiedJsonOptionsAreSentAgain() {
+        FullCalendar calendar = new FullCalendar();
+        JsonObject views = Json.createObject();
+        calendar.setOption("views", views);
+        calendar.render();
+
+        views.put("dayGrid", Json.createObject());
+        calendar.setOption("views", views);
+        Assertions.assertSame(views, calendar.getPendingOptions().get("views"));
+    }
+
+    @Test
+    void testPendingOptionsKeepTheirOrder() {
+        FullCalendar calendar = new FullCalendar();
+        calendar.render();
+        calendar.setOption("a", 1);
+        calendar.setOption("b", 2);
+        calendar.setOption("a", 3);
+
+        Assertions.assertEquals(Arrays.asList("a", "b"), new ArrayList<>(calendar.getPendingOptions().keySet()));
+        Assertions.assertEquals(3, calendar.getPendingOptions().get("a"));
+    }
 }
@@ -0,0 +1,268 @@
+package org.vaadin.stefan.fullcalendar;
+
+import elemental.json.JsonArray;
+import elemental.json.JsonObject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class PendingEntryChangesTest {
+
+    @Test
+    void testAddUpdateRemoveCollapse() {
+        PendingEntryChanges changes = new PendingEntryChanges();
+        Assertions.assertTrue(changes.isEmpty());
+
+        Entry added = new Entry("added");
+        Entry addedAndRemoved = new Entry("addedAndRemoved");
+        changes.add(added);
+        changes.update(added, false);
+        changes.add(addedAndRemoved);
+        changes.remove(addedAndRemoved);
+
+        JsonObject json = changes.flush(false, Collections.emptyIterator());
+        Assertions.assertEquals(Collections.singletonList("added"), ids(json, "add"));
+        Assertions.assertFalse(json.hasKey("update"));
+        Assertions.assertFalse(json.hasKey("remove"));
+        Assertions.assertFalse(json.hasKey("removeAll"));
+        Assertions.assertTrue(changes.isEmpty());
+    }
+
+    @Test
+    void testUpdateAndRemoveOfKnownEntries() {
+        PendingEntryChanges changes = new PendingEntryChanges();
+        Entry updated = new Entry("updated");
+        Entry updatedAndRemoved = new Entry("updatedAndRemoved");
+
+        changes.update(updated, false);
+        changes.update(updated, false);
+        changes.update(updatedAndRemoved, false);
+        changes.remove(updatedAndRemoved);
+
+        // re-adding a removed entry keeps the removal, since the client knows the old one
+        Entry readded = new Entry("updatedAndRemoved");
+        changes.add(readded);
+
+        JsonObject json = changes.flush(false, Collections.emptyIterator());
+        Assertions.assertEquals(Collections.singletonList("updated"), ids(json, "update"));
+        Assertions.assertEquals(Collections.singletonList("updatedAndRemoved"), removedIds(json));
+        Assertions.assertEquals(Collections.singletonList("updatedAndRemoved"), ids(json, "add"));
+    }
+
+    @Test
+    void testRemoveAllDiscardsPreviousChanges() {
+        PendingEntryChanges changes = new PendingEntryChanges();
+        changes.update(new Entry("1"), false);
+        changes.remove(new Entry("2"));
+        changes.removeAll();
+        changes.add(new Entry("3"));
+
+        JsonObject json = changes.flush(false, Collections.emptyIterator());
+        Assertions.assertTrue(json.getBoolean("removeAll"));
+        Assertions.assertFalse(json.hasKey("remove"));
+        Assertions.assertFalse(json.hasKey("update"));
+        Assertions.assertEquals(Collections.singletonList("3"), ids(json, "add"));
+    }
+
+    @Test
+    void testFlushSerializesLatestState() {
+        Entry entry = new Entry("1");
+
+        PendingEntryChanges changes = new PendingEntryChanges();
+        changes.update(entry, false);
+        entry.setTitle("changed after update");
+
+        JsonObject update = changes.flush(false, Collections.emptyIterator()).getArray("update").getObject(0);
+        Assertions.assertEquals("changed after update", update.getString("title"));
+        Assertions.assertEquals(Arrays.asList("id", "title"), new ArrayList<>(Arrays.asList(update.keys())));
+        Assertions.assertTrue(entry.getChangedProperties().isEmpty());
+
+        changes.update(entry, true);
+        Assertions.assertEquals(entry.toJson().toJson(), changes.flush(false, Collections.emptyIterator()).getArray("update").getObject(0).toJson());
+    }
+
+    @Test
+    void testRemovalSendsOnlyIds() {
+        PendingEntryChanges changes = new PendingEntryChanges();
+        for (int i = 0; i < 3; i++) {
+            Entry entry = new Entry(String.valueOf(i));
+            entry.setTitle("title");
+            changes.remove(entry);
+        }
+
+        JsonObject json = changes.flush(false, Collections.emptyIterator());
+        Assertions.assertEquals(Arrays.asList("0", "1", "2"), removedIds(json));
+    }
+
+    @Test
+    void testChunkedLoading() {
+        PendingEntryChanges changes = new PendingEntryChanges();
+        changes.setChunkSize(2);
+
+        List<Entry> entries = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            entries.add(new Entry(String.valueOf(i)));
+            changes.add(entries.get(i));
+        }
+
+        // the client is asked to request the first chunk
+        JsonObject json = changes.flush(false, Collections.emptyIterator());
+        Assertions.assertTrue(json.getBoolean("more"));
+        Assertions.assertFalse(json.hasKey("add"));
+        Assertions.assertEquals(0, changes.getLoadedCount());
+        Assertions.assertEquals(5, changes.getTotalCount());
+
+        // nothing is sent, until the client requests it, queued entries are not updated separately
+        changes.update(entries.get(0), false);
+        Assertions.assertTrue(changes.isEmpty());
+
+        // preferred entries come first
+        changes.requestNextChunk();
+        json = changes.flush(false, Arrays.asList(entries.get(3), entries.get(4)).iterator());
+        Assertions.assertEquals(Arrays.asList("3", "4"), ids(json, "add"));
+        Assertions.assertTrue(json.getBoolean("more"));
+        Assertions.assertEquals(2, changes.getLoadedCount());
+
+        // removing a queued entry does not send anything
+        changes.remove(entries.get(0));
+        Assertions.assertTrue(changes.isEmpty());
+        Assertions.assertEquals(4, changes.getTotalCount());
+
+        changes.requestNextChunk();
+        json = changes.flush(false, Collections.emptyIterator());
+        Assertions.assertEquals(Arrays.asList("1", "2"), ids(json, "add"));
+        Assertions.assertFalse(json.getBoolean("more"));
+        Assertions.assertFalse(json.hasKey("remove"));
+        Assertions.assertEquals(4, changes.getLoadedCount());
+
+        // small amounts are sent directly
+        changes.add(new Entry("5"));
+        json = changes.flush(false, Collections.emptyIterator());
+        Assertions.assertEquals(Collections.singletonList("5"), ids(json, "add"));
+        Assertions.assertFalse(json.hasKey("more"));
+    }
+
+    @Test
+    void testDisablingChunksSendsQueuedEntries() {
+        PendingEntryChanges changes = new PendingEntryChanges();
+        changes.setChunkSize(1);
+        changes.add(new Entry("1"));
+        changes.add(new Entry("2"));
+        changes.flush(false, Collections.emptyIterator());
+
+        changes.setChunkSize(0);
+        Assertions.assertFalse(changes.isEmpty());
+        changes.add(new Entry("3"));
+        JsonObject json = changes.flush(false, Collections.emptyIterator());
+        Assertions.assertEquals(Arrays.asList("1", "2", "3"), ids(json, "add"));
+        Assertions.assertFalse(json.getBoolean("more"));
+    }
+
+    @Test
+    void testDeferOutOfRangeEntries() {
+        Instant ref = TestUtils.REF;
+        PendingEntryChanges changes = new PendingEntryChanges();
+        changes.setDeferOutOfRange(true);
+
+        Entry visible = TestUtils.createEntry("visible", ref.plus(1, ChronoUnit.DAYS), ref.plus(1, ChronoUnit.DAYS).plus(1, ChronoUnit.HOURS));
+        Entry hidden = TestUtils.createEntry("hidden", ref.plus(10, ChronoUnit.DAYS), ref.plus(10, ChronoUnit.DAYS).plus(1, ChronoUnit.HOURS));
+        Entry movedAway = TestUtils.createEntry("movedAway", ref.plus(10, ChronoUnit.DAYS), ref.plus(10, ChronoUnit.DAYS).plus(1, ChronoUnit.HOURS));
+
+        // without a known visible range all entries are sent
+        changes.add(movedAway);
+        Assertions.assertEquals(Collections.singletonList("movedAway"), ids(changes.flush(false, Collections.emptyIterator()), "add"));
+
+        changes.setVisibleRange(ref, ref.plus(7, ChronoUnit.DAYS));
+        changes.add(visible);
+        changes.add(hidden);
+        changes.update(movedAway, false);
+
+        JsonObject json = changes.flush(false, Collections.emptyIterator());
+        Assertions.assertEquals(Collections.singletonList("visible"), ids(json, "add"));
+        Assertions.assertEquals(Collections.singletonList("movedAway"), removedIds(json));
+        Assertions.assertFalse(json.hasKey("update"));
+        Assertions.assertEquals(2, changes.getDeferredCount());
+        Assertions.assertTrue(changes.isEmpty());
+
+        // an update, that moves a held back entry into view, sends it
+        hidden.setStart(ref.plus(2, ChronoUnit.DAYS));
+        hidden.setEnd(ref.plus(3, ChronoUnit.DAYS));
+        changes.update(hidden, false);
+        Assertions.assertEquals(Collections.singletonList("hidden"), ids(changes.flush(false, Collections.emptyIterator()), "add"));
+
+        // navigation brings the remaining entry into view
+        changes.setVisibleRange(ref.plus(7, ChronoUnit.DAYS), ref.plus(14, ChronoUnit.DAYS));
+        Assertions.assertFalse(changes.undefer(Collections.singletonList(visible).iterator()));
+        Assertions.assertTrue(changes.undefer(Arrays.asList(visible, movedAway).iterator()));
+        Assertions.assertEquals(Collections.singletonList("movedAway"), ids(changes.flush(false, Collections.emptyIterator()), "add"));
+        Assertions.assertEquals(0, changes.getDeferredCount());
+
+        // removing a held back entry does not need the client
+        changes.setVisibleRange(ref, ref.plus(7, ChronoUnit.DAYS));
+        changes.update(movedAway, false);
+        changes.flush(false, Collections.emptyIterator());
+        changes.remove(movedAway);
+        Assertions.assertTrue(changes.isEmpty());
+        Assertions.assertEquals(0, changes.getDeferredCount());
+
+        changes.add(TestUtils.createEntry("later", ref.plus(20, ChronoUnit.DAYS), ref.plus(20, ChronoUnit.DAYS).plus(1, ChronoUnit.HOURS)));
+        changes.flush(false, Collections.emptyIterator());
+        changes.setDeferOutOfRange(false);
+        Assertions.assertEquals(Collections.singletonList("later"), ids(changes.flush(false, Collections.emptyIterator()), "add"));
+    }
+
+    @Test
+    void testReplaceAndRemoveById() {
+        PendingEntryChanges changes = new PendingEntryChanges();
+        Entry updated = new Entry("updated");
+        Entry added = new Entry("added");
+
+        changes.update(updated, false);
+        changes.add(added);
+        changes.replace(updated);
+        changes.removeById("added");
+        changes.removeById("unknown");
+
+        // replaced entries are removed and added again, removals by id are sent even for unknown entries
+        JsonObject json = changes.flush(false, Collections.emptyIterator());
+        Assertions.assertEquals(Arrays.asList("updated", "added", "unknown"), removedIds(json));
+        Assertions.assertEquals(Collections.singletonList("updated"), ids(json, "add"));
+        Assertions.assertFalse(json.hasKey("update"));
+
+        // replacing a queued entry does not count it twice
+        changes.setChunkSize(1);
+        changes.add(new Entry("queued1"));
+        changes.add(new Entry("queued2"));
+        changes.flush(false, Collections.emptyIterator());
+        Assertions.assertTrue(changes.isChunkedLoadingInProgress());
+
+        changes.replace(new Entry("queued1"));
+        changes.requestNextChunk();
+        changes.flush(false, Collections.emptyIterator());
+        Assertions.assertEquals(2, changes.getTotalCount());
+    }
+
+    private static List<String> removedIds(JsonObject json) {
+        JsonArray array = json.getArray("remove");
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < array.length(); i++) {
+            ids.add(array.getString(i));
+        }
+        return ids;
+    }
+
+    private static List<String> ids(JsonObject json, String key) {
+        JsonArray array = json.getArray(key);
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < array.length(); i++) {
+            ids.add(array.getObject(i).getString("id"));
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,190 @@
+package org.vaadin.stefan.fullcalendar;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class PrefetchingDataProviderTest {
+
+    @Test
+    void testNavigationIsServedFromCache() {
+        CountingDataProvider backend = new CountingDataProvider(365);
+        PrefetchingDataProvider provider = new PrefetchingDataProvider(backend, Runnable::run);
+
+        Instant start = TestUtils.REF.plus(100, ChronoUnit.DAYS);
+        Instant end = start.plus(7, ChronoUnit.DAYS);
+
+        Assertions.assertEquals(backend.expected(start, end), fetch(provider, start, end));
+
+        // initial fetch plus previous and next range
+        Assertions.assertEquals(3, backend.fetchCount);
+
+        Instant nextStart = end;
+        Instant nextEnd = end.plus(7, ChronoUnit.DAYS);
+        Assertions.assertEquals(backend.expected(nextStart, nextEnd), fetch(provider, nextStart, nextEnd));
+
+        // the next range has been served from the cache, only the range after it is prefetched
+        Assertions.assertEquals(4, backend.fetchCount);
+
+        Instant previousStart = start.minus(7, ChronoUnit.DAYS);
+        Assertions.assertEquals(backend.expected(previousStart, start), fetch(provider, previousStart, start));
+        Assertions.assertEquals(5, backend.fetchCount);
+    }
+
+    @Test
+    void testEvictionByDistance() {
+        CountingDataProvider backend = new CountingDataProvider(365);
+        PrefetchingDataProvider provider = new PrefetchingDataProvider(backend, Runnable::run);
+        provider.setMaxRangeDistance(1);
+
+        Instant start = TestUtils.REF.plus(100, ChronoUnit.DAYS);
+        fetch(provider, start, start.plus(7, ChronoUnit.DAYS));
+        Assertions.assertEquals(21, provider.getCachedEntryCount());
+
+        Instant farAway = TestUtils.REF.plus(200, ChronoUnit.DAYS);
+        fetch(provider, farAway, farAway.plus(7, ChronoUnit.DAYS));
+        Assertions.assertEquals(21, provider.getCachedEntryCount());
+
+        // the first range has been evicted and has to be loaded again
+        int fetchCount = backend.fetchCount;
+        fetch(provider, start, start.plus(7, ChronoUnit.DAYS));
+        Assertions.assertEquals(fetchCount + 3, backend.fetchCount);
+    }
+
+    @Test
+    void testEvictionByEntryLimit() {
+        CountingDataProvider backend = new CountingDataProvider(365);
+        PrefetchingDataProvider provider = new PrefetchingDataProvider(backend, Runnable::run);
+        provider.setMaxCachedEntries(10);
+
+        Instant start = TestUtils.REF.plus(100, ChronoUnit.DAYS);
+        Instant end = start.plus(7, ChronoUnit.DAYS);
+        Assertions.assertEquals(backend.expected(start, end), fetch(provider, start, end));
+
+        // prefetched ranges are dropped, the current one is kept
+        Assertions.assertEquals(7, provider.getCachedEntryCount());
+    }
+
+    @Test
+    void testClearCache() {
+        CountingDataProvider backend = new CountingDataProvider(365);
+        PrefetchingDataProvider provider = new PrefetchingDataProvider(backend, Runnable::run);
+
+        Instant start = TestUtils.REF.plus(100, ChronoUnit.DAYS);
+        fetch(provider, start, start.plus(7, ChronoUnit.DAYS));
+        provider.clearCache();
+        Assertions.assertEquals(0, provider.getCachedEntryCount());
+
+        fetch(provider, start, start.plus(7, ChronoUnit.DAYS));
+        Assertions.assertEquals(6, backend.fetchCount);
+    }
+
+    @Test
+    void testFailedPrefetchIsLoadedAgain() {
+        CountingDataProvider backend = new CountingDataProvider(365);
+        PrefetchingDataProvider provider = new PrefetchingDataProvider(backend, Runnable::run);
+
+        Instant start = TestUtils.REF.plus(100, ChronoUnit.DAYS);
+        Instant end = start.plus(7, ChronoUnit.DAYS);
+
+        backend.failAfter = 1;
+        Assertions.assertEquals(backend.expected(start, end), fetch(provider, start, end));
+
+        backend.failAfter = -1;
+        Assertions.assertEquals(backend.expected(end, end.plus(7, ChronoUnit.DAYS)), fetch(provider, end, end.plus(7, ChronoUnit.DAYS)));
+    }
+
+    @Test
+    void testInvalidSettings() {
+        PrefetchingDataProvider provider = new PrefetchingDataProvider(new CountingDataProvider(1), Runnable::run);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> provider.setMaxRangeDistance(0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> provider.setMaxCachedEntries(-1));
+        Assertions.assertThrows(NullPointerException.class, () -> new PrefetchingDataProvider(null));
+    }
+
+    @Test
+    void testEvictedPrefetchesAreCancelled() {
+        CountingDataProvider backend = new CountingDataProvider(365);
+        List<Runnable> queued = new ArrayList<>();
+        PrefetchingDataProvider provider = new PrefetchingDataProvider(backend, queued::add);
+        provider.setMaxRangeDistance(1);
+
+        Instant start = TestUtils.REF.plus(100, ChronoUnit.DAYS);
+        fetch(provider, start, start.plus(7, ChronoUnit.DAYS));
+        Instant farAway = TestUtils.REF.plus(200, ChronoUnit.DAYS);
+        fetch(provider, farAway, farAway.plus(7, ChronoUnit.DAYS));
+
+        // two direct fetches, the four prefetches are queued
+        Assertions.assertEquals(2, backend.fetchCount);
+        Assertions.assertEquals(4, queued.size());
+
+        // the prefetches around the first range have been evicted and are skipped
+        queued.forEach(Runnable::run);
+        Assertions.assertEquals(4, backend.fetchCount);
+    }
+
+    @Test
+    void testEntriesWithoutEndAndRecurringEntriesAreKept() {
+        Instant start = TestUtils.REF.plus(100, ChronoUnit.DAYS);
+        Instant end = start.plus(7, ChronoUnit.DAYS);
+
+        Entry withoutEnd = new Entry("withoutEnd");
+        withoutEnd.setStart(start.plus(1, ChronoUnit.DAYS));
+
+        // starts before the visible timespan, but recurs into it
+        Entry recurring = new Entry("recurring");
+        recurring.setStart(TestUtils.REF);
+        recurring.setEnd(TestUtils.REF.plus(1, ChronoUnit.HOURS));
+        recurring.setRecurringDaysOfWeeks(EnumSet.of(DayOfWeek.MONDAY));
+
+        Entry outside = new Entry("outside");
+        outside.setStart(TestUtils.REF);
+
+        List<Entry> backend = Arrays.asList(withoutEnd, recurring, outside);
+        PrefetchingDataProvider provider = new PrefetchingDataProvider((s, e) -> backend.stream(), Runnable::run);
+
+        Assertions.assertEquals(new HashSet<>(Arrays.asList(withoutEnd, recurring)), fetch(provider, start, end));
+
+        // the next timespan is served from the prefetched cache
+        Assertions.assertEquals(Collections.singleton(recurring), fetch(provider, end, end.plus(7, ChronoUnit.DAYS)));
+    }
+
+    private static Set<Entry> fetch(CalendarDataProvider provider, Instant start, Instant end) {
+        return provider.fetch(start, end).collect(Collectors.toSet());
+    }
+
+    /**
+     * Provides one entry per day and counts the calls of fetch.
+     */
+    private static class CountingDataProvider implements CalendarDataProvider {
+        private final List<Entry> entries = new ArrayList<>();
+        private int fetchCount;
+        private int failAfter = -1;
+
+        private CountingDataProvider(int days) {
+            for (int i = 0; i < days; i++) {
+                Instant start = TestUtils.REF.plus(i, ChronoUnit.DAYS).plus(10, ChronoUnit.HOURS);
+                entries.add(new Entry(null, "title " + i, start, start.plus(1, ChronoUnit.HOURS), false, true, null, null));
+            }
+        }
+
+        @Override
+        public Stream<? extends Entry> fetch(Instant start, Instant end) {
+            fetchCount++;
+            if (failAfter >= 0 && fetchCount > failAfter) {
+                throw new IllegalStateException("backend not available");
+            }
+            return entries.stream().filter(e -> e.getEndUTC().isAfter(start) && e.getStartUTC().isBefore(end));
+        }
+
+        private Set<Entry> expected(Instant start, Instant end) {
+            return entries.stream().filter(e -> e.getEndUTC().isAfter(start) && e.getStartUTC().isBefore(end)).collect(Collectors.toSet());
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package org.vaadin.stefan.fullcalendar;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.*;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+public class RecurrenceExpanderTest {
+
+    // 2000-01-03 is a monday
+    private static final LocalDate MONDAY = LocalDate.of(2000, 1, 3);
+
+    @Test
+    void testIsRecurring() {
+        Entry entry = new Entry();
+        Assertions.assertFalse(RecurrenceExpander.isRecurring(entry));
+
+        entry.setRecurringDaysOfWeeks(Collections.emptySet());
+        Assertions.assertFalse(RecurrenceExpander.isRecurring(entry));
+
+        entry.setRecurringDaysOfWeeks(EnumSet.of(DayOfWeek.MONDAY));
+        Assertions.assertTrue(RecurrenceExpander.isRecurring(entry));
+
+        entry = new Entry();
+        entry.setRecurringStartTime(LocalTime.NOON);
+        Assertions.assertTrue(RecurrenceExpander.isRecurring(entry));
+    }
+
+    @Test
+    void testTimedOccurrencesOnDaysOfWeek() {
+        Entry entry = new Entry();
+        entry.setRecurringDaysOfWeeks(EnumSet.of(DayOfWeek.MONDAY, DayOfWeek.WEDNESDAY));
+        entry.setRecurringStartTime(LocalTime.of(10, 0));
+        entry.setRecurringEndTime(LocalTime.of(11, 30));
+
+        List<Occurrence> occurrences = expand(entry, Timezone.UTC, MONDAY, MONDAY.plusWeeks(2));
+        Assertions.assertEquals(4, occurrences.size());
+
+        Occurrence first = occurrences.get(0);
+        Assertions.assertSame(entry, first.getEntry());
+        Assertions.assertFalse(first.isAllDay());
+        Assertions.assertEquals(MONDAY.atTime(10, 0).toInstant(ZoneOffset.UTC), first.getStartUTC());
+        Assertions.assertEquals(MONDAY.atTime(11, 30).toInstant(ZoneOffset.UTC), first.getEndUTC());
+        Assertions.assertEquals(MONDAY.plusDays(2).atTime(10, 0).toInstant(ZoneOffset.UTC), occurrences.get(1).getStartUTC());
+        Assertions.assertEquals(MONDAY.plusWeeks(1).atTime(10, 0).toInstant(ZoneOffset.UTC), occurrences.get(2).getStartUTC());
+    }
+
+    @Test
+    void testAllDayOccurrencesWithRecurringDates() {
+        Entry entry = new Entry();
+        entry.setRecurringStartDate(MONDAY.plusDays(1), Timezone.UTC);
+        entry.setRecurringEndDate(MONDAY.plusDays(4), Timezone.UTC);
+
+        List<Occurrence> occurrences = expand(entry, Timezone.UTC, MONDAY, MONDAY.plusWeeks(1));
+
+        // tuesday to thursday, the recurring end is exclusive
+        Assertions.assertEquals(3, occurrences.size());
+        for (int i = 0; i < 3; i++) {
+            Occurrence occurrence = occurrences.get(i);
+            Assertions.assertTrue(occurrence.isAllDay());
+            Assertions.assertEquals(MONDAY.plusDays(i + 1).atStartOfDay().toInstant(ZoneOffset.UTC), occurrence.getStartUTC());
+            Assertions.assertEquals(MONDAY.plusDays(i + 2).atStartOfDay().toInstant(ZoneOffset.UTC), occurrence.getEndUTC());
+        }
+    }
+
+    @Test
+    void testOccurrencesReachingIntoTheTimespan() {
+        Entry entry = new Entry();
+        entry.setRecurringStartTime(LocalTime.of(22, 0));
+        entry.setRecurringEndTime(LocalTime.of(2, 0));
+
+        // the occurrence of the previous day ends at 02:00
+        Instant filterStart = MONDAY.atTime(1, 0).toInstant(ZoneOffset.UTC);
+        List<Occurrence> occurrences = new ArrayList<>();
+        RecurrenceExpander.expand(entry, Timezone.UTC, filterStart, filterStart.plus(1, ChronoUnit.HOURS), occurrences::add);
+
+        Assertions.assertEquals(1, occurrences.size());
+        Assertions.assertEquals(MONDAY.minusDays(1).atTime(22, 0).toInstant(ZoneOffset.UTC), occurrences.get(0).getStartUTC());
+        Assertions.assertEquals(MONDAY.atTime(2, 0).toInstant(ZoneOffset.UTC), occurrences.get(0).getEndUTC());
+    }
+
+    @Test
+    void testOccurrencesUseTimezone() {
+        Entry entry = new Entry();
+        entry.setRecurringDaysOfWeeks(EnumSet.of(DayOfWeek.MONDAY));
+        entry.setRecurringStartTime(LocalTime.of(10, 0));
+
+        Timezone berlin = new Timezone(ZoneId.of("Europe/Berlin"));
+        List<Occurrence> occurrences = expand(entry, berlin, MONDAY, MONDAY.plusDays(1));
+
+        Assertions.assertEquals(1, occurrences.size());
+        Assertions.assertEquals(MONDAY.atTime(9, 0).toInstant(ZoneOffset.UTC), occurrences.get(0).getStartUTC());
+
+        // default duration without end time
+        Assertions.assertEquals(Duration.ofHours(FullCalendar.DEFAULT_TIMED_EVENT_DURATION),
+                Duration.between(occurrences.get(0).getStartUTC(), occurrences.get(0).getEndUTC()));
+    }
+
+    @Test
+    void testCacheInvalidation() {
+        RecurrenceExpander expander = new RecurrenceExpander();
+
+        Entry entry = new Entry();
+        entry.setRecurringStartTime(LocalTime.of(10, 0));
+        expander.put(entry);
+        expander.put(new Entry());
+
+        Instant start = MONDAY.atStartOfDay().toInstant(ZoneOffset.UTC);
+        Instant end = start.plus(7, ChronoUnit.DAYS);
+
+        List<Occurrence> occurrences = expander.getOccurrences(Timezone.UTC, start, end);
+        Assertions.assertEquals(7, occurrences.size());
+        Assertions.assertSame(occurrences, expander.getOccurrences(Timezone.UTC, start, end));
+
+        entry.setRecurringDaysOfWeeks(EnumSet.of(DayOfWeek.MONDAY));
+        expander.put(entry);
+        Assertions.assertEquals(1, expander.getOccurrences(Timezone.UTC, start, end).size());
+
+        expander.remove(entry.getId());
+        Assertions.assertTrue(expander.isEmpty());
+        Assertions.assertTrue(expander.getOccurrences(Timezone.UTC, start, end).isEmpty());
+    }
+
+    @Test
+    void testCacheIsKeptForUnchangedRecurrence() {
+        RecurrenceExpander expander = new RecurrenceExpander();
+
+        Set<DayOfWeek> daysOfWeeks = EnumSet.of(DayOfWeek.MONDAY);
+        Entry entry = new Entry();
+        entry.setRecurringDaysOfWeeks(daysOfWeeks);
+        expander.put(entry);
+
+        Instant start = MONDAY.atStartOfDay().toInstant(ZoneOffset.UTC);
+        Instant end = start.plus(7, ChronoUnit.DAYS);
+        List<Occurrence> occurrences = expander.getOccurrences(Timezone.UTC, start, end);
+
+        // e.g. an update of the entry's title
+        entry.setTitle("title");
+        expander.put(entry);
+        Assertions.assertSame(occurrences, expander.getOccurrences(Timezone.UTC, start, end));
+
+        // a modified days of week set is detected
+        daysOfWeeks.add(DayOfWeek.TUESDAY);
+        expander.put(entry);
+        Assertions.assertEquals(2, expander.getOccurrences(Timezone.UTC, start, end).size());
+    }
+
+    @Test
+    void testOnlyEntriesWithinTheirRecurrenceBoundsAreExpanded() {
+        RecurrenceExpander expander = new RecurrenceExpander();
+
+        Entry unbounded = new Entry("unbounded");
+        unbounded.setRecurringDaysOfWeeks(EnumSet.of(DayOfWeek.MONDAY));
+        Entry ended = new Entry("ended");
+        ended.setRecurringEndDate(MONDAY.minusWeeks(1), Timezone.UTC);
+        Entry notStarted = new Entry("notStarted");
+        notStarted.setRecurringStartDate(MONDAY.plusWeeks(1), Timezone.UTC);
+        Entry startsLocally = new Entry("startsLocally");
+        startsLocally.setRecurringStartDate(MONDAY, Timezone.UTC);
+        expander.put(unbounded);
+        expander.put(ended);
+        expander.put(notStarted);
+        expander.put(startsLocally);
+
+        // the monday starts 14 hours before the recurring start
+        Timezone kiritimati = new Timezone(ZoneId.of("Pacific/Kiritimati"));
+        Instant start = MONDAY.minusDays(1).atTime(10, 0).toInstant(ZoneOffset.UTC);
+        List<Occurrence> occurrences = expander.getOccurrences(kiritimati, start, start.plus(2, ChronoUnit.HOURS));
+
+        List<String> ids = new ArrayList<>();
+        occurrences.forEach(o -> ids.add(o.getEntry().getId()));
+        ids.sort(null);
+        Assertions.assertEquals(Arrays.asList("startsLocally", "unbounded"), ids);
+    }
+
+    private static List<Occurrence> expand(Entry entry, Timezone timezone, LocalDate start, LocalDate end) {
+        List<Occurrence> occurrences = new ArrayList<>();
+        RecurrenceExpander.expand(entry, timezone, timezone.convertToUTC(start), timezone.convertToUTC(end), occurrences::add);
+        return occurrences;
+    }
+}
@@ -4,8 +4,17 @@ import elemental.json.JsonObject;
 import elemental.json.JsonValue;
 import org.junit.jupiter.api.Assertions;
 
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+
 public class TestUtils {
 
+    /**
+     * Reference point in time for entry based tests (2000-01-01 00:00 UTC).
+     */
+    public static final Instant REF = LocalDate.of(2000, 1, 1).atStartOfDay().toInstant(ZoneOffset.UTC);
+
     private static boolean inited = false;
 
     /**
@@ -62,4 +71,34 @@ public class TestUtils {
             Assertions.fail("Expected json object to not have key '" + key + "'");
         }
     }
+
+    /**
+     * Creates an entry with the given id, start and end. The id may be null to let the entry generate one.
+     *
+     * @param id    id or null
+     * @param start start
+     * @param end   end
+     * @return entry
+     */
+    public static Entry createEntry(String id, Instant start, Instant end) {
+        Entry entry = new Entry(id);
+        entry.setStart(start);
+        entry.setEnd(end);
+        return entry;
+    }
+
+    /**
+     * Creates an entry with the given id, title, start and end.
+     *
+     * @param id    id or null
+     * @param title title
+     * @param start start
+     * @param end   end
+     * @return entry
+     */
+    public static Entry createEntry(String id, String title, Instant start, Instant end) {
+        Entry entry = createEntry(id, start, end);
+        entry.setTitle(title);
+        return entry;
+    }
 }